@@ -0,0 +1,56 @@
+package dev.ebyrdeu.backend.common.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * API response wrapper for a raw JSON payload that is already UTF-8 encoded.
+ * <p>
+ * Same shape on the wire as {@link BaseResponseJsonDto}, but the payload stays in bytes from the cache or the
+ * database to the socket: a dedicated message converter writes the envelope and the payload bytes straight to the
+ * response body, so the JSON is never decoded into a {@link String} nor re-encoded by Jackson.
+ * </p>
+ * <p>
+ * The buffer is shared, not copied, and byte arrays are wrapped as writable heap buffers so the converter can write
+ * straight from the backing array; readers must use {@link ByteBuffer#duplicate()} (as {@link #dataAsString()}
+ * does) and never move its position or modify its content.
+ * </p>
+ * <pre>
+ * Example serialized output:
+ * {"status":"OK","code":200,"message":"User retrieved successfully","data":{"username":"JohnJohn"}}
+ * </pre>
+ *
+ * @param status  the HTTP status of the response
+ * @param code    the numeric status code (usually matches {@code status.value()})
+ * @param message a human-readable message describing the result
+ * @param data    the UTF-8 encoded JSON payload, inlined into the response body; {@code null} writes {@code null}
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see BaseResponseJsonDto
+ */
+public record BaseResponseRawJsonDto(
+		HttpStatus status,
+		int code,
+		String message,
+
+		@Nullable
+		ByteBuffer data
+) {
+
+	public BaseResponseRawJsonDto(HttpStatus status, int code, String message, @Nullable byte[] data) {
+		this(status, code, message, data == null ? null : ByteBuffer.wrap(data));
+	}
+
+	/**
+	 * Decodes the payload, for logging and tests only; responses must go through the message converter.
+	 *
+	 * @return the payload as a string, or {@code null} if there is none
+	 */
+	@Nullable
+	public String dataAsString() {
+		return this.data == null ? null : StandardCharsets.UTF_8.decode(this.data.duplicate()).toString();
+	}
+}
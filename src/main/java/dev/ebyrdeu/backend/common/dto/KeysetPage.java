@@ -0,0 +1,48 @@
+package dev.ebyrdeu.backend.common.dto;
+
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (cursor) paginated listing.
+ * <p>
+ * Unlike offset pagination, the next page is located by the sort key of the last item, so every page
+ * costs an index range scan of {@code size} rows no matter how deep the client has paged.
+ * </p>
+ *
+ * @param <T>        the type of the items
+ * @param items      the items of this page, in listing order
+ * @param nextCursor opaque token for the next page, or {@code null} if this is the last page
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see dev.ebyrdeu.backend.common.util.KeysetCursor
+ */
+public record KeysetPage<T>(
+		List<T> items,
+		@Nullable String nextCursor
+) implements Serializable {
+	public KeysetPage {
+		items = List.copyOf(items);
+	}
+
+	/**
+	 * Builds a page from up to {@code size + 1} rows; the extra row only signals that a next page exists.
+	 *
+	 * @param <T>     the type of the items
+	 * @param rows    the rows fetched with a limit of {@code size + 1}
+	 * @param size    the requested page size
+	 * @param encoder builds the cursor from the last item of the page
+	 * @return the page
+	 */
+	public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, String> encoder) {
+		if (rows.size() <= size) {
+			return new KeysetPage<>(rows, null);
+		}
+
+		List<T> items = rows.subList(0, size);
+		return new KeysetPage<>(items, encoder.apply(items.getLast()));
+	}
+}
@@ -2,6 +2,7 @@ package dev.ebyrdeu.backend.common.entity;
 
 import jakarta.persistence.*;
 import org.hibernate.proxy.HibernateProxy;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -9,31 +10,55 @@ import java.util.Objects;
 /**
  * Base Entity class to be extended by all entity classes that include
  * common fields such as `id`, `created_at`, and `updated_at` in their corresponding database tables.
+ * <p>
+ * Ids are {@link Tsid time-sorted ids} drawn the first time a new entity's id is read, at the latest right
+ * before it is persisted, so an entity has its final id, equality and hash code before it is persisted, and
+ * inserts can be batched. Loaded entities get their id from the row and never draw one. Because the id of a new
+ * entity is not null once read, {@link #isNew()} tells Spring Data whether to persist or merge instead of a null
+ * check.
+ * </p>
  *
  * @author Maxim Khnykin
  * @version 1.0
  */
 @MappedSuperclass
-public class DefaultEntity {
+public class DefaultEntity implements Persistable<Long> {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	@Column(name = "id", nullable = false)
 	private Long id;
 
+	@Transient
+	private boolean isNew = true;
+
 	@Column(name = "created_at", updatable = false)
 	private LocalDateTime createdAt;
 
 	@Column(name = "updated_at")
 	private LocalDateTime updatedAt;
 
+	@Override
 	public Long getId() {
+		if (id == null) {
+			id = Tsid.next();
+		}
 		return id;
 	}
 
+	@Override
+	public boolean isNew() {
+		return isNew;
+	}
+
+	@PostLoad
+	@PostPersist
+	protected void markNotNew() {
+		this.isNew = false;
+	}
 
 	@PrePersist
 	protected void prePersist() {
+		getId();
 		this.createdAt = LocalDateTime.now();
 		this.updatedAt = LocalDateTime.now();
 	}
@@ -60,13 +85,12 @@ public class DefaultEntity {
 		Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
 		if (thisEffectiveClass != oEffectiveClass) return false;
 		DefaultEntity that = (DefaultEntity) o;
-		return getId() != null && Objects.equals(getId(), that.getId());
+		return Objects.equals(getId(), that.getId());
 	}
 
 	@Override
 	public final int hashCode() {
-		//@formatter:off
-		return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+		return Long.hashCode(getId());
 	}
 }
 
@@ -0,0 +1,86 @@
+package dev.ebyrdeu.backend.common.entity;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator of time-sorted ids (TSID) that fit the existing {@code bigint} id columns.
+ * <p>
+ * The upper 42 bits are milliseconds since {@code 2020-01-01T00:00:00Z}, the next 10 bits are the node id and the
+ * lower 12 bits start at a random value in each millisecond and count up within it. When a millisecond runs out of
+ * values the count moves on to the next one. Ids of one JVM are strictly increasing, and ids of nodes with
+ * different node ids never collide. Because new ids always land at the right edge of the primary key index,
+ * inserts fill pages in order, like a sequence does, and they are far above any id the sequences have handed out,
+ * so old and new rows cannot clash.
+ * </p>
+ * <p>
+ * The node id is set with {@code app.tsid.node}, see {@link TsidProperties}. Until then, or when it is not set,
+ * a random node id is used, which only keeps nodes apart with high probability.
+ * </p>
+ * <p>
+ * The values stay positive until 2089.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see DefaultEntity
+ */
+public final class Tsid {
+	public static final int MAX_NODE = (1 << 10) - 1;
+
+	private static final long EPOCH = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+	private static final int NODE_BITS = 10;
+	private static final int SEQUENCE_BITS = 12;
+	private static final int TIME_SHIFT = NODE_BITS + SEQUENCE_BITS;
+	private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+	private static final AtomicLong LAST = new AtomicLong();
+	private static volatile int node = ThreadLocalRandom.current().nextInt(MAX_NODE + 1);
+
+	private Tsid() {
+		throw new UnsupportedOperationException("Utility class - instantiation not allowed");
+	}
+
+	/**
+	 * @return a new id, greater than every id returned before by this JVM
+	 */
+	public static long next() {
+		long millis = System.currentTimeMillis() - EPOCH;
+		long nodeBits = (long) node << SEQUENCE_BITS;
+
+		return LAST.updateAndGet(last -> {
+			long lastMillis = last >>> TIME_SHIFT;
+			if (millis > lastMillis) {
+				// the upper half of the sequence is left for ids drawn later in the same millisecond
+				return millis << TIME_SHIFT | nodeBits | ThreadLocalRandom.current().nextLong(SEQUENCE_MASK / 2);
+			}
+
+			// within a millisecond, or when the clock steps back, keep counting from the last id
+			long sequence = (last & SEQUENCE_MASK) + 1;
+			return sequence > SEQUENCE_MASK
+					? (lastMillis + 1) << TIME_SHIFT | nodeBits
+					: lastMillis << TIME_SHIFT | nodeBits | sequence;
+		});
+	}
+
+	/**
+	 * @return the node id encoded in the ids of this JVM
+	 */
+	public static int node() {
+		return node;
+	}
+
+	/**
+	 * Sets the node id encoded in the ids drawn from now on.
+	 *
+	 * @param node the node id, unique among the running instances, between 0 and {@value #MAX_NODE}
+	 * @throws IllegalArgumentException if the node id is out of range
+	 */
+	public static void useNode(int node) {
+		if (node < 0 || node > MAX_NODE) {
+			throw new IllegalArgumentException("TSID node must be between 0 and " + MAX_NODE + ", got " + node);
+		}
+		Tsid.node = node;
+	}
+}
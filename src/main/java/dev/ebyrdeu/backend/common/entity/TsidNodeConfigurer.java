@@ -0,0 +1,25 @@
+package dev.ebyrdeu.backend.common.entity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies the configured {@link TsidProperties#node()} to {@link Tsid} on startup, before requests create entities.
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@Component
+class TsidNodeConfigurer {
+	private static final Logger log = LoggerFactory.getLogger(TsidNodeConfigurer.class);
+
+	public TsidNodeConfigurer(TsidProperties properties) {
+		if (properties.node() != null) {
+			Tsid.useNode(properties.node());
+			log.info("[TsidNodeConfigurer]:: Entity ids use node {}.", properties.node());
+		} else {
+			log.warn("[TsidNodeConfigurer]:: app.tsid.node is not set, entity ids use random node {}.", Tsid.node());
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package dev.ebyrdeu.backend.common.entity;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.lang.Nullable;
+
+/**
+ * Layout settings of {@link Tsid}.
+ *
+ * @param node the node id of this instance, between 0 and {@value Tsid#MAX_NODE}; every instance writing to the
+ *             same database needs its own. When unset, a random node id is used.
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@ConfigurationProperties("app.tsid")
+record TsidProperties(
+		@Nullable
+		Integer node
+) {
+}
@@ -2,16 +2,26 @@ package dev.ebyrdeu.backend.common.util;
 
 
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.nio.ByteBuffer;
 
 /**
  * Adapter interface for converting Java objects to JSON strings.
  * <p>
- * Defines two methods for serialization using Jackson's ObjectMapper:
+ * Defines methods for serialization using Jackson's ObjectMapper:
  * <ul>
  *   <li>{@code valueOf(obj)}: standard JSON serialization.</li>
  *   <li>{@code valueOf(obj, prettyFormat)}: optionally produces pretty-printed JSON.</li>
+ *   <li>{@code lazyValueOf(obj)}: a log argument that only serializes when the log line is actually written.</li>
+ *   <li>{@code lazyRawValueOf(json)}: the same for payloads that already are UTF-8 encoded JSON.</li>
  * </ul>
  * </p>
+ * <p>
+ * Use the lazy variants for log arguments: {@code log.trace("Response data: {}", jsonConverter.lazyValueOf(data))}
+ * costs one small allocation when TRACE is disabled, while {@code valueOf(data)} would serialize the whole payload
+ * for nothing.
+ * </p>
  *
  * @author Maxim Khnykin
  * @version 1.0
@@ -38,4 +48,37 @@ public interface JsonConverterAdapter {
 	 * @throws RuntimeException if serialization fails
 	 */
 	<T> String valueOf(@NonNull T obj, boolean prettyFormat);
+
+	/**
+	 * Wrap an object for logging; its {@code toString()} serializes it to JSON on demand.
+	 * <p>
+	 * Uses the configured default truncation length and sample rate
+	 * ({@code app.logging.payload.max-length}, {@code app.logging.payload.sample-rate}).
+	 * </p>
+	 *
+	 * @param <T> the type of the object
+	 * @param obj the object to serialize, may be null
+	 * @return a log argument rendering the (possibly truncated) JSON
+	 */
+	<T> Object lazyValueOf(@Nullable T obj);
+
+	/**
+	 * Wrap an object for logging; its {@code toString()} serializes it to JSON on demand.
+	 *
+	 * @param <T>        the type of the object
+	 * @param obj        the object to serialize, may be null
+	 * @param maxLength  the maximum number of characters rendered, longer JSON is cut and marked as truncated
+	 * @param sampleRate the share of renderings that actually serialize, between 0 and 1; the others render a marker
+	 * @return a log argument rendering the (possibly truncated) JSON
+	 */
+	<T> Object lazyValueOf(@Nullable T obj, int maxLength, double sampleRate);
+
+	/**
+	 * Wrap a UTF-8 encoded JSON payload for logging; its {@code toString()} decodes it on demand, with the
+	 * configured default truncation length and sample rate. The buffer's position is not moved.
+	 *
+	 * @param json the encoded JSON, may be null
+	 * @return a log argument rendering the (possibly truncated) JSON
+	 */
+	Object lazyRawValueOf(@Nullable ByteBuffer json);
 }
@@ -0,0 +1,75 @@
+package dev.ebyrdeu.backend.common.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+/**
+ * Opaque cursor tokens for keyset pagination.
+ * <p>
+ * A cursor holds the sort key values of the last item of a page, length-prefixed and base64url encoded,
+ * so clients cannot depend on its content and the key may change without breaking the API shape.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see dev.ebyrdeu.backend.common.dto.KeysetPage
+ */
+public final class KeysetCursor {
+	private static final byte FORMAT = 1;
+
+	private KeysetCursor() {
+		throw new UnsupportedOperationException("Utility class - instantiation not allowed");
+	}
+
+	/**
+	 * @param keys the sort key values of the last item of a page
+	 * @return the cursor token
+	 */
+	public static String encode(String... keys) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(FORMAT);
+			out.writeByte(keys.length);
+			for (String key : keys) {
+				out.writeUTF(key);
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+	}
+
+	/**
+	 * @param cursor the cursor token sent by the client
+	 * @param arity  the number of sort key values expected in the cursor
+	 * @return the sort key values
+	 * @throws IllegalArgumentException if the cursor is malformed or holds a different number of values
+	 */
+	public static String[] decode(String cursor, int arity) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+			if (in.readByte() != FORMAT || in.readByte() != arity) {
+				throw new IllegalArgumentException("Malformed cursor");
+			}
+
+			String[] keys = new String[arity];
+			for (int i = 0; i < arity; i++) {
+				keys[i] = in.readUTF();
+			}
+
+			if (in.available() > 0) {
+				throw new IllegalArgumentException("Malformed cursor");
+			}
+
+			return keys;
+		} catch (IOException ex) {
+			throw new IllegalArgumentException("Malformed cursor", ex);
+		}
+	}
+}
@@ -6,11 +6,25 @@ import dev.ebyrdeu.backend.common.util.JsonConverterAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * Implementation of the {@link JsonConverterAdapter} interface, providing functionality
  * to convert Java objects to JSON strings using Jackson's {@link ObjectMapper}.
+ * <p>
+ * Lazy log arguments serialize into a bounded writer, so a huge payload is cut after roughly
+ * {@code maxLength} characters (plus Jackson's internal buffer) instead of being serialized in full.
+ * A rendering is remembered, so several appenders do not serialize the same argument twice.
+ * </p>
  *
  * @author Maxim Khnykin
  * @version 1.0
@@ -21,10 +35,15 @@ import org.springframework.stereotype.Component;
 @Component
 class JsonConverter implements JsonConverterAdapter {
 	private static final Logger log = LoggerFactory.getLogger(JsonConverter.class);
+	private static final String TRUNCATED = "...(truncated)";
+	private static final String SAMPLED_OUT = "<sampled out>";
+
 	private final ObjectMapper objectMapper;
+	private final PayloadLoggingProperties properties;
 
-	public JsonConverter(ObjectMapper objectMapper) {
+	public JsonConverter(ObjectMapper objectMapper, PayloadLoggingProperties properties) {
 		this.objectMapper = objectMapper;
+		this.properties = properties;
 	}
 
 	@Override
@@ -51,4 +70,118 @@ class JsonConverter implements JsonConverterAdapter {
 			throw new RuntimeException("Failed to convert object to JSON: " + e.getMessage(), e);
 		}
 	}
+
+	@Override
+	public <T> Object lazyValueOf(@Nullable T obj) {
+		return lazyValueOf(obj, this.properties.maxLength(), this.properties.sampleRate());
+	}
+
+	@Override
+	public <T> Object lazyValueOf(@Nullable T obj, int maxLength, double sampleRate) {
+		return new LazyPayload(sampleRate) {
+			@Override
+			String render() {
+				BoundedWriter writer = new BoundedWriter(maxLength);
+				try {
+					objectMapper.writeValue(writer, obj);
+				} catch (IOException ex) {
+					if (!writer.isFull()) {
+						String type = obj == null ? "null" : obj.getClass().getName();
+						log.error("[JsonConverter/lazyValueOf] - Failed to convert object of type {} to JSON", type);
+						return "<unserializable " + type + ">";
+					}
+				}
+				return writer.toString();
+			}
+		};
+	}
+
+	@Override
+	public Object lazyRawValueOf(@Nullable ByteBuffer json) {
+		int maxLength = this.properties.maxLength();
+		return new LazyPayload(this.properties.sampleRate()) {
+			@Override
+			String render() {
+				if (json == null) {
+					return "null";
+				}
+				// decodes a view of at most maxLength characters; the buffer itself is shared with the response
+				ByteBuffer view = json.duplicate();
+				CharBuffer text = CharBuffer.allocate(Math.min(maxLength, view.remaining()));
+				StandardCharsets.UTF_8.newDecoder()
+				                      .onMalformedInput(CodingErrorAction.REPLACE)
+				                      .onUnmappableCharacter(CodingErrorAction.REPLACE)
+				                      .decode(view, text, true);
+				text.flip();
+				return view.hasRemaining() ? text + TRUNCATED : text.toString();
+			}
+		};
+	}
+
+	/**
+	 * Log argument rendering its payload on first {@link #toString()}, or a marker if sampled out.
+	 */
+	private abstract static class LazyPayload {
+		private final double sampleRate;
+		private String rendered;
+
+		LazyPayload(double sampleRate) {
+			this.sampleRate = sampleRate;
+		}
+
+		abstract String render();
+
+		@Override
+		public String toString() {
+			if (this.rendered == null) {
+				boolean sampled = this.sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < this.sampleRate;
+				this.rendered = sampled ? render() : SAMPLED_OUT;
+			}
+			return this.rendered;
+		}
+	}
+
+	/**
+	 * Collects up to {@code maxLength} characters, then fails the write to stop serialization early.
+	 */
+	private static final class BoundedWriter extends Writer {
+		private final StringBuilder buffer = new StringBuilder();
+		private final int maxLength;
+		private boolean full;
+
+		BoundedWriter(int maxLength) {
+			this.maxLength = maxLength;
+		}
+
+		boolean isFull() {
+			return this.full;
+		}
+
+		@Override
+		public void write(char[] chars, int offset, int length) throws IOException {
+			if (this.full) {
+				throw new IOException("Payload exceeds " + this.maxLength + " characters");
+			}
+			int room = this.maxLength - this.buffer.length();
+			if (length > room) {
+				this.buffer.append(chars, offset, Math.max(room, 0)).append(TRUNCATED);
+				this.full = true;
+				throw new IOException("Payload exceeds " + this.maxLength + " characters");
+			}
+			this.buffer.append(chars, offset, length);
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public String toString() {
+			return this.buffer.toString();
+		}
+	}
 }
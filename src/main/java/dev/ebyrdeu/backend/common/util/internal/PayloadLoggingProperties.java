@@ -0,0 +1,22 @@
+package dev.ebyrdeu.backend.common.util.internal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Defaults for the lazy log arguments of {@link JsonConverter}.
+ *
+ * @param maxLength  the maximum number of characters of a logged payload, longer ones are cut
+ * @param sampleRate the share of payload log lines that render the payload, between 0 and 1
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@ConfigurationProperties("app.logging.payload")
+record PayloadLoggingProperties(
+		@DefaultValue("4096")
+		int maxLength,
+
+		@DefaultValue("1.0")
+		double sampleRate
+) {
+}
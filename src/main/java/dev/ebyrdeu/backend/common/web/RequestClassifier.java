@@ -0,0 +1,144 @@
+package dev.ebyrdeu.backend.common.web;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classifies requests into a {@link RequestKind} with a precompiled trie over path segments.
+ * <p>
+ * The trie is built once from the known static, SPA and API routes, so classifying a request is a walk over
+ * its path segments with one map lookup each. Paths the trie does not know are SPA routes when no segment has
+ * a file extension, and {@link RequestKind#OTHER} otherwise.
+ * </p>
+ * <p>
+ * The result of the original request is stored as a request attribute, so the security filter chain,
+ * {@code RoleRefresherFilter} and the SPA forwarding all share one classification. Forwards, includes and error
+ * dispatches see a different path and are classified again without touching the stored result.
+ * </p>
+ * <p>
+ * Requests are classified by the path MVC routes them by: percent-decoded, without {@code ;} parameters and with
+ * {@code .} and {@code ..} segments resolved. Classifying the raw URI would let {@code /%61pi/v1/users} pass as a
+ * SPA route while it is served by the API.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see RequestKind
+ */
+public final class RequestClassifier {
+	/**
+	 * Request attribute holding the {@link RequestKind} of the original request.
+	 */
+	public static final String KIND_ATTRIBUTE = RequestClassifier.class.getName() + ".KIND";
+
+	private static final Node ROOT = new Node()
+			.exact("/", RequestKind.SPA_SHELL)
+			.exact("/auth", RequestKind.SPA_SHELL)
+			.exact("/index.html", RequestKind.STATIC_ASSET)
+			.exact("/vite.svg", RequestKind.STATIC_ASSET)
+			.prefix("/assets", RequestKind.STATIC_ASSET)
+			.prefix("/static", RequestKind.STATIC_ASSET)
+			.prefix("/media", RequestKind.STATIC_ASSET)
+			.prefix("/api", RequestKind.API)
+			.prefix("/login", RequestKind.OTHER)
+			.prefix("/logout", RequestKind.OTHER)
+			.prefix("/oauth2", RequestKind.OTHER)
+			.prefix("/error", RequestKind.OTHER);
+
+	private RequestClassifier() {
+		throw new UnsupportedOperationException("Utility class - instantiation not allowed");
+	}
+
+	/**
+	 * Returns the kind of the given request, classifying the original request at most once.
+	 *
+	 * @param request the current request
+	 * @return the {@link RequestKind} of the request
+	 */
+	public static RequestKind classify(HttpServletRequest request) {
+		if (request.getDispatcherType() != DispatcherType.REQUEST) {
+			return classify(pathOf(request));
+		}
+
+		if (request.getAttribute(KIND_ATTRIBUTE) instanceof RequestKind kind) {
+			return kind;
+		}
+
+		RequestKind kind = classify(pathOf(request));
+		request.setAttribute(KIND_ATTRIBUTE, kind);
+
+		return kind;
+	}
+
+	/**
+	 * @param path the request path without the context path, e.g. {@code /api/v1/users}
+	 * @return the {@link RequestKind} of the path
+	 */
+	public static RequestKind classify(String path) {
+		Node node = ROOT;
+		boolean hasExtension = false;
+		int length = path.length();
+		int start = 0;
+
+		while (start < length) {
+			int end = path.indexOf('/', start);
+			if (end < 0) {
+				end = length;
+			}
+
+			if (end > start) {
+				Node child = node == null ? null : node.children.get(path.substring(start, end));
+
+				if (child != null && child.subtree != null) {
+					return child.subtree;
+				}
+
+				hasExtension |= path.lastIndexOf('.', end - 1) >= start;
+				node = child;
+			}
+
+			start = end + 1;
+		}
+
+		if (node != null && node.exact != null) {
+			return node.exact;
+		}
+
+		return hasExtension ? RequestKind.OTHER : RequestKind.SPA_ROUTE;
+	}
+
+	private static String pathOf(HttpServletRequest request) {
+		return StringUtils.cleanPath(UrlPathHelper.defaultInstance.getLookupPathForRequest(request));
+	}
+
+	private static final class Node {
+		private final Map<String, Node> children = new HashMap<>();
+		private RequestKind exact;
+		private RequestKind subtree;
+
+		private Node exact(String path, RequestKind kind) {
+			walk(path).exact = kind;
+			return this;
+		}
+
+		private Node prefix(String path, RequestKind kind) {
+			walk(path).subtree = kind;
+			return this;
+		}
+
+		private Node walk(String path) {
+			Node node = this;
+			for (String segment : path.split("/")) {
+				if (!segment.isEmpty()) {
+					node = node.children.computeIfAbsent(segment, ignored -> new Node());
+				}
+			}
+			return node;
+		}
+	}
+}
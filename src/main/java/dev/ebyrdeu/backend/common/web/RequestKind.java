@@ -0,0 +1,37 @@
+package dev.ebyrdeu.backend.common.web;
+
+/**
+ * Kind of incoming HTTP request, as decided by {@link RequestClassifier}.
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see RequestClassifier
+ */
+public enum RequestKind {
+	/**
+	 * Files of the frontend build: {@code /assets/**}, {@code /static/**}, {@code /index.html}, {@code /vite.svg},
+	 * and uploaded image content under {@code /media/**}.
+	 */
+	STATIC_ASSET,
+
+	/**
+	 * Public entry routes of the SPA that render {@code index.html}: {@code /} and {@code /auth}.
+	 */
+	SPA_SHELL,
+
+	/**
+	 * Any other path without a file extension, handled by the client-side router.
+	 */
+	SPA_ROUTE,
+
+	/**
+	 * REST endpoints under {@code /api/**}.
+	 */
+	API,
+
+	/**
+	 * Framework endpoints ({@code /login/**}, {@code /oauth2/**}, {@code /logout/**}, {@code /error/**})
+	 * and unknown paths with a file extension.
+	 */
+	OTHER
+}
@@ -0,0 +1,2 @@
+@org.springframework.modulith.NamedInterface("web")
+package dev.ebyrdeu.backend.common.web;
\ No newline at end of file
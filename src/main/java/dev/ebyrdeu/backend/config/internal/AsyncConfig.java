@@ -0,0 +1,19 @@
+package dev.ebyrdeu.backend.config.internal;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Enables {@link org.springframework.scheduling.annotation.Async} execution, which the
+ * {@code @ApplicationModuleListener}s of the modules rely on to run after the publishing transaction has
+ * committed, off the request thread. With virtual threads enabled, the auto-configured executor starts one
+ * virtual thread per task.
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see EnableAsync
+ */
+@Configuration
+@EnableAsync
+class AsyncConfig {
+}
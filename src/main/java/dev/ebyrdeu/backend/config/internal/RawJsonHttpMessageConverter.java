@@ -0,0 +1,149 @@
+package dev.ebyrdeu.backend.config.internal;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import dev.ebyrdeu.backend.common.dto.BaseResponseJsonDto;
+import dev.ebyrdeu.backend.common.dto.BaseResponseRawJsonDto;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes raw-JSON envelopes ({@link BaseResponseRawJsonDto} and {@link BaseResponseJsonDto}) without Jackson.
+ * <p>
+ * The envelope around the payload only depends on status, code and message, which are constants per endpoint, so
+ * its UTF-8 bytes up to {@code "data":} are built once and reused. A response is then three writes to the servlet
+ * output stream: the cached prefix, the payload bytes as they are, and the closing brace. Heap buffers are written
+ * straight from their backing array without a copy. Direct buffers have no array and go through a channel, which
+ * copies them to the stream in chunks through a small temporary array. For byte payloads the exact length is known
+ * up front, so the response carries a {@code Content-Length} instead of being chunked.
+ * </p>
+ * <p>
+ * The output is byte-compatible with Jackson's compact output for the same records. The converter only writes;
+ * reading is left to Jackson.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see WebConfig#extendMessageConverters(java.util.List)
+ */
+class RawJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+	/**
+	 * Envelopes are keyed by message; anything past this many distinct ones is built per response instead of cached,
+	 * so a message that embeds request data cannot grow the map without bound.
+	 */
+	static final int MAX_CACHED_PREFIXES = 256;
+
+	private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] SUFFIX = "}".getBytes(StandardCharsets.US_ASCII);
+
+	private final Map<PrefixKey, byte[]> prefixes = new ConcurrentHashMap<>();
+
+	RawJsonHttpMessageConverter() {
+		// no default charset: JSON is UTF-8 by definition, and Jackson does not advertise one either
+		super(MediaType.APPLICATION_JSON);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return BaseResponseRawJsonDto.class == clazz || BaseResponseJsonDto.class == clazz;
+	}
+
+	@Override
+	public boolean canRead(Class<?> clazz, @Nullable MediaType mediaType) {
+		return false;
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+		throw new HttpMessageNotReadableException("Raw JSON envelopes are write-only", inputMessage);
+	}
+
+	/**
+	 * Exact for byte payloads; a {@link String} payload would have to be encoded twice to know its length, so
+	 * {@link BaseResponseJsonDto} responses stay chunked.
+	 */
+	@Override
+	@Nullable
+	protected Long getContentLength(Object body, @Nullable MediaType contentType) {
+		if (!(body instanceof BaseResponseRawJsonDto raw)) {
+			return null;
+		}
+		return (long) prefix(body).length + (raw.data() == null ? NULL.length : raw.data().remaining()) + SUFFIX.length;
+	}
+
+	@Override
+	protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+		OutputStream out = outputMessage.getBody();
+
+		out.write(prefix(body));
+		switch (body) {
+			case BaseResponseRawJsonDto raw -> write(raw.data(), out);
+			case BaseResponseJsonDto json -> out.write(json.data() == null ? NULL : json.data().getBytes(StandardCharsets.UTF_8));
+			default -> throw new IllegalArgumentException("Unsupported body: " + body.getClass());
+		}
+		out.write(SUFFIX);
+		out.flush();
+	}
+
+	private byte[] prefix(Object body) {
+		PrefixKey key = switch (body) {
+			case BaseResponseRawJsonDto raw -> new PrefixKey(raw.status(), raw.code(), raw.message());
+			case BaseResponseJsonDto json -> new PrefixKey(json.status(), json.code(), json.message());
+			default -> throw new IllegalArgumentException("Unsupported body: " + body.getClass());
+		};
+
+		byte[] prefix = this.prefixes.get(key);
+		if (prefix == null) {
+			prefix = key.encode();
+			if (this.prefixes.size() < MAX_CACHED_PREFIXES) {
+				this.prefixes.putIfAbsent(key, prefix);
+			}
+		}
+		return prefix;
+	}
+
+	private static void write(@Nullable ByteBuffer data, OutputStream out) throws IOException {
+		if (data == null) {
+			out.write(NULL);
+		} else if (data.hasArray()) {
+			out.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+		} else {
+			Channels.newChannel(out).write(data.duplicate());
+		}
+	}
+
+	private record PrefixKey(@Nullable HttpStatus status, int code, @Nullable String message) {
+
+		byte[] encode() {
+			StringBuilder json = new StringBuilder(64)
+					.append("{\"status\":");
+			appendString(json, this.status == null ? null : this.status.name());
+			json.append(",\"code\":").append(this.code).append(",\"message\":");
+			appendString(json, this.message);
+			json.append(",\"data\":");
+			return json.toString().getBytes(StandardCharsets.UTF_8);
+		}
+
+		private static void appendString(StringBuilder json, @Nullable String value) {
+			if (value == null) {
+				json.append("null");
+				return;
+			}
+			json.append('"');
+			JsonStringEncoder.getInstance().quoteAsString(value, json);
+			json.append('"');
+		}
+	}
+}
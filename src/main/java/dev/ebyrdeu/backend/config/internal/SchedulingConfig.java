@@ -0,0 +1,17 @@
+package dev.ebyrdeu.backend.config.internal;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@link org.springframework.scheduling.annotation.Scheduled} housekeeping tasks of the modules,
+ * such as purging expired sessions.
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see EnableScheduling
+ */
+@Configuration
+@EnableScheduling
+class SchedulingConfig {
+}
@@ -0,0 +1,38 @@
+package dev.ebyrdeu.backend.config.internal;
+
+import dev.ebyrdeu.backend.common.web.RequestClassifier;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.handler.AbstractHandlerMapping;
+import org.springframework.web.servlet.mvc.ParameterizableViewController;
+
+/**
+ * Handler mapping that forwards SPA shell and SPA route requests to {@code index.html}.
+ * <p>
+ * Uses the {@link dev.ebyrdeu.backend.common.web.RequestKind} already computed by {@link RequestClassifier}
+ * for the security filter chain, so no path pattern is matched here. It runs after the annotated controllers
+ * and before the static resource handler, like the view controllers it replaces.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see WebConfig
+ */
+class SpaForwardingHandlerMapping extends AbstractHandlerMapping {
+	private final ParameterizableViewController forwardToIndex = new ParameterizableViewController();
+
+	SpaForwardingHandlerMapping() {
+		this.forwardToIndex.setViewName("forward:/index.html");
+		setOrder(1);
+	}
+
+	@Override
+	@Nullable
+	protected Object getHandlerInternal(@NonNull HttpServletRequest request) {
+		return switch (RequestClassifier.classify(request)) {
+			case SPA_SHELL, SPA_ROUTE -> this.forwardToIndex;
+			default -> null;
+		};
+	}
+}
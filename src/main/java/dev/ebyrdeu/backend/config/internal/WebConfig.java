@@ -1,46 +1,45 @@
 package dev.ebyrdeu.backend.config.internal;
 
+import dev.ebyrdeu.backend.common.web.RequestClassifier;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 
 /**
  * Serves the React Single Page Application correctly by forwarding
  * all non-file-extension routes to {@code index.html} for client-side routing.
  * <p>
- * Maps these path patterns to the SPA entrypoint:
- * <ul>
- *   <li>/{s1}</li>
- *   <li>/{s1}/{s2}</li>
- *   <li>/{s1}/{s2}/{s3}</li>
- * </ul>
+ * Routes are recognised by {@link RequestClassifier} instead of regex view controllers, so deep-links of any depth
+ * are forwarded and {@code /api/**}, {@code /login/**}, {@code /oauth2/**} and {@code /error} never are.
  * Ensures that React Router can handle deep-links without 404 errors from Spring MVC.
  * </p>
+ * <p>
+ * Also registers {@link RawJsonHttpMessageConverter} ahead of Jackson for responses carrying pre-built JSON.
+ * </p>
  *
  * @author Maxim Khnykin
  * @version 1.0
  * @see WebMvcConfigurer
+ * @see SpaForwardingHandlerMapping
  */
 @Configuration
 class WebConfig implements WebMvcConfigurer {
 
-	@Override
-	public void addViewControllers(ViewControllerRegistry registry) {
-		// Forward all sub-paths to index.html for each sector defined in registry
-		// NOTE: This can likely be done programmatically for deeper paths if needed.
-		// And no... fori loops - is not an option
-		registry
-				.addViewController("/{s1:[^\\.]*}")
-				.setViewName("forward:/index.html");
-
-		registry
-				.addViewController("/{s1:[^\\.]*}/{s2:[^\\.]*}")
-				.setViewName("forward:/index.html");
+	@Bean
+	SpaForwardingHandlerMapping spaForwardingHandlerMapping() {
+		return new SpaForwardingHandlerMapping();
+	}
 
-		registry
-				.addViewController("/{s1:[^\\.]*}/{s2:[^\\.]*}/{s3:[^\\\\.]*}")
-				.setViewName("forward:/index.html");
+	/**
+	 * Raw-JSON envelopes go first so Jackson never sees them.
+	 */
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.addFirst(new RawJsonHttpMessageConverter());
 	}
 
 }
@@ -1,5 +1,8 @@
 @org.springframework.modulith.ApplicationModule(
 		displayName = "Config",
-		allowedDependencies = {}
+		allowedDependencies = {
+				"common :: dto",
+				"common :: web",
+		}
 )
-package dev.ebyrdeu.backend.config;
\ No newline at end of file
+package dev.ebyrdeu.backend.config;
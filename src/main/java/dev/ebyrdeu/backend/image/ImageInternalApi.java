@@ -0,0 +1,95 @@
+package dev.ebyrdeu.backend.image;
+
+import dev.ebyrdeu.backend.common.dto.BaseResponseDto;
+import dev.ebyrdeu.backend.common.dto.KeysetPage;
+import dev.ebyrdeu.backend.image.internal.dto.ImageCatalogueFilter;
+import dev.ebyrdeu.backend.image.internal.dto.ImageMediaDto;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadDto;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadResponseDto;
+import dev.ebyrdeu.backend.image.internal.excpetion.ImageBadRequestException;
+import dev.ebyrdeu.backend.image.internal.excpetion.ImageInternalServerErrorException;
+import dev.ebyrdeu.backend.image.internal.excpetion.ImageNotFoundException;
+import dev.ebyrdeu.backend.image.internal.projection.ImageCatalogueProjection;
+import dev.ebyrdeu.backend.image.internal.projection.ImageVariantProjection;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * Internal API for image-related operations
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public interface ImageInternalApi {
+	/**
+	 * Largest page size served by {@link #findCatalogue(String, int, ImageCatalogueFilter)}, bigger requests
+	 * are capped.
+	 */
+	int MAX_PAGE_SIZE = 100;
+
+	/**
+	 * Retrieves one page of the image catalogue, newest first.
+	 * <p>
+	 * Keyset pagination: pass {@code null} for the first page, then the {@link KeysetPage#nextCursor()} of a
+	 * page to get the next one. The cursor only holds the position, so the same filter has to be sent with
+	 * every page.
+	 * </p>
+	 *
+	 * @param cursor the cursor of the page to fetch, or {@code null} for the first page
+	 * @param size   the requested page size, capped at {@value #MAX_PAGE_SIZE}
+	 * @param filter the optional category, price range and owner filters
+	 * @return a {@link BaseResponseDto} wrapping a {@link KeysetPage} of catalogue projections
+	 * @throws ImageBadRequestException          if the cursor is malformed, the size is not positive or the
+	 *                                           price range is empty
+	 * @throws ImageInternalServerErrorException if retrieval fails unexpectedly
+	 */
+	BaseResponseDto<KeysetPage<ImageCatalogueProjection>> findCatalogue(
+			@Nullable String cursor,
+			int size,
+			ImageCatalogueFilter filter
+	);
+
+	/**
+	 * Stores an uploaded image and records it for the user with the given email.
+	 * <p>
+	 * The content is streamed to the content-addressed store while it is hashed, so it is never held on the
+	 * heap as a whole; identical content uploaded again is stored once. No transaction is open while the
+	 * content streams, only around the insert. Publishes {@link ImagesChanged} for the owner and
+	 * {@link ImageStored}, from which the variants are generated after this method has returned.
+	 * </p>
+	 *
+	 * @param ownerEmail the email of the authenticated user
+	 * @param upload     the title, description and price of the image
+	 * @param content    the bytes of the image, opened once
+	 * @return a {@link BaseResponseDto} wrapping the new image and its media URL
+	 * @throws ImageBadRequestException          if the title is invalid or the content is empty, too large or
+	 *                                           not a PNG, JPEG, GIF or WebP image
+	 * @throws ImageNotFoundException            if no user has the given email
+	 * @throws ImageInternalServerErrorException if storing fails unexpectedly
+	 */
+	BaseResponseDto<ImageUploadResponseDto> upload(String ownerEmail, ImageUploadDto upload, InputStreamSource content);
+
+	/**
+	 * Resolves stored content by its hash, to be served.
+	 *
+	 * @param hash the SHA-256 of the content, as 64 lowercase hex digits
+	 * @return the stored file with its media type and size
+	 * @throws ImageNotFoundException            if no image has the given content
+	 * @throws ImageInternalServerErrorException if retrieval fails unexpectedly
+	 */
+	ImageMediaDto findMedia(String hash);
+
+	/**
+	 * Retrieves the display variants of an image, smallest first. Variants are generated asynchronously after
+	 * the upload, so the list stays empty for a moment; images that are too small or cannot be decoded never
+	 * get any.
+	 *
+	 * @param imageId the id of the image
+	 * @return a {@link BaseResponseDto} wrapping the variants
+	 * @throws ImageNotFoundException            if no image has the given id
+	 * @throws ImageInternalServerErrorException if retrieval fails unexpectedly
+	 */
+	BaseResponseDto<List<ImageVariantProjection>> findVariants(long imageId);
+}
@@ -0,0 +1,20 @@
+package dev.ebyrdeu.backend.image;
+
+/**
+ * Application event published when an uploaded image has been stored and recorded.
+ * <p>
+ * Goes through the event publication registry, so a listener that fails or is cut off by a shutdown gets the
+ * event again after a restart. Display variants of the image are generated from it, after the upload has
+ * returned.
+ * </p>
+ *
+ * @param imageId     the id of the new image
+ * @param contentHash the SHA-256 of the stored content
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public record ImageStored(
+		long imageId,
+		String contentHash
+) {
+}
@@ -0,0 +1,16 @@
+package dev.ebyrdeu.backend.image;
+
+/**
+ * Application event published whenever images of a user are added, changed or removed.
+ * <p>
+ * Listeners use it to drop anything they keep in memory that embeds the user's images, such as cached profiles.
+ * </p>
+ *
+ * @param userId the id of the user owning the images
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public record ImagesChanged(
+		long userId
+) {
+}
@@ -0,0 +1,34 @@
+package dev.ebyrdeu.backend.image.internal.dto;
+
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+
+/**
+ * Optional filters of the image catalogue; a {@code null} component does not filter.
+ *
+ * @param category the name of a category the image must belong to
+ * @param minPrice the lowest price, inclusive
+ * @param maxPrice the highest price, inclusive
+ * @param owner    the username of the user owning the image
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public record ImageCatalogueFilter(
+		@Nullable
+		String category,
+
+		@Nullable
+		BigDecimal minPrice,
+
+		@Nullable
+		BigDecimal maxPrice,
+
+		@Nullable
+		String owner
+) {
+	/**
+	 * No filter at all: the whole catalogue.
+	 */
+	public static final ImageCatalogueFilter NONE = new ImageCatalogueFilter(null, null, null, null);
+}
@@ -0,0 +1,24 @@
+package dev.ebyrdeu.backend.image.internal.dto;
+
+import java.nio.file.Path;
+
+/**
+ * A stored image file, ready to be served.
+ *
+ * @param hash        the SHA-256 of the content, as 64 lowercase hex digits
+ * @param file        the file holding the content, never changed once stored
+ * @param contentType the media type of the content
+ * @param size        the size of the content in bytes
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public record ImageMediaDto(
+		String hash,
+
+		Path file,
+
+		String contentType,
+
+		long size
+) {
+}
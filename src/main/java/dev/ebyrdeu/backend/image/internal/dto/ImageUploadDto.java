@@ -0,0 +1,25 @@
+package dev.ebyrdeu.backend.image.internal.dto;
+
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+
+/**
+ * Details sent along with the bytes of an uploaded image.
+ *
+ * @param title       the title, 2 to 50 characters
+ * @param description the description, if any
+ * @param price       the price, if any
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public record ImageUploadDto(
+		String title,
+
+		@Nullable
+		String description,
+
+		@Nullable
+		BigDecimal price
+) {
+}
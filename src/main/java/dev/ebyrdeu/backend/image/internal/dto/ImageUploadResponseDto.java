@@ -0,0 +1,25 @@
+package dev.ebyrdeu.backend.image.internal.dto;
+
+/**
+ * Shows an uploaded image and where its content is served.
+ *
+ * @param id          the id of the new image
+ * @param imageUrl    the URL the content is served from, named after its hash
+ * @param contentHash the SHA-256 of the content, as 64 lowercase hex digits
+ * @param contentType the media type detected from the content
+ * @param contentSize the size of the content in bytes
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public record ImageUploadResponseDto(
+		long id,
+
+		String imageUrl,
+
+		String contentHash,
+
+		String contentType,
+
+		long contentSize
+) {
+}
@@ -0,0 +1,12 @@
+package dev.ebyrdeu.backend.image.internal.excpetion;
+
+
+/**
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public class ImageBadRequestException extends RuntimeException {
+	public ImageBadRequestException(String message) {
+		super(message);
+	}
+}
@@ -34,4 +34,15 @@ class ImageManagementExceptionHandler {
 				null
 		);
 	}
+
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	@ExceptionHandler(ImageBadRequestException.class)
+	public BaseResponseDto<?> handleImageBadRequestException(ImageBadRequestException exception) {
+		return new BaseResponseDto<>(
+				HttpStatus.BAD_REQUEST,
+				HttpStatus.BAD_REQUEST.value(),
+				exception.getMessage(),
+				null
+		);
+	}
 }
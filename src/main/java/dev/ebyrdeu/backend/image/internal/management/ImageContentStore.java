@@ -0,0 +1,225 @@
+package dev.ebyrdeu.backend.image.internal.management;
+
+import dev.ebyrdeu.backend.image.internal.excpetion.ImageBadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed file store of uploaded images on the local filesystem.
+ * <p>
+ * An upload is copied chunk by chunk into a temporary file and hashed with SHA-256 on the way, so only one
+ * buffer of {@value #BUFFER_SIZE} bytes per upload is ever on the heap, whatever the size of the file. The
+ * finished file is then renamed to its hash under {@code <root>/<first two hex digits>/<hash>}; when that file
+ * already exists, the same bytes have been uploaded before and the copy is dropped. Files are never changed
+ * after the rename, which is what lets them be served with immutable cache headers.
+ * </p>
+ * <p>
+ * The root may be shared by several nodes, so on startup only temporary files older than
+ * {@link ImageStorageProperties#staleUploadAge()} are removed; younger ones may belong to uploads still running
+ * on another node.
+ * </p>
+ * <p>
+ * Only PNG, JPEG, GIF and WebP files are accepted, recognised by their leading bytes rather than by the
+ * declared content type. Files are not removed when their image rows are, since other rows may share them.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see ImageStorageProperties
+ */
+@Component
+class ImageContentStore {
+	private static final Logger log = LoggerFactory.getLogger(ImageContentStore.class);
+	static final int BUFFER_SIZE = 64 * 1024;
+	private static final int HEADER_SIZE = 12;
+	private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+	private static final HexFormat HEX = HexFormat.of();
+
+	private final Path root;
+	private final Path incoming;
+	private final long maxFileSize;
+
+	public ImageContentStore(ImageStorageProperties properties) throws IOException {
+		this.root = properties.root().toAbsolutePath().normalize();
+		this.incoming = Files.createDirectories(this.root.resolve(".incoming"));
+		this.maxFileSize = properties.maxFileSize().toBytes();
+
+		// leftovers of uploads interrupted by a shutdown
+		Instant staleBefore = Instant.now().minus(properties.staleUploadAge());
+		try (Stream<Path> leftovers = Files.list(this.incoming)) {
+			leftovers.filter(file -> isModifiedBefore(file, staleBefore)).forEach(ImageContentStore::deleteQuietly);
+		}
+	}
+
+	/**
+	 * Streams the given content into the store.
+	 *
+	 * @param content the bytes of the image, read to the end but not closed
+	 * @return the hash, detected content type and size of the stored file
+	 * @throws ImageBadRequestException if the content is empty, too large or not a supported image format
+	 * @throws UncheckedIOException     if reading the content or writing the file fails
+	 */
+	public StoredContent store(InputStream content) {
+		Path temp = null;
+		try {
+			temp = Files.createTempFile(this.incoming, "upload-", ".tmp");
+
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[BUFFER_SIZE];
+			byte[] header = new byte[HEADER_SIZE];
+			int headerLength = 0;
+			long size = 0;
+
+			try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				int read;
+				while ((read = content.read(buffer)) != -1) {
+					size += read;
+					if (size > this.maxFileSize) {
+						throw new ImageBadRequestException("Image exceeds the maximum size of " + this.maxFileSize + " bytes");
+					}
+
+					if (headerLength < HEADER_SIZE) {
+						int copied = Math.min(read, HEADER_SIZE - headerLength);
+						System.arraycopy(buffer, 0, header, headerLength, copied);
+						headerLength += copied;
+					}
+
+					digest.update(buffer, 0, read);
+					ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+					while (chunk.hasRemaining()) {
+						out.write(chunk);
+					}
+				}
+				out.force(false);
+			}
+
+			if (size == 0) {
+				throw new ImageBadRequestException("Image is empty");
+			}
+
+			String contentType = contentTypeOf(Arrays.copyOf(header, headerLength));
+			if (contentType == null) {
+				throw new ImageBadRequestException("Only PNG, JPEG, GIF and WebP images are supported");
+			}
+
+			String hash = HEX.formatHex(digest.digest());
+			Path target = pathOf(hash);
+			boolean deduplicated = Files.exists(target);
+			if (!deduplicated) {
+				Files.createDirectories(target.getParent());
+				try {
+					Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+					temp = null;
+				} catch (FileAlreadyExistsException ex) {
+					// an upload of the same bytes finished first
+					deduplicated = true;
+				}
+			}
+			log.debug("[ImageContentStore/store]:: Stored content. Hash: {} | Size: {} | Deduplicated: {}", hash, size, deduplicated);
+
+			return new StoredContent(hash, contentType, size, deduplicated);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		} finally {
+			if (temp != null) {
+				deleteQuietly(temp);
+			}
+		}
+	}
+
+	/**
+	 * @param hash the SHA-256 of the content, as 64 lowercase hex digits
+	 * @return the stored file, or empty if the hash is malformed or unknown
+	 */
+	public Optional<Path> find(String hash) {
+		if (!HASH.matcher(hash).matches()) {
+			return Optional.empty();
+		}
+
+		Path file = pathOf(hash);
+		return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+	}
+
+	private Path pathOf(String hash) {
+		return this.root.resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+	@Nullable
+	private static String contentTypeOf(byte[] header) {
+		if (startsWith(header, 0, 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n')) {
+			return "image/png";
+		}
+		if (startsWith(header, 0, 0xFF, 0xD8, 0xFF)) {
+			return "image/jpeg";
+		}
+		if (startsWith(header, 0, 'G', 'I', 'F', '8', '7', 'a') || startsWith(header, 0, 'G', 'I', 'F', '8', '9', 'a')) {
+			return "image/gif";
+		}
+		if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P')) {
+			return "image/webp";
+		}
+		return null;
+	}
+
+	private static boolean startsWith(byte[] header, int offset, int... signature) {
+		if (header.length < offset + signature.length) {
+			return false;
+		}
+		for (int i = 0; i < signature.length; i++) {
+			if ((header[offset + i] & 0xFF) != signature[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isModifiedBefore(Path file, Instant instant) {
+		try {
+			return Files.getLastModifiedTime(file).toInstant().isBefore(instant);
+		} catch (IOException ex) {
+			return false; // already moved or deleted by its upload
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException ex) {
+			log.warn("[ImageContentStore/deleteQuietly]:: Could not delete file. Path: {} | Message: {}", file, ex.getMessage());
+		}
+	}
+
+	/**
+	 * A file in the store.
+	 *
+	 * @param hash         the SHA-256 of the content, as 64 lowercase hex digits
+	 * @param contentType  the media type detected from the leading bytes
+	 * @param size         the size in bytes
+	 * @param deduplicated whether the same bytes were already stored
+	 */
+	record StoredContent(String hash, String contentType, long size, boolean deduplicated) {
+	}
+}
@@ -1,19 +1,231 @@
 package dev.ebyrdeu.backend.image.internal.management;
 
+import dev.ebyrdeu.backend.common.dto.BaseResponseDto;
+import dev.ebyrdeu.backend.common.dto.KeysetPage;
+import dev.ebyrdeu.backend.common.entity.Tsid;
+import dev.ebyrdeu.backend.common.util.KeysetCursor;
 import dev.ebyrdeu.backend.image.ImageExternalApi;
+import dev.ebyrdeu.backend.image.ImageInternalApi;
+import dev.ebyrdeu.backend.image.ImageStored;
+import dev.ebyrdeu.backend.image.ImagesChanged;
+import dev.ebyrdeu.backend.image.internal.dto.ImageCatalogueFilter;
+import dev.ebyrdeu.backend.image.internal.dto.ImageMediaDto;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadDto;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadResponseDto;
+import dev.ebyrdeu.backend.image.internal.excpetion.ImageBadRequestException;
+import dev.ebyrdeu.backend.image.internal.excpetion.ImageInternalServerErrorException;
+import dev.ebyrdeu.backend.image.internal.excpetion.ImageNotFoundException;
+import dev.ebyrdeu.backend.image.internal.management.ImageContentStore.StoredContent;
+import dev.ebyrdeu.backend.image.internal.projection.ImageCatalogueProjection;
+import dev.ebyrdeu.backend.image.internal.projection.ImageVariantProjection;
 import dev.ebyrdeu.backend.image.internal.repository.ImageRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
 
 @Service
-class ImageManagement implements ImageExternalApi {
+class ImageManagement implements ImageInternalApi, ImageExternalApi {
 
 	private static final Logger log = LoggerFactory.getLogger(ImageManagement.class);
 	private final ImageRepository imageRepository;
+	private final ImageContentStore contentStore;
+	private final ApplicationEventPublisher events;
+	private final TransactionTemplate transactionTemplate;
 
-	public ImageManagement(ImageRepository imageRepository) {
+	public ImageManagement(
+			ImageRepository imageRepository,
+			ImageContentStore contentStore,
+			ApplicationEventPublisher events,
+			TransactionTemplate transactionTemplate
+	) {
 		this.imageRepository = imageRepository;
+		this.contentStore = contentStore;
+		this.events = events;
+		this.transactionTemplate = transactionTemplate;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public BaseResponseDto<KeysetPage<ImageCatalogueProjection>> findCatalogue(
+			@Nullable String cursor,
+			int size,
+			ImageCatalogueFilter filter
+	) {
+		log.debug("[ImageManagement/findCatalogue]:: Execution started. Cursor: {} | Size: {} | Filter: {}", cursor, size, filter);
+		try {
+			if (size < 1) {
+				throw new ImageBadRequestException("Page size must be positive");
+			}
+			if (filter.minPrice() != null && filter.maxPrice() != null && filter.minPrice().compareTo(filter.maxPrice()) > 0) {
+				throw new ImageBadRequestException("Minimum price must not exceed maximum price");
+			}
+
+			int pageSize = Math.min(size, MAX_PAGE_SIZE);
+			LocalDateTime beforeCreatedAt = null;
+			long beforeId = 0;
+			if (cursor != null) {
+				String[] keys = decodeCatalogueCursor(cursor);
+				beforeCreatedAt = LocalDateTime.parse(keys[0]);
+				beforeId = Long.parseLong(keys[1]);
+			}
+
+			List<ImageCatalogueProjection> rows = this.imageRepository.findCataloguePage(
+					filter,
+					beforeCreatedAt,
+					beforeId,
+					pageSize + 1
+			);
+			KeysetPage<ImageCatalogueProjection> data = KeysetPage.of(
+					rows,
+					pageSize,
+					last -> KeysetCursor.encode(last.createdAt().toString(), Long.toString(last.id()))
+			);
+			log.debug("[ImageManagement/findCatalogue]:: Found {} image records", data.items().size());
+
+			return new BaseResponseDto<>(
+					HttpStatus.OK,
+					HttpStatus.OK.value(),
+					"Images retrieved successfully",
+					data
+			);
+		} catch (ImageBadRequestException ex) {
+			log.error("[ImageManagement/findCatalogue]:: Invalid page request. Message: {}", ex.getMessage());
+			throw ex;
+		} catch (DateTimeParseException | NumberFormatException ex) {
+			log.error("[ImageManagement/findCatalogue]:: Invalid cursor. Message: {}", ex.getMessage());
+			throw new ImageBadRequestException("Malformed cursor: " + cursor);
+		} catch (RuntimeException ex) {
+			log.error("[ImageManagement/findCatalogue]:: Database error. Message: {}", ex.getMessage());
+			throw new ImageInternalServerErrorException("Failed to retrieve images due to an unexpected error");
+		} finally {
+			log.debug("[ImageManagement/findCatalogue]:: Execution completed.");
+		}
+	}
+
+	@Override
+	public BaseResponseDto<ImageUploadResponseDto> upload(String ownerEmail, ImageUploadDto upload, InputStreamSource content) {
+		log.debug("[ImageManagement/upload]:: Execution started. Email: {} | Title: {}", ownerEmail, upload.title());
+		try {
+			String title = upload.title() == null ? "" : upload.title().trim();
+			if (title.length() < 2 || title.length() > 50) {
+				throw new ImageBadRequestException("Title must be between 2 and 50 characters");
+			}
+			ImageUploadDto details = new ImageUploadDto(title, upload.description(), upload.price());
+
+			// streamed before any connection is taken, so slow uploads do not hold the pool
+			StoredContent stored;
+			try (InputStream in = content.getInputStream()) {
+				stored = this.contentStore.store(in);
+			}
+
+			long id = Tsid.next();
+			Long ownerId = this.transactionTemplate.execute(status -> {
+				Long userId = this.imageRepository
+						.insertUploaded(id, ownerEmail, details, stored.hash(), stored.contentType(), stored.size())
+						.orElseThrow(
+								() -> new ImageNotFoundException("User with email " + ownerEmail + " not found")
+						);
+				this.events.publishEvent(new ImagesChanged(userId));
+				this.events.publishEvent(new ImageStored(id, stored.hash()));
+				return userId;
+			});
+			log.trace("[ImageManagement/upload]:: Image stored. Id: {} | Owner: {} | Hash: {} | Deduplicated: {}",
+					id, ownerId, stored.hash(), stored.deduplicated());
+
+			return new BaseResponseDto<>(
+					HttpStatus.CREATED,
+					HttpStatus.CREATED.value(),
+					"Image uploaded successfully",
+					new ImageUploadResponseDto(id, "/media/" + stored.hash(), stored.hash(), stored.contentType(), stored.size())
+			);
+		} catch (ImageBadRequestException | ImageNotFoundException ex) {
+			log.error("[ImageManagement/upload]:: Upload rejected. Email: {} | Message: {}", ownerEmail, ex.getMessage());
+			throw ex;
+		} catch (IOException | UncheckedIOException ex) {
+			log.error("[ImageManagement/upload]:: Storage error. Message: {}", ex.getMessage());
+			throw new ImageInternalServerErrorException("Failed to store image due to an unexpected error");
+		} catch (RuntimeException ex) {
+			log.error("[ImageManagement/upload]:: Database error. Message: {}", ex.getMessage());
+			throw new ImageInternalServerErrorException("Failed to store image due to an unexpected error");
+		} finally {
+			log.debug("[ImageManagement/upload]:: Execution completed.");
+		}
+	}
+
+	@Override
+	public ImageMediaDto findMedia(String hash) {
+		log.debug("[ImageManagement/findMedia]:: Execution started. Hash: {}", hash);
+		try {
+			Path file = this.contentStore
+					.find(hash)
+					.orElseThrow(() -> new ImageNotFoundException("Image content " + hash + " not found"));
+			String contentType = this.imageRepository
+					.findContentTypeByHash(hash)
+					.orElseThrow(() -> new ImageNotFoundException("Image content " + hash + " not found"));
+
+			return new ImageMediaDto(hash, file, contentType, Files.size(file));
+		} catch (ImageNotFoundException ex) {
+			log.error("[ImageManagement/findMedia]:: Lookup failed. Hash: {} | Message: {}", hash, ex.getMessage());
+			throw ex;
+		} catch (IOException ex) {
+			log.error("[ImageManagement/findMedia]:: Storage error. Message: {}", ex.getMessage());
+			throw new ImageInternalServerErrorException("Failed to retrieve image due to an unexpected error");
+		} catch (RuntimeException ex) {
+			log.error("[ImageManagement/findMedia]:: Database error. Message: {}", ex.getMessage());
+			throw new ImageInternalServerErrorException("Failed to retrieve image due to an unexpected error");
+		} finally {
+			log.debug("[ImageManagement/findMedia]:: Execution completed.");
+		}
 	}
 
+	@Override
+	public BaseResponseDto<List<ImageVariantProjection>> findVariants(long imageId) {
+		log.debug("[ImageManagement/findVariants]:: Execution started. Image: {}", imageId);
+		try {
+			List<ImageVariantProjection> variants = this.imageRepository.findVariants(imageId);
+			// variants only exist for existing images, so the extra lookup is left to the empty case
+			if (variants.isEmpty() && !this.imageRepository.existsImage(imageId)) {
+				throw new ImageNotFoundException("Image with ID " + imageId + " not found");
+			}
+			log.debug("[ImageManagement/findVariants]:: Found {} variant records", variants.size());
+
+			return new BaseResponseDto<>(
+					HttpStatus.OK,
+					HttpStatus.OK.value(),
+					"Image variants retrieved successfully",
+					variants
+			);
+		} catch (ImageNotFoundException ex) {
+			log.error("[ImageManagement/findVariants]:: Lookup failed. Image: {} | Message: {}", imageId, ex.getMessage());
+			throw ex;
+		} catch (RuntimeException ex) {
+			log.error("[ImageManagement/findVariants]:: Database error. Message: {}", ex.getMessage());
+			throw new ImageInternalServerErrorException("Failed to retrieve image variants due to an unexpected error");
+		} finally {
+			log.debug("[ImageManagement/findVariants]:: Execution completed.");
+		}
+	}
+
+	private static String[] decodeCatalogueCursor(String cursor) {
+		try {
+			return KeysetCursor.decode(cursor, 2);
+		} catch (IllegalArgumentException ex) {
+			throw new ImageBadRequestException("Malformed cursor: " + cursor);
+		}
+	}
 }
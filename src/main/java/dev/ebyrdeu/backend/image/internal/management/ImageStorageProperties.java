@@ -0,0 +1,31 @@
+package dev.ebyrdeu.backend.image.internal.management;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Tuning for {@link ImageContentStore}.
+ *
+ * @param root        the directory holding the stored files, created on startup if missing
+ * @param maxFileSize the largest upload accepted, checked while streaming
+ * @param staleUploadAge how long a temporary upload file may go unmodified before startup removes it as a
+ *                       leftover of an interrupted upload; must exceed the longest upload of any node sharing root
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@ConfigurationProperties("app.image.storage")
+record ImageStorageProperties(
+		@DefaultValue("data/images")
+		Path root,
+
+		@DefaultValue("10MB")
+		DataSize maxFileSize,
+
+		@DefaultValue("1h")
+		Duration staleUploadAge
+) {
+}
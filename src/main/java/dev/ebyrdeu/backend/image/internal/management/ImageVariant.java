@@ -0,0 +1,33 @@
+package dev.ebyrdeu.backend.image.internal.management;
+
+import java.util.Locale;
+
+/**
+ * The fixed set of display variants generated for every uploaded image, each bounded by its longest edge.
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see ImageVariantGenerator
+ */
+enum ImageVariant {
+	THUMBNAIL(160),
+	MEDIUM(640),
+	LARGE(1280);
+
+	private final int maxEdge;
+
+	ImageVariant(int maxEdge) {
+		this.maxEdge = maxEdge;
+	}
+
+	int maxEdge() {
+		return maxEdge;
+	}
+
+	/**
+	 * @return the name stored in {@code image_variants.variant}
+	 */
+	String key() {
+		return name().toLowerCase(Locale.ROOT);
+	}
+}
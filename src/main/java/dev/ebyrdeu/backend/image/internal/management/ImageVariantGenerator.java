@@ -0,0 +1,223 @@
+package dev.ebyrdeu.backend.image.internal.management;
+
+import dev.ebyrdeu.backend.image.ImageStored;
+import dev.ebyrdeu.backend.image.internal.management.ImageContentStore.StoredContent;
+import dev.ebyrdeu.backend.image.internal.repository.ImageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.modulith.events.ApplicationModuleListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Generates the {@link ImageVariant}s of uploaded images once their {@link ImageStored} event has been committed.
+ * <p>
+ * Runs as an {@link ApplicationModuleListener}: the upload returns right away, and the event stays in the
+ * publication registry until this listener has returned. If it throws, or the app stops before it is done, the
+ * publication is left incomplete and is resubmitted on the next start by {@link ImageVariantRecovery}. Redelivery
+ * is harmless: variant files are content-addressed and existing variant rows are kept.
+ * </p>
+ * <p>
+ * Each event gets a virtual thread, and a semaphore lets only {@link ImageVariantProperties#concurrency()} of
+ * them decode at once, since a decoded bitmap can take far more heap than its file. Large images are decoded
+ * with subsampling, just fine enough for the largest variant. Waiting for a permit holds no database
+ * connection: the listener runs without a transaction, and the variant rows are written in a short one at the
+ * end.
+ * </p>
+ * <p>
+ * Content that cannot be decoded (such as WebP, which ImageIO does not read), or that is no longer stored, is
+ * logged and served without variants, and the publication is completed; retrying would not help.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see ImageVariantProperties
+ */
+@Component
+class ImageVariantGenerator {
+	private static final Logger log = LoggerFactory.getLogger(ImageVariantGenerator.class);
+	private static final String CONTENT_TYPE = "image/jpeg";
+	private static final float JPEG_QUALITY = 0.85f;
+	private static final int LARGEST_EDGE = ImageVariant.LARGE.maxEdge();
+
+	private final ImageContentStore contentStore;
+	private final ImageRepository imageRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final Semaphore permits;
+
+	public ImageVariantGenerator(
+			ImageContentStore contentStore,
+			ImageRepository imageRepository,
+			TransactionTemplate transactionTemplate,
+			ImageVariantProperties properties
+	) {
+		this.contentStore = contentStore;
+		this.imageRepository = imageRepository;
+		this.transactionTemplate = transactionTemplate;
+		this.permits = new Semaphore(properties.concurrency(), true);
+	}
+
+	@ApplicationModuleListener
+	@Transactional(propagation = Propagation.NOT_SUPPORTED) // overrides the listener's REQUIRES_NEW, see class docs
+	public void on(ImageStored event) throws InterruptedException, IOException {
+		log.debug("[ImageVariantGenerator/on]:: Execution started. Image: {} | Hash: {}", event.imageId(), event.contentHash());
+		this.permits.acquire();
+		try {
+			Path original = this.contentStore.find(event.contentHash()).orElse(null);
+			if (original == null) {
+				log.warn("[ImageVariantGenerator/on]:: Content is not stored, no variants. Image: {} | Hash: {}",
+						event.imageId(), event.contentHash());
+				return;
+			}
+
+			List<Generated> variants = generate(original);
+			if (variants == null) {
+				log.warn("[ImageVariantGenerator/on]:: Content cannot be decoded, no variants. Image: {} | Hash: {}",
+						event.imageId(), event.contentHash());
+				return;
+			}
+
+			this.transactionTemplate.executeWithoutResult(status -> variants.forEach(generated ->
+					this.imageRepository.insertVariant(
+							event.imageId(),
+							generated.variant().key(),
+							generated.content().hash(),
+							generated.content().contentType(),
+							generated.width(),
+							generated.height()
+					)
+			));
+			log.trace("[ImageVariantGenerator/on]:: Variants generated. Image: {} | Count: {}", event.imageId(), variants.size());
+		} finally {
+			this.permits.release();
+			log.debug("[ImageVariantGenerator/on]:: Execution completed.");
+		}
+	}
+
+	/**
+	 * @return the stored variants smaller than the original, or {@code null} if the original cannot be decoded
+	 */
+	private List<Generated> generate(Path original) throws IOException {
+		BufferedImage source;
+		int width;
+		int height;
+
+		try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+			Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+			if (readers == null || !readers.hasNext()) {
+				return null;
+			}
+
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(input, true, true);
+				width = reader.getWidth(0);
+				height = reader.getHeight(0);
+
+				int subsampling = Math.max(1, Math.max(width, height) / (LARGEST_EDGE * 2));
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				source = reader.read(0, param);
+			} catch (IIOException ex) {
+				log.debug("[ImageVariantGenerator/generate]:: Decoding failed. Path: {} | Message: {}", original, ex.getMessage());
+				return null;
+			} finally {
+				reader.dispose();
+			}
+		}
+
+		List<Generated> variants = new ArrayList<>();
+		int longEdge = Math.max(width, height);
+		for (ImageVariant variant : ImageVariant.values()) {
+			if (longEdge <= variant.maxEdge()) {
+				continue; // never upscale
+			}
+
+			double scale = (double) variant.maxEdge() / longEdge;
+			int targetWidth = Math.max(1, (int) Math.round(width * scale));
+			int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+			BufferedImage resized = resize(source, targetWidth, targetHeight);
+			StoredContent content = this.contentStore.store(new ByteArrayInputStream(encodeJpeg(resized)));
+			variants.add(new Generated(variant, content, targetWidth, targetHeight));
+		}
+
+		return variants;
+	}
+
+	/**
+	 * Halves the image until one more step reaches the target size, which keeps bilinear filtering from dropping
+	 * pixels the way a single large step would.
+	 */
+	private static BufferedImage resize(BufferedImage source, int width, int height) {
+		BufferedImage current = source;
+		int currentWidth = source.getWidth();
+		int currentHeight = source.getHeight();
+
+		do {
+			currentWidth = Math.max(width, currentWidth / 2);
+			currentHeight = Math.max(height, currentHeight / 2);
+			current = draw(current, currentWidth, currentHeight);
+		} while (currentWidth != width || currentHeight != height);
+
+		return current;
+	}
+
+	private static BufferedImage draw(BufferedImage source, int width, int height) {
+		// JPEG has no alpha channel, transparent areas become white
+		BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = target.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.setColor(Color.WHITE);
+			graphics.fillRect(0, 0, width, height);
+			graphics.drawImage(source, 0, 0, width, height, null);
+		} finally {
+			graphics.dispose();
+		}
+		return target;
+	}
+
+	private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByMIMEType(CONTENT_TYPE).next();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+			writer.setOutput(output);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(JPEG_QUALITY);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return bytes.toByteArray();
+	}
+
+	private record Generated(ImageVariant variant, StoredContent content, int width, int height) {
+	}
+}
@@ -0,0 +1,26 @@
+package dev.ebyrdeu.backend.image.internal.management;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Tuning for {@link ImageVariantGenerator}.
+ *
+ * @param concurrency how many images are decoded and resized at once; each one holds a decoded bitmap on the
+ *                    heap, further events wait on their virtual thread
+ * @param resubmitAfter how old an incomplete {@link dev.ebyrdeu.backend.image.ImageStored} publication must be to
+ *                      be resubmitted on startup; younger ones may still be in progress on another node
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@ConfigurationProperties("app.image.variants")
+record ImageVariantProperties(
+		@DefaultValue("2")
+		int concurrency,
+
+		@DefaultValue("5m")
+		Duration resubmitAfter
+) {
+}
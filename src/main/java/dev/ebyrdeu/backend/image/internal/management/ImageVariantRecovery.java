@@ -0,0 +1,55 @@
+package dev.ebyrdeu.backend.image.internal.management;
+
+import dev.ebyrdeu.backend.image.ImageStored;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.modulith.events.IncompleteEventPublications;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Resubmits the {@link ImageStored} publications that {@link ImageVariantGenerator} did not complete, once the
+ * application is ready.
+ * <p>
+ * Recovery is scoped to this one event on purpose instead of republishing every outstanding publication on
+ * restart: with several nodes, a global republish would rerun other nodes' in-flight work for every listener,
+ * idempotent or not. Variant generation is idempotent, and only publications older than
+ * {@link ImageVariantProperties#resubmitAfter()} are picked up, so work still running elsewhere is left alone.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see ImageVariantProperties
+ */
+@Component
+class ImageVariantRecovery {
+	private static final Logger log = LoggerFactory.getLogger(ImageVariantRecovery.class);
+
+	private final IncompleteEventPublications incompleteEventPublications;
+	private final ImageVariantProperties properties;
+
+	public ImageVariantRecovery(IncompleteEventPublications incompleteEventPublications, ImageVariantProperties properties) {
+		this.incompleteEventPublications = incompleteEventPublications;
+		this.properties = properties;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	void resubmitIncomplete() {
+		log.debug("[ImageVariantRecovery/resubmitIncomplete]:: Execution started.");
+		try {
+			Instant publishedBefore = Instant.now().minus(this.properties.resubmitAfter());
+			this.incompleteEventPublications.resubmitIncompletePublications(publication ->
+					publication.getEvent() instanceof ImageStored
+							&& publication.getPublicationDate().isBefore(publishedBefore)
+			);
+		} catch (RuntimeException ex) {
+			// the publications stay incomplete and are picked up by the next start
+			log.error("[ImageVariantRecovery/resubmitIncomplete]:: Resubmission failed. Message: {}", ex.getMessage());
+		} finally {
+			log.debug("[ImageVariantRecovery/resubmitIncomplete]:: Execution completed.");
+		}
+	}
+}
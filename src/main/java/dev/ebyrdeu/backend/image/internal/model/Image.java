@@ -28,6 +28,17 @@ public class Image extends DefaultEntity {
 	@Column(name = "image_url")
 	private String imageUrl;
 
+	@Size(max = 64)
+	@Column(name = "content_hash", length = 64)
+	private String contentHash;
+
+	@Size(max = 50)
+	@Column(name = "content_type", length = 50)
+	private String contentType;
+
+	@Column(name = "content_size")
+	private Long contentSize;
+
 	public String getTitle() {
 		return title;
 	}
@@ -60,4 +71,28 @@ public class Image extends DefaultEntity {
 		this.imageUrl = imageUrl;
 	}
 
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public void setContentHash(String contentHash) {
+		this.contentHash = contentHash;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public void setContentType(String contentType) {
+		this.contentType = contentType;
+	}
+
+	public Long getContentSize() {
+		return contentSize;
+	}
+
+	public void setContentSize(Long contentSize) {
+		this.contentSize = contentSize;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package dev.ebyrdeu.backend.image.internal.projection;
+
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Shows one image of the catalogue: what a listing card needs, without the description.
+ * <p>
+ * An immutable record built directly from the result set, so no entity is loaded or tracked.
+ * </p>
+ *
+ * @param id        the image id
+ * @param title     the title
+ * @param price     the price, if any
+ * @param imageUrl  the URL of the image, if any
+ * @param owner     the username of the user owning the image
+ * @param createdAt when the image was created, the catalogue's sort key together with the id
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public record ImageCatalogueProjection(
+		long id,
+
+		String title,
+
+		@Nullable
+		BigDecimal price,
+
+		@Nullable
+		String imageUrl,
+
+		String owner,
+
+		LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,22 @@
+package dev.ebyrdeu.backend.image.internal.projection;
+
+/**
+ * Shows one resized display variant of an image.
+ *
+ * @param variant  the name of the variant, e.g. {@code thumbnail}
+ * @param imageUrl the hash-named URL the variant is served from
+ * @param width    the width in pixels
+ * @param height   the height in pixels
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public record ImageVariantProjection(
+		String variant,
+
+		String imageUrl,
+
+		int width,
+
+		int height
+) {
+}
@@ -0,0 +1,109 @@
+package dev.ebyrdeu.backend.image.internal.repository;
+
+import dev.ebyrdeu.backend.image.internal.dto.ImageCatalogueFilter;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadDto;
+import dev.ebyrdeu.backend.image.internal.projection.ImageCatalogueProjection;
+import dev.ebyrdeu.backend.image.internal.projection.ImageVariantProjection;
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Custom fragment of {@link ImageRepository} for the catalogue listing, the most requested image read, and for
+ * the rows of uploaded images and their variants.
+ * <p>
+ * Runs over JDBC with a {@link org.springframework.jdbc.core.RowMapper} that builds
+ * {@link ImageCatalogueProjection} records directly, so no {@link dev.ebyrdeu.backend.image.internal.model.Image}
+ * entity is hydrated.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see ImageQueriesImpl
+ */
+public interface ImageQueries {
+
+	/**
+	 * Retrieve one page of the catalogue, newest first.
+	 * <p>
+	 * Keyset pagination over {@code (created_at, id)}: the page starts right after the given position and
+	 * walks {@code images_created_at_id} backwards, or {@code images_user_id_created_at} when filtering by
+	 * owner, so the cost of a page does not depend on how deep the client has paged. Price and category
+	 * filters are checked on the rows the index yields; the category through {@code image_category}.
+	 * </p>
+	 *
+	 * @param filter          the filters to apply (non-null, components may be null).
+	 * @param beforeCreatedAt the {@code created_at} of the last image of the previous page, or {@code null} for
+	 *                        the first page.
+	 * @param beforeId        the id of the last image of the previous page; ignored for the first page.
+	 * @param limit           the maximum number of rows to return.
+	 * @return a {@link List} of records, never null.
+	 */
+	List<ImageCatalogueProjection> findCataloguePage(
+			ImageCatalogueFilter filter,
+			@Nullable LocalDateTime beforeCreatedAt,
+			long beforeId,
+			int limit
+	);
+
+	/**
+	 * Insert the row of an uploaded image for the user with the given email, resolving the owner in the same
+	 * statement. The image URL is the hash-named media URL of the content.
+	 *
+	 * @param id          the id of the new image.
+	 * @param ownerEmail  the email of the user owning the image.
+	 * @param upload      the details sent with the image.
+	 * @param contentHash the SHA-256 of the stored content.
+	 * @param contentType the media type of the stored content.
+	 * @param contentSize the size of the stored content in bytes.
+	 * @return the id of the owner, or empty if no user has the given email (nothing is inserted).
+	 */
+	Optional<Long> insertUploaded(
+			long id,
+			String ownerEmail,
+			ImageUploadDto upload,
+			String contentHash,
+			String contentType,
+			long contentSize
+	);
+
+	/**
+	 * Retrieve the media type of stored content, of an image or of a variant, served through
+	 * {@code images_content_hash} and {@code image_variants_content_hash}.
+	 *
+	 * @param contentHash the SHA-256 of the content.
+	 * @return the media type, or empty if no image or variant has the given content.
+	 */
+	Optional<String> findContentTypeByHash(String contentHash);
+
+	/**
+	 * Insert the row of a generated variant. Does nothing if the image has been removed in the meantime or the
+	 * variant already exists, so a redelivered event can simply run again.
+	 *
+	 * @param imageId     the id of the image.
+	 * @param variant     the name of the variant.
+	 * @param contentHash the SHA-256 of the stored variant.
+	 * @param contentType the media type of the stored variant.
+	 * @param width       the width in pixels.
+	 * @param height      the height in pixels.
+	 */
+	void insertVariant(long imageId, String variant, String contentHash, String contentType, int width, int height);
+
+	/**
+	 * Retrieve the variants of an image, smallest first.
+	 *
+	 * @param imageId the id of the image.
+	 * @return a {@link List} of records, empty while the variants are being generated.
+	 */
+	List<ImageVariantProjection> findVariants(long imageId);
+
+	/**
+	 * Check whether an image exists, through the primary key.
+	 *
+	 * @param imageId the id of the image.
+	 * @return {@code true} if an image has the given id.
+	 */
+	boolean existsImage(long imageId);
+}
@@ -0,0 +1,196 @@
+package dev.ebyrdeu.backend.image.internal.repository;
+
+import dev.ebyrdeu.backend.image.internal.dto.ImageCatalogueFilter;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadDto;
+import dev.ebyrdeu.backend.image.internal.projection.ImageCatalogueProjection;
+import dev.ebyrdeu.backend.image.internal.projection.ImageVariantProjection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.lang.Nullable;
+
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JDBC implementation of {@link ImageQueries}, picked up by Spring Data as a fragment of {@link ImageRepository}.
+ * <p>
+ * Only the predicates of the filters that are set are added to the statement, so every combination gets a plan
+ * of its own instead of one generic plan full of {@code :param is null or ...} branches. Columns are read by
+ * index in the order of the select list.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+class ImageQueriesImpl implements ImageQueries {
+	static final RowMapper<ImageCatalogueProjection> CATALOGUE = (rs, rowNum) -> new ImageCatalogueProjection(
+			rs.getLong(1),
+			rs.getString(2),
+			rs.getBigDecimal(3),
+			rs.getString(4),
+			rs.getString(5),
+			rs.getObject(6, LocalDateTime.class)
+	);
+
+	static final RowMapper<ImageVariantProjection> VARIANT = (rs, rowNum) -> new ImageVariantProjection(
+			rs.getString(1),
+			rs.getString(2),
+			rs.getInt(3),
+			rs.getInt(4)
+	);
+
+	private final JdbcClient jdbcClient;
+
+	ImageQueriesImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcClient = JdbcClient.create(jdbcTemplate);
+	}
+
+	@Override
+	public List<ImageCatalogueProjection> findCataloguePage(
+			ImageCatalogueFilter filter,
+			@Nullable LocalDateTime beforeCreatedAt,
+			long beforeId,
+			int limit
+	) {
+		StringBuilder sql = new StringBuilder("""
+				select i.id, i.title, i.price, i.image_url, u.username, i.created_at
+				from images i
+				join users u on u.id = i.user_id
+				where true
+				""");
+		Map<String, Object> params = new LinkedHashMap<>();
+
+		if (beforeCreatedAt != null) {
+			sql.append("and (i.created_at, i.id) < (:beforeCreatedAt, :beforeId)\n");
+			params.put("beforeCreatedAt", beforeCreatedAt);
+			params.put("beforeId", beforeId);
+		}
+		if (filter.owner() != null) {
+			sql.append("and i.user_id = (select o.id from users o where o.username = :owner)\n");
+			params.put("owner", filter.owner());
+		}
+		if (filter.minPrice() != null) {
+			sql.append("and i.price >= :minPrice\n");
+			params.put("minPrice", filter.minPrice());
+		}
+		if (filter.maxPrice() != null) {
+			sql.append("and i.price <= :maxPrice\n");
+			params.put("maxPrice", filter.maxPrice());
+		}
+		if (filter.category() != null) {
+			sql.append("""
+					and exists (
+					  select 1
+					  from image_category ic
+					  join categories c on c.id = ic.category_id
+					  where ic.image_id = i.id
+					    and c.category = :category
+					)
+					""");
+			params.put("category", filter.category());
+		}
+
+		sql.append("""
+				order by i.created_at desc, i.id desc
+				limit :limit
+				""");
+		params.put("limit", limit);
+
+		return this.jdbcClient
+				.sql(sql.toString())
+				.params(params)
+				.query(CATALOGUE)
+				.list();
+	}
+
+	@Override
+	public Optional<Long> insertUploaded(
+			long id,
+			String ownerEmail,
+			ImageUploadDto upload,
+			String contentHash,
+			String contentType,
+			long contentSize
+	) {
+		return this.jdbcClient
+				.sql("""
+						insert into images (id, user_id, title, description, price, image_url, content_hash, content_type, content_size)
+						select :id, u.id, :title, :description, :price, :imageUrl, :contentHash, :contentType, :contentSize
+						from users u
+						where u.email = :email
+						returning user_id
+						""")
+				.param("id", id)
+				.param("title", upload.title())
+				.param("description", upload.description(), Types.VARCHAR)
+				.param("price", upload.price(), Types.NUMERIC)
+				.param("imageUrl", "/media/" + contentHash)
+				.param("contentHash", contentHash)
+				.param("contentType", contentType)
+				.param("contentSize", contentSize)
+				.param("email", ownerEmail)
+				.query(Long.class)
+				.optional();
+	}
+
+	@Override
+	public Optional<String> findContentTypeByHash(String contentHash) {
+		return this.jdbcClient
+				.sql("""
+						(select i.content_type from images i where i.content_hash = :contentHash limit 1)
+						union all
+						(select v.content_type from image_variants v where v.content_hash = :contentHash limit 1)
+						limit 1
+						""")
+				.param("contentHash", contentHash)
+				.query(String.class)
+				.optional();
+	}
+
+	@Override
+	public void insertVariant(long imageId, String variant, String contentHash, String contentType, int width, int height) {
+		this.jdbcClient
+				.sql("""
+						insert into image_variants (image_id, variant, content_hash, content_type, width, height)
+						select i.id, :variant, :contentHash, :contentType, :width, :height
+						from images i
+						where i.id = :imageId
+						on conflict (image_id, variant) do nothing
+						""")
+				.param("imageId", imageId)
+				.param("variant", variant)
+				.param("contentHash", contentHash)
+				.param("contentType", contentType)
+				.param("width", width)
+				.param("height", height)
+				.update();
+	}
+
+	@Override
+	public List<ImageVariantProjection> findVariants(long imageId) {
+		return this.jdbcClient
+				.sql("""
+						select v.variant, '/media/' || v.content_hash, v.width, v.height
+						from image_variants v
+						where v.image_id = :imageId
+						order by v.width, v.variant
+						""")
+				.param("imageId", imageId)
+				.query(VARIANT)
+				.list();
+	}
+
+	@Override
+	public boolean existsImage(long imageId) {
+		return this.jdbcClient
+				.sql("select exists (select 1 from images i where i.id = :imageId)")
+				.param("imageId", imageId)
+				.query(Boolean.class)
+				.single();
+	}
+}
@@ -5,5 +5,5 @@ import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ImageRepository extends PagingAndSortingRepository<Image, Long> {
-}
\ No newline at end of file
+public interface ImageRepository extends PagingAndSortingRepository<Image, Long>, ImageQueries {
+}
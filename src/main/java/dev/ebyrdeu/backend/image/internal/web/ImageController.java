@@ -1,16 +1,130 @@
 package dev.ebyrdeu.backend.image.internal.web;
 
-import dev.ebyrdeu.backend.image.ImageExternalApi;
+import dev.ebyrdeu.backend.common.dto.BaseResponseDto;
+import dev.ebyrdeu.backend.common.dto.KeysetPage;
+import dev.ebyrdeu.backend.common.util.JsonConverterAdapter;
+import dev.ebyrdeu.backend.image.ImageInternalApi;
+import dev.ebyrdeu.backend.image.internal.dto.ImageCatalogueFilter;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadDto;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadResponseDto;
+import dev.ebyrdeu.backend.image.internal.projection.ImageCatalogueProjection;
+import dev.ebyrdeu.backend.image.internal.projection.ImageVariantProjection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/images")
 class ImageController {
 
-	private final ImageExternalApi imageExternalApi;
+	private static final Logger log = LoggerFactory.getLogger(ImageController.class);
+	private final ImageInternalApi imageInternalApi;
+	private final JsonConverterAdapter jsonConverter;
+
+	public ImageController(ImageInternalApi imageInternalApi, JsonConverterAdapter jsonConverter) {
+		this.imageInternalApi = imageInternalApi;
+		this.jsonConverter = jsonConverter;
+	}
+
+	/**
+	 * Lists the catalogue one keyset page at a time, newest first, optionally filtered by category, price range
+	 * and owner. The body keeps {@code data} as a plain array; the next page, if any, is advertised in a
+	 * {@code Link: <...>; rel="next"} header that repeats the filters.
+	 */
+	@GetMapping
+	public ResponseEntity<BaseResponseDto<List<ImageCatalogueProjection>>> findCatalogue(
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "20") int size,
+			@RequestParam(required = false) String category,
+			@RequestParam(required = false) BigDecimal minPrice,
+			@RequestParam(required = false) BigDecimal maxPrice,
+			@RequestParam(required = false) String owner
+	) {
+		log.debug("[ImageController/findCatalogue]:: Fetching images. Cursor: {} | Size: {}", cursor, size);
+
+		ImageCatalogueFilter filter = new ImageCatalogueFilter(category, minPrice, maxPrice, owner);
+		BaseResponseDto<KeysetPage<ImageCatalogueProjection>> page = this.imageInternalApi.findCatalogue(cursor, size, filter);
+		BaseResponseDto<List<ImageCatalogueProjection>> response = new BaseResponseDto<>(
+				page.status(),
+				page.code(),
+				page.message(),
+				page.data().items()
+		);
+
+		log.trace("[ImageController/findCatalogue]:: Response data: {}", this.jsonConverter.lazyValueOf(response.data()));
+
+		ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.status());
+		String nextCursor = page.data().nextCursor();
+		if (nextCursor != null) {
+			String next = ServletUriComponentsBuilder
+					.fromCurrentRequest()
+					.replaceQueryParam("cursor", nextCursor)
+					.replaceQueryParam("size", Math.min(size, ImageInternalApi.MAX_PAGE_SIZE))
+					.build()
+					.toUriString();
+			builder.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+		}
+
+		return builder.body(response);
+	}
+
+	/**
+	 * Uploads an image for the authenticated user. The multipart body is spooled to disk by the container and
+	 * streamed from there into the store, so the file is never held on the heap. The {@code Location} header
+	 * points at the hash-named media URL of the content.
+	 */
+	@PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	public ResponseEntity<BaseResponseDto<ImageUploadResponseDto>> upload(
+			@AuthenticationPrincipal OidcUser principal,
+			@RequestPart("file") MultipartFile file,
+			@RequestParam String title,
+			@RequestParam(required = false) String description,
+			@RequestParam(required = false) BigDecimal price
+	) {
+		log.debug("[ImageController/upload]:: Uploading image. Title: {} | Size: {}", title, file.getSize());
+
+		BaseResponseDto<ImageUploadResponseDto> response = this.imageInternalApi.upload(
+				principal.getEmail(),
+				new ImageUploadDto(title, description, price),
+				file
+		);
+
+		log.trace("[ImageController/upload]:: Response data: {}", this.jsonConverter.lazyValueOf(response.data()));
+
+		return ResponseEntity
+				.status(response.status())
+				.location(ServletUriComponentsBuilder.fromCurrentContextPath().path(response.data().imageUrl()).build().toUri())
+				.body(response);
+	}
+
+	/**
+	 * Lists the display variants of an image. They are generated after the upload has returned, so clients
+	 * poll this until the variants they need appear.
+	 */
+	@GetMapping("/{id}/variants")
+	public ResponseEntity<BaseResponseDto<List<ImageVariantProjection>>> findVariants(@PathVariable long id) {
+		log.debug("[ImageController/findVariants]:: Fetching variants of image with ID: {}", id);
+
+		BaseResponseDto<List<ImageVariantProjection>> response = this.imageInternalApi.findVariants(id);
+
+		log.trace("[ImageController/findVariants]:: Response data: {}", this.jsonConverter.lazyValueOf(response.data()));
 
-	public ImageController(ImageExternalApi imageExternalApi) {
-		this.imageExternalApi = imageExternalApi;
+		return ResponseEntity.status(response.status()).body(response);
 	}
 }
@@ -0,0 +1,164 @@
+package dev.ebyrdeu.backend.image.internal.web;
+
+import dev.ebyrdeu.backend.image.ImageInternalApi;
+import dev.ebyrdeu.backend.image.internal.dto.ImageMediaDto;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Serves stored image content under its hash: {@code /media/{sha256}}.
+ * <p>
+ * The content behind a URL can never change, so responses are cacheable for a year as {@code immutable} and
+ * the hash doubles as a strong entity tag. A single {@code Range} is answered with {@code 206 Partial Content};
+ * several ranges are answered with the whole file.
+ * </p>
+ * <p>
+ * When the connector supports it, the file region is handed to Tomcat's sendfile after the handler returns, and
+ * the bytes never pass through the heap. Otherwise the region is copied to the response stream through one small
+ * buffer, so memory stays bounded whatever the size of the file, but the copy is not zero-copy.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@Controller
+@RequestMapping("/media")
+class MediaController {
+	private static final Logger log = LoggerFactory.getLogger(MediaController.class);
+	private static final String CACHE_CONTROL = CacheControl
+			.maxAge(Duration.ofDays(365))
+			.cachePublic()
+			.immutable()
+			.getHeaderValue();
+
+	// request attributes of Tomcat's sendfile support, see org.apache.tomcat.util.net.Constants
+	private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+	private final ImageInternalApi imageInternalApi;
+
+	public MediaController(ImageInternalApi imageInternalApi) {
+		this.imageInternalApi = imageInternalApi;
+	}
+
+	@GetMapping("/{hash}")
+	public void serve(
+			@PathVariable String hash,
+			HttpServletRequest request,
+			HttpServletResponse response
+	) throws IOException {
+		log.debug("[MediaController/serve]:: Serving media. Hash: {} | Range: {}", hash, request.getHeader(HttpHeaders.RANGE));
+
+		ImageMediaDto media = this.imageInternalApi.findMedia(hash);
+		ETag current = ETag.create(media.hash());
+
+		response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+		response.setHeader(HttpHeaders.ETAG, current.formattedTag());
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+		String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+		if (ifNoneMatch != null && ETag.parse(ifNoneMatch).stream().anyMatch(tag -> tag.isWildcard() || tag.compare(current, false))) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		response.setContentType(media.contentType());
+		long size = media.size();
+
+		HttpRange range = singleRangeOf(request, current);
+		if (range == null) {
+			response.setStatus(HttpServletResponse.SC_OK);
+			send(request, response, media, 0, size);
+			return;
+		}
+
+		long start;
+		long end;
+		try {
+			start = range.getRangeStart(size);
+			end = range.getRangeEnd(size);
+		} catch (IllegalArgumentException ex) {
+			log.trace("[MediaController/serve]:: Unsatisfiable range. Hash: {} | Size: {}", hash, size);
+			response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+			response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+			return;
+		}
+
+		response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+		response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+		send(request, response, media, start, end - start + 1);
+	}
+
+	/**
+	 * @return the requested range, or {@code null} to send the whole file: without a (valid) {@code Range}, with
+	 * several ranges, or when {@code If-Range} names another entity
+	 */
+	@Nullable
+	private static HttpRange singleRangeOf(HttpServletRequest request, ETag current) {
+		String header = request.getHeader(HttpHeaders.RANGE);
+		if (header == null) {
+			return null;
+		}
+
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if (ifRange != null && !ETag.create(ifRange).compare(current, true)) {
+			return null;
+		}
+
+		try {
+			List<HttpRange> ranges = HttpRange.parseRanges(header);
+			return ranges.size() == 1 ? ranges.getFirst() : null;
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	private static void send(
+			HttpServletRequest request,
+			HttpServletResponse response,
+			ImageMediaDto media,
+			long start,
+			long length
+	) throws IOException {
+		response.setContentLengthLong(length);
+		if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+			return;
+		}
+
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+			request.setAttribute(SENDFILE_FILENAME, media.file().toString());
+			request.setAttribute(SENDFILE_START, start);
+			request.setAttribute(SENDFILE_END, start + length);
+			return;
+		}
+
+		try (InputStream in = Files.newInputStream(media.file())) {
+			long copied = StreamUtils.copyRange(in, response.getOutputStream(), start, start + length - 1);
+			if (copied < length) {
+				throw new EOFException("Media " + media.hash() + " ended at byte " + (start + copied));
+			}
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import dev.ebyrdeu.backend.user.ProfilePrincipal;
+import dev.ebyrdeu.backend.user.UserProfile;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+
+import java.io.Serial;
+
+/**
+ * {@link DefaultOidcUser} that also remembers the role version and role bitmask its authorities were built from,
+ * and the {@link UserProfile} of the user.
+ * <p>
+ * Stored in the session as the principal of the {@link OAuth2AuthenticationToken},
+ * which lets {@link RoleRefresherFilter} detect stale roles by comparing a single long, and compare roles by an int
+ * regardless of their order. The profile lets the user module answer auth requests without the database.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see RoleVersionRegistry
+ * @see RoleMask
+ * @see ProfileRegistry
+ */
+class AppOidcUser extends DefaultOidcUser implements ProfilePrincipal {
+	@Serial
+	private static final long serialVersionUID = 2L;
+
+	private final long roleVersion;
+	private final int roleMask;
+	@Nullable
+	private final UserProfile profile;
+
+	AppOidcUser(
+			int roleMask,
+			OidcIdToken idToken,
+			@Nullable OidcUserInfo userInfo,
+			long roleVersion,
+			@Nullable UserProfile profile
+	) {
+		super(RoleMask.authorities(roleMask), idToken, userInfo, "sub");
+		this.roleMask = roleMask;
+		this.roleVersion = roleVersion;
+		this.profile = profile;
+	}
+
+	public long getRoleVersion() {
+		return roleVersion;
+	}
+
+	public int getRoleMask() {
+		return roleMask;
+	}
+
+	@Override
+	@Nullable
+	public UserProfile getProfile() {
+		return profile;
+	}
+
+	/**
+	 * @param registrationId the client registration the user logged in with
+	 * @return a new authentication with this principal and the authorities of its role mask
+	 */
+	OAuth2AuthenticationToken toAuthentication(String registrationId) {
+		return new OAuth2AuthenticationToken(this, RoleMask.authorities(this.roleMask), registrationId);
+	}
+}
@@ -0,0 +1,19 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Tuning for {@link WebCsrfTokenRequestHandler}.
+ *
+ * @param eagerToken if {@code true}, the CSRF token is loaded (and generated when missing) on every request,
+ *                   otherwise only when the cookie is missing or the request is state-changing
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@ConfigurationProperties("app.security.csrf")
+record CsrfProperties(
+		@DefaultValue("false")
+		boolean eagerToken
+) {
+}
@@ -0,0 +1,180 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.stereotype.Component;
+import org.springframework.util.SerializationUtils;
+import org.springframework.web.util.WebUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * {@link AuthorizationRequestRepository} that keeps OIDC authorization requests in the
+ * {@code oauth2_authorization_requests} table, so the login callback can land on a different node than the
+ * redirect to the provider.
+ * <p>
+ * Rows are keyed by the {@code state} parameter. The state is also set in a short-lived HttpOnly cookie and a
+ * callback is only accepted when both match, which binds the request to the browser that started it the way
+ * the servlet session does. A request is removed when the callback consumes it; abandoned ones expire after
+ * {@link SessionProperties#authorizationRequestTimeout()} and are purged by a scheduled task.
+ * </p>
+ * <p>
+ * Rows only ever hold requests this application serialized itself, so they are read back with plain Java
+ * serialization.
+ * </p>
+ * <p>
+ * Database schema: src/main/resources/db/changelog/table/oauth2_authorization_requests/db.changelog-oauth2_authorization_requests-1.0.xml
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see JdbcSecurityContextRepository
+ * @see SessionProperties
+ */
+@Component
+@ConditionalOnProperty(name = "app.security.session.store", havingValue = "jdbc")
+class JdbcAuthorizationRequestRepository implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+	private static final Logger log = LoggerFactory.getLogger(JdbcAuthorizationRequestRepository.class);
+	private static final String STATE_COOKIE_NAME = "OAUTH2_STATE";
+
+	private final JdbcClient jdbcClient;
+	private final Duration timeout;
+
+	public JdbcAuthorizationRequestRepository(JdbcClient jdbcClient, SessionProperties properties) {
+		this.jdbcClient = jdbcClient;
+		this.timeout = properties.authorizationRequestTimeout();
+	}
+
+	@Override
+	@Nullable
+	public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+		String state = stateOf(request);
+		if (state == null) {
+			return null;
+		}
+
+		return this.jdbcClient
+				.sql("""
+						select request
+						from oauth2_authorization_requests
+						where state = :state and expires_at > now()
+						""")
+				.param("state", state)
+				.query((rs, rowNum) -> deserialize(rs.getBytes(1)))
+				.optional()
+				.orElse(null);
+	}
+
+	@Override
+	public void saveAuthorizationRequest(
+			@Nullable OAuth2AuthorizationRequest authorizationRequest,
+			HttpServletRequest request,
+			HttpServletResponse response
+	) {
+		if (authorizationRequest == null) {
+			removeAuthorizationRequest(request, response);
+			return;
+		}
+
+		String state = authorizationRequest.getState();
+		log.trace("[JdbcAuthorizationRequestRepository/saveAuthorizationRequest]:: Storing authorization request.");
+		this.jdbcClient
+				.sql("""
+						insert into oauth2_authorization_requests (state, request, expires_at)
+						values (:state, :request, :expiresAt)
+						""")
+				.param("state", state)
+				.param("request", SerializationUtils.serialize(authorizationRequest))
+				.param("expiresAt", Timestamp.from(Instant.now().plus(this.timeout)))
+				.update();
+
+		writeCookie(request, response, state, this.timeout);
+	}
+
+	@Override
+	@Nullable
+	public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request, HttpServletResponse response) {
+		String state = stateOf(request);
+		if (state == null) {
+			return null;
+		}
+
+		Optional<OAuth2AuthorizationRequest> removed = this.jdbcClient
+				.sql("""
+						delete from oauth2_authorization_requests
+						where state = :state and expires_at > now()
+						returning request
+						""")
+				.param("state", state)
+				.query((rs, rowNum) -> deserialize(rs.getBytes(1)))
+				.optional();
+
+		writeCookie(request, response, "", Duration.ZERO);
+		return removed.orElse(null);
+	}
+
+	@Scheduled(fixedDelayString = "${app.security.session.purge-interval:5m}")
+	void purgeExpired() {
+		int purged = this.jdbcClient
+				.sql("delete from oauth2_authorization_requests where expires_at <= now()")
+				.update();
+
+		if (purged > 0) {
+			log.debug("[JdbcAuthorizationRequestRepository/purgeExpired]:: Purged expired authorization requests. Count: {}", purged);
+		}
+	}
+
+	/**
+	 * @return the state of the callback, or {@code null} when it is missing or was not issued to this browser
+	 */
+	@Nullable
+	private static String stateOf(HttpServletRequest request) {
+		String state = request.getParameter(OAuth2ParameterNames.STATE);
+		Cookie cookie = WebUtils.getCookie(request, STATE_COOKIE_NAME);
+
+		return state == null || cookie == null || !state.equals(cookie.getValue()) ? null : state;
+	}
+
+	private static OAuth2AuthorizationRequest deserialize(byte[] bytes) {
+		try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (OAuth2AuthorizationRequest) input.readObject();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} catch (ClassNotFoundException ex) {
+			throw new IllegalStateException("Stored authorization request cannot be read", ex);
+		}
+	}
+
+	private static void writeCookie(HttpServletRequest request, HttpServletResponse response, String value, Duration maxAge) {
+		String contextPath = request.getContextPath();
+		ResponseCookie cookie = ResponseCookie
+				.from(STATE_COOKIE_NAME, value)
+				.path(contextPath.isEmpty() ? "/" : contextPath)
+				.httpOnly(true)
+				.secure(request.isSecure())
+				.sameSite("Lax")
+				.maxAge(maxAge)
+				.build();
+
+		response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+	}
+}
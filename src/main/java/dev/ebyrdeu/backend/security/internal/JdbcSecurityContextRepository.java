@@ -0,0 +1,283 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.DeferredSecurityContext;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.WebUtils;
+
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * {@link SecurityContextRepository} that keeps sessions in the {@code security_sessions} table,
+ * so any node can serve any request behind a non-sticky balancer.
+ * <p>
+ * The browser only holds an opaque random id in an HttpOnly cookie; the row holds the security context in the
+ * format of {@link SecurityContextCodec}. Contexts are loaded lazily, so requests that never look at the
+ * authentication (static assets, public routes) do not touch the database.
+ * </p>
+ * <p>
+ * Writes are lazy as well: {@link #saveContext} compares the encoded context with the bytes that were loaded
+ * and skips the update when nothing changed, and the sliding expiry is only pushed forward once less than half
+ * of the timeout remains. A new id is issued whenever a different user logs in, which also covers session fixation.
+ * Expired rows are purged by a scheduled task.
+ * </p>
+ * <p>
+ * Only the session itself is shared. {@link RoleVersionRegistry} and {@link ProfileRegistry} are filled by
+ * events published on the node that made the change, so other nodes see a role change once their registry
+ * entry and {@link RoleCache} entry have expired (at most twice the role cache TTL), and keep showing other
+ * sessions of the user the old profile until those sessions log in again.
+ * </p>
+ * <p>
+ * Database schema: src/main/resources/db/changelog/table/security_sessions/db.changelog-security_sessions-1.0.xml
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see SessionProperties
+ * @see SecurityContextCodec
+ */
+@Component
+@ConditionalOnProperty(name = "app.security.session.store", havingValue = "jdbc")
+class JdbcSecurityContextRepository implements SecurityContextRepository {
+	private static final Logger log = LoggerFactory.getLogger(JdbcSecurityContextRepository.class);
+	private static final String LOADED_SESSION_ATTRIBUTE = JdbcSecurityContextRepository.class.getName() + ".SESSION";
+	private static final int ID_BYTES = 32;
+
+	private final JdbcClient jdbcClient;
+	private final SecureRandom secureRandom = new SecureRandom();
+	private final String cookieName;
+	private final Duration timeout;
+
+	public JdbcSecurityContextRepository(JdbcClient jdbcClient, SessionProperties properties) {
+		this.jdbcClient = jdbcClient;
+		this.cookieName = properties.cookieName();
+		this.timeout = properties.timeout();
+	}
+
+	@Override
+	@Deprecated
+	public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+		return loadDeferredContext(requestResponseHolder.getRequest()).get();
+	}
+
+	@Override
+	public DeferredSecurityContext loadDeferredContext(HttpServletRequest request) {
+		return new DeferredSecurityContext() {
+			private SecurityContext context;
+			private boolean generated;
+
+			@Override
+			public SecurityContext get() {
+				if (this.context == null) {
+					Authentication authentication = load(request);
+					this.generated = authentication == null;
+					this.context = SecurityContextHolder.createEmptyContext();
+					this.context.setAuthentication(authentication);
+				}
+				return this.context;
+			}
+
+			@Override
+			public boolean isGenerated() {
+				get();
+				return this.generated;
+			}
+		};
+	}
+
+	@Override
+	public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+		LoadedSession loaded = loadedSession(request);
+
+		if (!(context.getAuthentication() instanceof OAuth2AuthenticationToken authentication)
+				|| !(authentication.getPrincipal() instanceof AppOidcUser user)) {
+			if (loaded != null) {
+				delete(loaded.id());
+				request.removeAttribute(LOADED_SESSION_ATTRIBUTE);
+			}
+			if (loaded != null || sessionIdOf(request) != null) {
+				writeCookie(request, response, "", Duration.ZERO);
+			}
+			return;
+		}
+
+		byte[] encoded = SecurityContextCodec.encode(authentication);
+
+		if (loaded != null && Arrays.equals(loaded.context(), encoded)) {
+			return;
+		}
+
+		Instant expiresAt = Instant.now().plus(this.timeout);
+
+		if (loaded != null && loaded.principal().equals(user.getEmail())) {
+			log.trace("[JdbcSecurityContextRepository/saveContext]:: Updating session context.");
+			this.jdbcClient
+					.sql("""
+							update security_sessions
+							set context = :context, expires_at = :expiresAt
+							where id = :id
+							""")
+					.param("context", encoded)
+					.param("expiresAt", Timestamp.from(expiresAt))
+					.param("id", loaded.id())
+					.update();
+
+			request.setAttribute(LOADED_SESSION_ATTRIBUTE, new LoadedSession(loaded.id(), loaded.principal(), encoded, expiresAt));
+			return;
+		}
+
+		String previousId = loaded != null ? loaded.id() : sessionIdOf(request);
+		if (previousId != null) {
+			delete(previousId);
+		}
+
+		String id = newId();
+		log.trace("[JdbcSecurityContextRepository/saveContext]:: Creating session.");
+		this.jdbcClient
+				.sql("""
+						insert into security_sessions (id, principal, context, expires_at)
+						values (:id, :principal, :context, :expiresAt)
+						""")
+				.param("id", id)
+				.param("principal", user.getEmail())
+				.param("context", encoded)
+				.param("expiresAt", Timestamp.from(expiresAt))
+				.update();
+
+		request.setAttribute(LOADED_SESSION_ATTRIBUTE, new LoadedSession(id, user.getEmail(), encoded, expiresAt));
+		writeCookie(request, response, id, null);
+	}
+
+	@Override
+	public boolean containsContext(HttpServletRequest request) {
+		return sessionIdOf(request) != null;
+	}
+
+	@Scheduled(fixedDelayString = "${app.security.session.purge-interval:5m}")
+	void purgeExpired() {
+		int purged = this.jdbcClient
+				.sql("delete from security_sessions where expires_at <= now()")
+				.update();
+
+		if (purged > 0) {
+			log.debug("[JdbcSecurityContextRepository/purgeExpired]:: Purged expired sessions. Count: {}", purged);
+		}
+	}
+
+	@Nullable
+	private Authentication load(HttpServletRequest request) {
+		String id = sessionIdOf(request);
+		if (id == null) {
+			return null;
+		}
+
+		Optional<LoadedSession> row = this.jdbcClient
+				.sql("""
+						select principal, context, expires_at
+						from security_sessions
+						where id = :id and expires_at > now()
+						""")
+				.param("id", id)
+				.query((rs, rowNum) -> new LoadedSession(
+						id,
+						rs.getString("principal"),
+						rs.getBytes("context"),
+						rs.getTimestamp("expires_at").toInstant()
+				))
+				.optional();
+
+		if (row.isEmpty()) {
+			return null;
+		}
+
+		LoadedSession loaded = touch(row.get());
+		request.setAttribute(LOADED_SESSION_ATTRIBUTE, loaded);
+
+		return SecurityContextCodec.decode(loaded.context());
+	}
+
+	/**
+	 * Extends the expiry of a session once less than half of the timeout remains, so an active session costs
+	 * one write per half timeout instead of one per request.
+	 */
+	private LoadedSession touch(LoadedSession loaded) {
+		Instant now = Instant.now();
+		if (loaded.expiresAt().isAfter(now.plus(this.timeout.dividedBy(2)))) {
+			return loaded;
+		}
+
+		Instant expiresAt = now.plus(this.timeout);
+		this.jdbcClient
+				.sql("update security_sessions set expires_at = :expiresAt where id = :id")
+				.param("expiresAt", Timestamp.from(expiresAt))
+				.param("id", loaded.id())
+				.update();
+
+		return new LoadedSession(loaded.id(), loaded.principal(), loaded.context(), expiresAt);
+	}
+
+	private void delete(String id) {
+		this.jdbcClient
+				.sql("delete from security_sessions where id = :id")
+				.param("id", id)
+				.update();
+	}
+
+	@Nullable
+	private LoadedSession loadedSession(HttpServletRequest request) {
+		return request.getAttribute(LOADED_SESSION_ATTRIBUTE) instanceof LoadedSession loaded ? loaded : null;
+	}
+
+	@Nullable
+	private String sessionIdOf(HttpServletRequest request) {
+		Cookie cookie = WebUtils.getCookie(request, this.cookieName);
+		return cookie == null || cookie.getValue().isEmpty() ? null : cookie.getValue();
+	}
+
+	private String newId() {
+		byte[] id = new byte[ID_BYTES];
+		this.secureRandom.nextBytes(id);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+	}
+
+	private void writeCookie(HttpServletRequest request, HttpServletResponse response, String value, @Nullable Duration maxAge) {
+		String contextPath = request.getContextPath();
+		ResponseCookie.ResponseCookieBuilder cookie = ResponseCookie
+				.from(this.cookieName, value)
+				.path(contextPath.isEmpty() ? "/" : contextPath)
+				.httpOnly(true)
+				.secure(request.isSecure())
+				.sameSite("Lax");
+
+		if (maxAge != null) {
+			cookie.maxAge(maxAge);
+		}
+
+		response.addHeader(HttpHeaders.SET_COOKIE, cookie.build().toString());
+	}
+
+	private record LoadedSession(String id, String principal, byte[] context, Instant expiresAt) {
+	}
+}
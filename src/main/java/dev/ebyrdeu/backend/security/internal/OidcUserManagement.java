@@ -1,21 +1,20 @@
 package dev.ebyrdeu.backend.security.internal;
 
 import dev.ebyrdeu.backend.user.UserExternalApi;
-import org.springframework.security.core.GrantedAuthority;
+import dev.ebyrdeu.backend.user.UserAccount;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
-import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.stereotype.Service;
 
-import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * This Service ensures that the user's roles are synchronized with the database and included in the
  * OIDC user object returned by the `loadUser` method.
+ * <p>
+ * The returned {@link AppOidcUser} also carries the role version the roles were read at,
+ * which {@link RoleRefresherFilter} uses to detect stale sessions, and the user's profile basics.
+ * </p>
  *
  * @author Maxim Khnykin
  * @version 1.0
@@ -26,29 +25,26 @@ import java.util.stream.Collectors;
 class OidcUserManagement extends OidcUserService {
 
 	private final UserExternalApi userExternalApi;
+	private final RoleVersionRegistry roleVersionRegistry;
 
-	public OidcUserManagement(UserExternalApi userExternalApi) {
+	public OidcUserManagement(UserExternalApi userExternalApi, RoleVersionRegistry roleVersionRegistry) {
 		this.userExternalApi = userExternalApi;
+		this.roleVersionRegistry = roleVersionRegistry;
 	}
 
 	@Override
 	public OidcUser loadUser(OidcUserRequest req) throws OAuth2AuthenticationException {
 		OidcUser oidcUser = super.loadUser(req);
 
-		this.userExternalApi.createOrGetOidcUser(oidcUser);
-
-		List<String> retrievedUserRoles = this.userExternalApi.findUserRolesByEmail(oidcUser.getEmail());
-
-		Collection<GrantedAuthority> roleAuthorities = retrievedUserRoles
-				.stream()
-				.map(role -> (GrantedAuthority) () -> "ROLE_" + role)
-				.collect(Collectors.toSet());
+		UserAccount account = this.userExternalApi.createOrGetOidcUser(oidcUser);
+		this.roleVersionRegistry.record(oidcUser.getEmail(), account.roles().version());
 
-		return new DefaultOidcUser(
-				roleAuthorities,
+		return new AppOidcUser(
+				account.roles().mask(),
 				oidcUser.getIdToken(),
 				oidcUser.getUserInfo(),
-				"sub"
+				account.roles().version(),
+				account.profile()
 		);
 
 	}
@@ -0,0 +1,88 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.ebyrdeu.backend.user.UserProfile;
+import dev.ebyrdeu.backend.user.UserProfileChanged;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * In-memory view of profiles that changed since their sessions were created, keyed by email.
+ * <p>
+ * Filled by {@link UserProfileChanged} events, so {@link RoleRefresherFilter} can swap the {@link UserProfile}
+ * of other sessions of the same user on their next request. When the change is made by the user themselves,
+ * the principal of the current request is refreshed and saved right away, so it reaches every node that
+ * shares the session store.
+ * </p>
+ * <p>
+ * Entries expire after the {@link RoleCacheProperties#timeToLive()} of the role cache, so the registry stays
+ * bounded in time as well as in size. Sessions that make no request before then, and sessions served by a node
+ * that did not see the event (the registry is local to each node), keep their profile until they log in again.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see AppOidcUser
+ */
+@Component
+class ProfileRegistry {
+	private final Cache<String, UserProfile> profiles;
+	private final SecurityContextRepository securityContextRepository;
+
+	public ProfileRegistry(RoleCacheProperties properties, SecurityContextRepository securityContextRepository) {
+		this.profiles = Caffeine.newBuilder()
+		                        .maximumSize(properties.maximumSize())
+		                        .expireAfterWrite(properties.timeToLive())
+		                        .build();
+		this.securityContextRepository = securityContextRepository;
+	}
+
+	/**
+	 * @param email the user's email address
+	 * @return the latest profile if it changed while this node was running, otherwise {@code null}
+	 */
+	@Nullable
+	public UserProfile changed(String email) {
+		return this.profiles.getIfPresent(email);
+	}
+
+	@TransactionalEventListener
+	void on(UserProfileChanged event) {
+		this.profiles.put(event.email(), event.profile());
+
+		if (!(SecurityContextHolder.getContext().getAuthentication() instanceof OAuth2AuthenticationToken authentication)
+				|| !(authentication.getPrincipal() instanceof AppOidcUser user)
+				|| !event.email().equals(user.getEmail())
+				|| event.profile().equals(user.getProfile())
+				|| !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+			return;
+		}
+
+		HttpServletResponse response = attributes.getResponse();
+		if (response == null) {
+			return;
+		}
+
+		AppOidcUser updated = new AppOidcUser(
+				user.getRoleMask(),
+				user.getIdToken(),
+				user.getUserInfo(),
+				user.getRoleVersion(),
+				event.profile()
+		);
+
+		SecurityContext context = SecurityContextHolder.createEmptyContext();
+		context.setAuthentication(updated.toAuthentication(authentication.getAuthorizedClientRegistrationId()));
+		SecurityContextHolder.setContext(context);
+		this.securityContextRepository.saveContext(context, attributes.getRequest(), response);
+	}
+}
@@ -0,0 +1,120 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.ebyrdeu.backend.user.UserExternalApi;
+import dev.ebyrdeu.backend.user.UserRoles;
+import dev.ebyrdeu.backend.user.UserRolesChanged;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Bounded, size- and TTL-evicting cache of user roles keyed by email.
+ * <p>
+ * Sits in front of {@link UserExternalApi#findUserRoles(String)} so that {@link RoleRefresherFilter}
+ * pays a map lookup per request instead of a three-table join. Entries are dropped explicitly when a
+ * {@link UserRolesChanged} event is committed, and the TTL bounds staleness for changes made outside the app.
+ * </p>
+ * <p>
+ * Lookups are coalesced per email: the cache holds the in-flight future of a load, so a burst of parallel
+ * requests for the same user shares one database query (and one pooled connection) instead of running it
+ * once per request. The load runs on the thread of the first caller; the others wait for its result.
+ * An invalidation that arrives while a load is in flight drops that load from the cache.
+ * </p>
+ * <p>
+ * Hit, miss and eviction counters are available through {@link #stats()} and are published to Micrometer
+ * under the {@code cache} meters with {@code cache=security.roles}.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see RoleCacheProperties
+ */
+@Component
+class RoleCache {
+	private static final Logger log = LoggerFactory.getLogger(RoleCache.class);
+	private static final String CACHE_NAME = "security.roles";
+
+	private final UserExternalApi userExternalApi;
+	private final AsyncCache<String, UserRoles> cache;
+
+	public RoleCache(UserExternalApi userExternalApi, RoleCacheProperties properties, MeterRegistry meterRegistry) {
+		this.userExternalApi = userExternalApi;
+		this.cache = Caffeine.newBuilder()
+		                     .maximumSize(properties.maximumSize())
+		                     .expireAfterWrite(properties.timeToLive())
+		                     .recordStats()
+		                     .buildAsync();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, this.cache.synchronous(), CACHE_NAME);
+	}
+
+	/**
+	 * Returns the roles and role version for the given email, loading them from the database on a miss.
+	 *
+	 * @param email the user's email address
+	 * @return the cached {@link UserRoles} snapshot
+	 */
+	public UserRoles get(String email) {
+		CompletableFuture<UserRoles> shared = this.cache.getIfPresent(email);
+
+		if (shared == null) {
+			CompletableFuture<UserRoles> own = new CompletableFuture<>();
+			shared = this.cache.asMap().putIfAbsent(email, own);
+
+			if (shared == null) {
+				log.trace("[RoleCache/get]:: Loading roles. Email: {}", email);
+				load(email, own);
+				shared = own;
+			}
+		}
+
+		return join(shared);
+	}
+
+	public void invalidate(String email) {
+		log.debug("[RoleCache/invalidate]:: Dropping cached roles. Email: {}", email);
+		this.cache.synchronous().invalidate(email);
+	}
+
+	public void invalidateAll() {
+		this.cache.synchronous().invalidateAll();
+	}
+
+	public CacheStats stats() {
+		return this.cache.synchronous().stats();
+	}
+
+	private void load(String email, CompletableFuture<UserRoles> future) {
+		try {
+			future.complete(this.userExternalApi.findUserRoles(email));
+		} catch (RuntimeException | Error ex) {
+			// failed futures are removed by the cache, so the next request retries the lookup
+			future.completeExceptionally(ex);
+		}
+	}
+
+	private static UserRoles join(CompletableFuture<UserRoles> future) {
+		try {
+			return future.join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+
+	@TransactionalEventListener
+	void on(UserRolesChanged event) {
+		invalidate(event.email());
+	}
+}
@@ -0,0 +1,24 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Tuning for {@link RoleCache}.
+ *
+ * @param maximumSize the maximum number of emails kept in the cache
+ * @param timeToLive  how long roles stay cached after being loaded, bounds staleness for changes made outside the app
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@ConfigurationProperties("app.security.role-cache")
+record RoleCacheProperties(
+		@DefaultValue("10000")
+		long maximumSize,
+
+		@DefaultValue("5m")
+		Duration timeToLive
+) {
+}
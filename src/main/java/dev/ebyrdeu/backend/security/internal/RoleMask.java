@@ -0,0 +1,76 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import dev.ebyrdeu.backend.user.UserRole;
+import dev.ebyrdeu.backend.user.UserRoles;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compact, order-insensitive representation of a user's roles as a bitmask.
+ * <p>
+ * The bits are owned by the user module, see {@link UserRole#bit()}, so there is one list of roles and masks
+ * stored in sessions do not depend on declaration order. The immutable authority set of every combination is
+ * built once, so comparing roles is an int comparison and building authorities is an array read.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see AppOidcUser
+ * @see UserRoles#mask()
+ */
+final class RoleMask {
+	private static final String ROLE_PREFIX = "ROLE_";
+
+	private static final UserRole[] ROLES = UserRole.values();
+	private static final int COMBINATIONS = 1 << Arrays.stream(ROLES).mapToInt(UserRole::id).max().orElse(0);
+	private static final List<Set<GrantedAuthority>> AUTHORITIES = buildAuthorities();
+
+	private RoleMask() {
+		throw new UnsupportedOperationException("Utility class - instantiation not allowed");
+	}
+
+	/**
+	 * @param authorities granted authorities (e.g. "ROLE_USER"); authorities that are not roles are ignored
+	 * @return the bitmask of the roles among the given authorities
+	 */
+	static int ofAuthorities(Collection<? extends GrantedAuthority> authorities) {
+		int mask = 0;
+		for (GrantedAuthority authority : authorities) {
+			String value = authority.getAuthority();
+			if (value != null && value.startsWith(ROLE_PREFIX)) {
+				mask |= UserRole.bitOf(value.substring(ROLE_PREFIX.length()));
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * @param mask a role bitmask
+	 * @return the shared, immutable authority set for the mask
+	 */
+	static Set<GrantedAuthority> authorities(int mask) {
+		return AUTHORITIES.get(mask & (COMBINATIONS - 1));
+	}
+
+	private static List<Set<GrantedAuthority>> buildAuthorities() {
+		List<Set<GrantedAuthority>> all = new ArrayList<>(COMBINATIONS);
+
+		for (int mask = 0; mask < COMBINATIONS; mask++) {
+			List<GrantedAuthority> authorities = new ArrayList<>(ROLES.length);
+			for (UserRole role : ROLES) {
+				if ((mask & role.bit()) != 0) {
+					authorities.add(new SimpleGrantedAuthority(ROLE_PREFIX + role.name()));
+				}
+			}
+			all.add(Set.copyOf(authorities));
+		}
+
+		return List.copyOf(all);
+	}
+}
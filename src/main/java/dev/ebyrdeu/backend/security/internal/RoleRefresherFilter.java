@@ -1,40 +1,81 @@
 package dev.ebyrdeu.backend.security.internal;
 
-import dev.ebyrdeu.backend.user.UserExternalApi;
+import dev.ebyrdeu.backend.common.web.RequestClassifier;
+import dev.ebyrdeu.backend.user.UserProfile;
+import dev.ebyrdeu.backend.user.UserRoles;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.lang.NonNull;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Security filter that ensures the roles of an authenticated user
  * are up-to-date with the roles stored in the database.
- * This filter is executed once per request and refreshes
+ * This filter is executed once per request and refreshes the authentication when the roles differ.
+ * <p>
+ * The session principal ({@link AppOidcUser}) carries the role version its authorities were built from.
+ * In the common case the filter only compares that version with the one in {@link RoleVersionRegistry};
+ * roles are read through {@link RoleCache} only when the registry has no entry or the versions differ.
+ * Roles are compared as {@link RoleMask} bitmasks, so the order they come back in never forces a rebuild.
+ * </p>
+ * <p>
+ * Static assets and the public SPA shell never need fresh roles, so those requests (as decided by
+ * {@link RequestClassifier}) skip the filter entirely.
+ * </p>
+ * <p>
+ * Profiles changed by other sessions of the same user are taken from {@link ProfileRegistry} the same way.
+ * A refreshed authentication is saved through the {@link SecurityContextRepository}, so it reaches
+ * whichever session store is configured.
+ * </p>
  *
  * @author Maxim Khnykin
  * @version 1.0
- * @see UserExternalApi
+ * @see RoleCache
+ * @see RoleVersionRegistry
+ * @see ProfileRegistry
  * @see OncePerRequestFilter
  */
 @Component
 class RoleRefresherFilter extends OncePerRequestFilter {
-	private final UserExternalApi userExternalApi;
+	/**
+	 * Version assumed for principals that were not built by {@link OidcUserManagement}, forces one refresh.
+	 */
+	private static final long UNKNOWN_VERSION = Long.MIN_VALUE;
+
+	private final RoleCache roleCache;
+	private final RoleVersionRegistry roleVersionRegistry;
+	private final ProfileRegistry profileRegistry;
+	private final SecurityContextRepository securityContextRepository;
+
+	public RoleRefresherFilter(
+			RoleCache roleCache,
+			RoleVersionRegistry roleVersionRegistry,
+			ProfileRegistry profileRegistry,
+			SecurityContextRepository securityContextRepository
+	) {
+		this.roleCache = roleCache;
+		this.roleVersionRegistry = roleVersionRegistry;
+		this.profileRegistry = profileRegistry;
+		this.securityContextRepository = securityContextRepository;
+	}
 
-	public RoleRefresherFilter(UserExternalApi userExternalApi) {
-		this.userExternalApi = userExternalApi;
+	@Override
+	protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+		return switch (RequestClassifier.classify(request)) {
+			case STATIC_ASSET, SPA_SHELL -> true;
+			default -> false;
+		};
 	}
 
 	@Override
@@ -54,47 +95,57 @@ class RoleRefresherFilter extends OncePerRequestFilter {
 
 		DefaultOidcUser oidcUser = (DefaultOidcUser) authentication.getPrincipal();
 		String oidcUserEmail = oidcUser.getEmail();
-		List<String> oidcUserRoles = oidcUser
-				.getAuthorities()
-				.stream()
-				.map(GrantedAuthority::getAuthority)
-				.map((role) -> role.substring(5))
-				.toList();
+		long sessionVersion;
+		int sessionMask;
+		UserProfile sessionProfile;
+		if (oidcUser instanceof AppOidcUser appOidcUser) {
+			sessionVersion = appOidcUser.getRoleVersion();
+			sessionMask = appOidcUser.getRoleMask();
+			sessionProfile = appOidcUser.getProfile();
+		} else {
+			sessionVersion = UNKNOWN_VERSION;
+			sessionMask = RoleMask.ofAuthorities(oidcUser.getAuthorities());
+			sessionProfile = null;
+		}
 
+		long version = sessionVersion;
+		int mask = sessionMask;
+		Long knownVersion = this.roleVersionRegistry.current(oidcUserEmail);
+
+		if (knownVersion == null || knownVersion != sessionVersion) {
+			UserRoles dbUserRoles = this.roleCache.get(oidcUserEmail);
+			this.roleVersionRegistry.record(oidcUserEmail, dbUserRoles.version());
+
+			// NOTE: same roles under a newer version (e.g. a role granted and revoked again) still store the new
+			// version in the session, otherwise every later request would miss the registry and look roles up again
+			if (dbUserRoles.version() != sessionVersion) {
+				version = dbUserRoles.version();
+				mask = dbUserRoles.mask();
+			}
+		}
 
-		// NOTE: May not be the most optimal approach to call this method each update request.
-		// This is add some stress to backend as each request user will trigger api call
-		// it's still kinda better than just make user re-log each time I guess...
-		List<String> dbUserRoles = this.userExternalApi.findUserRolesByEmail(oidcUserEmail);
+		UserProfile changedProfile = this.profileRegistry.changed(oidcUserEmail);
+		boolean profileChanged = changedProfile != null && !changedProfile.equals(sessionProfile);
 
-		if (oidcUserRoles.equals(dbUserRoles)) {
+		if (mask == sessionMask && version == sessionVersion && !profileChanged) {
 			filterChain.doFilter(request, response);
 			return;
 		}
 
-		Collection<GrantedAuthority> updatedRoles = dbUserRoles
-				.stream()
-				.map(role -> (GrantedAuthority) () -> "ROLE_" + role)
-				.collect(Collectors.toSet());
-
-		DefaultOidcUser updatedOidcUser = new DefaultOidcUser(
-				updatedRoles,
+		AppOidcUser updatedOidcUser = new AppOidcUser(
+				mask,
 				oidcUser.getIdToken(),
 				oidcUser.getUserInfo(),
-				"sub"
+				version,
+				profileChanged ? changedProfile : sessionProfile
 		);
 
-
 		String registrationId = ((OAuth2AuthenticationToken) authentication).getAuthorizedClientRegistrationId();
 
-		Authentication newAuthToken = new OAuth2AuthenticationToken(
-				updatedOidcUser,
-				updatedRoles,
-				registrationId
-		);
-
-
-		SecurityContextHolder.getContext().setAuthentication(newAuthToken);
+		SecurityContext context = SecurityContextHolder.createEmptyContext();
+		context.setAuthentication(updatedOidcUser.toAuthentication(registrationId));
+		SecurityContextHolder.setContext(context);
+		this.securityContextRepository.saveContext(context, request, response);
 
 		filterChain.doFilter(request, response);
 	}
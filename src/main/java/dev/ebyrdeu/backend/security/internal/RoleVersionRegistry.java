@@ -0,0 +1,55 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.ebyrdeu.backend.user.UserRolesChanged;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * In-memory view of the latest known role version per email.
+ * <p>
+ * Kept fresh by {@link UserRolesChanged} events and by role lookups, so {@link RoleRefresherFilter} can decide
+ * whether a session's roles are current by comparing the version stored in {@link AppOidcUser} with a long
+ * from this registry. Versions only move forward; an older version never overwrites a newer one.
+ * </p>
+ * <p>
+ * Entries expire after the {@link RoleCacheProperties#timeToLive()} of the role cache. Changes that publish no
+ * event (direct SQL, another node) are then picked up by the next lookup instead of a matching version keeping
+ * the session as is forever.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see RoleCache
+ */
+@Component
+class RoleVersionRegistry {
+	private final Cache<String, Long> versions;
+
+	public RoleVersionRegistry(RoleCacheProperties properties) {
+		this.versions = Caffeine.newBuilder()
+		                        .maximumSize(properties.maximumSize())
+		                        .expireAfterWrite(properties.timeToLive())
+		                        .build();
+	}
+
+	/**
+	 * @param email the user's email address
+	 * @return the latest known role version, or {@code null} if nothing is known for the email
+	 */
+	@Nullable
+	public Long current(String email) {
+		return this.versions.getIfPresent(email);
+	}
+
+	public void record(String email, long version) {
+		this.versions.asMap().merge(email, version, Math::max);
+	}
+
+	@TransactionalEventListener
+	void on(UserRolesChanged event) {
+		record(event.email(), event.roleVersion());
+	}
+}
@@ -1,32 +1,74 @@
 package dev.ebyrdeu.backend.security.internal;
 
+import dev.ebyrdeu.backend.common.web.RequestClassifier;
+import dev.ebyrdeu.backend.common.web.RequestKind;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.client.web.HttpSessionOAuth2AuthorizationRequestRepository;
 import org.springframework.security.oauth2.client.web.OAuth2LoginAuthenticationFilter;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.access.AccessDeniedHandler;
+import org.springframework.security.web.context.DelegatingSecurityContextRepository;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.security.web.csrf.CsrfTokenRequestHandler;
 
 /**
+ * The security context is kept by the {@link SecurityContextRepository} bean: the servlet session by default, or
+ * {@link JdbcSecurityContextRepository} when {@code app.security.session.store=jdbc}. OIDC logins in progress follow
+ * the same switch through the {@link AuthorizationRequestRepository} bean, so with the {@code jdbc} store no state
+ * is left in the servlet session.
+ * <p>
+ * Authorization decisions are made on the {@link RequestKind} computed once per request by {@link RequestClassifier}
+ * instead of matching every request against a list of path patterns.
+ * </p>
+ *
  * @author Maxim Khnykin
  * @version 1.0
  * @see CsrfTokenRequestHandler
  * @see OidcUserManagement
  * @see RoleRefresherFilter
+ * @see RequestClassifier
+ * @see SessionProperties
  */
 @Configuration
 @EnableWebSecurity
 class SecurityConfig {
 
+	@Bean
+	public SecurityContextRepository securityContextRepository(
+			ObjectProvider<JdbcSecurityContextRepository> jdbcSecurityContextRepository
+	) {
+		// NOTE: same repositories Spring Security uses when none is configured
+		return jdbcSecurityContextRepository.getIfAvailable(() -> new DelegatingSecurityContextRepository(
+				new RequestAttributeSecurityContextRepository(),
+				new HttpSessionSecurityContextRepository()
+		));
+	}
+
+	@Bean
+	public AuthorizationRequestRepository<OAuth2AuthorizationRequest> authorizationRequestRepository(
+			ObjectProvider<JdbcAuthorizationRequestRepository> jdbcAuthorizationRequestRepository
+	) {
+		return jdbcAuthorizationRequestRepository.getIfAvailable(HttpSessionOAuth2AuthorizationRequestRepository::new);
+	}
 
 	@Bean
 	public SecurityFilterChain securityFilterChain(
 			HttpSecurity http,
+			SecurityContextRepository securityContextRepository,
+			AuthorizationRequestRepository<OAuth2AuthorizationRequest> authorizationRequestRepository,
 			CsrfTokenRequestHandler csrfTokenRequestHandler,
 			AccessDeniedHandler accessDeniedHandler,
 			OidcUserManagement oidcUserManagement,
@@ -34,11 +76,17 @@ class SecurityConfig {
 	) throws Exception {
 
 		// Csrf Config
+		CookieCsrfTokenRepository csrfTokenRepository = CookieCsrfTokenRepository.withHttpOnlyFalse();
+		csrfTokenRepository.setCookieName(WebCsrfTokenRequestHandler.CSRF_COOKIE_NAME);
+
 		http.csrf(csrf -> csrf
-				.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
+				.csrfTokenRepository(csrfTokenRepository)
 				.csrfTokenRequestHandler(csrfTokenRequestHandler)
 		);
 
+		// Session Config
+		http.securityContext(context -> context.securityContextRepository(securityContextRepository));
+
 		// Cors config
 		http.cors(Customizer.withDefaults());
 
@@ -47,29 +95,35 @@ class SecurityConfig {
 				.loginPage("/auth")
 				.authorizationEndpoint(auth -> auth
 						.baseUri("/login/oauth2/authorization")
+						.authorizationRequestRepository(authorizationRequestRepository)
 				)
 				.userInfoEndpoint(userInfo -> userInfo.oidcUserService(oidcUserManagement))
 				.defaultSuccessUrl("/", false)
 		);
 
 		// Logout config
-		http.logout((logout) -> logout.logoutUrl("/api/v1/logout"));
+		http.logout((logout) -> logout
+				.logoutUrl("/api/v1/logout")
+				.addLogoutHandler((request, response, authentication) -> securityContextRepository.saveContext(
+						SecurityContextHolder.createEmptyContext(),
+						request,
+						response
+				))
+		);
 
 		// Exception Config
 		http.exceptionHandling(ex -> ex.accessDeniedHandler(accessDeniedHandler));
 
 		// Auth Req Config
 		http.authorizeHttpRequests(auth -> auth
-				.requestMatchers(
-						"/",
-						"/auth",
-						"/index.html",
-						"/vite.svg",
-						"/static/**",
-						"/assets/**"
-				).permitAll()
+				.requestMatchers(request -> switch (RequestClassifier.classify(request)) {
+					case STATIC_ASSET, SPA_SHELL -> true;
+					default -> false;
+				}).permitAll()
+				// the full directory export is for admins only, whatever headers the request carries
+				.requestMatchers(HttpMethod.GET, "/api/v1/users/export").hasRole("ADMIN")
 				.requestMatchers(request -> {
-					boolean requestedUri = request.getRequestURI().startsWith("/api/");
+					boolean requestedUri = RequestClassifier.classify(request) == RequestKind.API;
 					String header = request.getHeader("X-Requested-With");
 
 					// TODO: look at referer
@@ -81,7 +135,7 @@ class SecurityConfig {
 					// unless they know our header for requests
 					return requestedUri && "fetch".equalsIgnoreCase(header);
 				}).permitAll()
-				.requestMatchers("/api/**").hasRole("ADMIN")
+				.requestMatchers(request -> RequestClassifier.classify(request) == RequestKind.API).hasRole("ADMIN")
 				.anyRequest().authenticated()
 		);
 
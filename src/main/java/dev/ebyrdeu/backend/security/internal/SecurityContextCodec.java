@@ -0,0 +1,146 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import dev.ebyrdeu.backend.user.UserProfile;
+import org.springframework.lang.Nullable;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.IdTokenClaimNames;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of an authenticated {@link AppOidcUser} session.
+ * <p>
+ * Only what the application reads back is kept: role bitmask and version, client registration id, subject,
+ * email, picture, the ID token issue/expiry instants and the user's profile basics. A typical session encodes to well under 200 bytes,
+ * compared to several kilobytes for a Java-serialized {@link OAuth2AuthenticationToken}, and the format does
+ * not depend on Spring Security class layouts, so nodes on different versions can share sessions.
+ * </p>
+ * <p>
+ * Layout: {@code format(byte) mask(int) version(long) registrationId sub email picture? iat(long) exp(long)
+ * [username? firstName? lastName?]}, strings in modified UTF-8. The profile part exists since format 2;
+ * sessions written in format 1 decode without a profile. The raw ID token value is not stored; decoded principals carry a placeholder.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see JdbcSecurityContextRepository
+ */
+final class SecurityContextCodec {
+	/**
+	 * Token value of decoded ID tokens, the signed JWT itself is never needed after login.
+	 */
+	static final String DETACHED_TOKEN_VALUE = "detached";
+
+	private static final byte FORMAT = 2;
+	private static final byte FORMAT_WITHOUT_PROFILE = 1;
+
+	private SecurityContextCodec() {
+		throw new UnsupportedOperationException("Utility class - instantiation not allowed");
+	}
+
+	/**
+	 * @param authentication an authentication whose principal is an {@link AppOidcUser}
+	 * @return the encoded session
+	 */
+	static byte[] encode(OAuth2AuthenticationToken authentication) {
+		AppOidcUser user = (AppOidcUser) authentication.getPrincipal();
+		OidcIdToken idToken = user.getIdToken();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(FORMAT);
+			out.writeInt(user.getRoleMask());
+			out.writeLong(user.getRoleVersion());
+			out.writeUTF(authentication.getAuthorizedClientRegistrationId());
+			out.writeUTF(user.getSubject());
+			out.writeUTF(user.getEmail());
+			writeNullable(out, user.getPicture());
+			out.writeLong(epochSecondOf(idToken.getIssuedAt()));
+			out.writeLong(epochSecondOf(idToken.getExpiresAt()));
+
+			UserProfile profile = user.getProfile();
+			writeNullable(out, profile == null ? null : profile.username());
+			if (profile != null) {
+				writeNullable(out, profile.firstName());
+				writeNullable(out, profile.lastName());
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * @param bytes an encoded session
+	 * @return the authentication, or {@code null} if the bytes use an unknown format
+	 */
+	@Nullable
+	static OAuth2AuthenticationToken decode(byte[] bytes) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+			byte format = in.readByte();
+			if (format != FORMAT && format != FORMAT_WITHOUT_PROFILE) {
+				return null;
+			}
+
+			int roleMask = in.readInt();
+			long roleVersion = in.readLong();
+			String registrationId = in.readUTF();
+
+			Map<String, Object> claims = new HashMap<>(4);
+			claims.put(IdTokenClaimNames.SUB, in.readUTF());
+			claims.put(StandardClaimNames.EMAIL, in.readUTF());
+			String picture = readNullable(in);
+			if (picture != null) {
+				claims.put(StandardClaimNames.PICTURE, picture);
+			}
+
+			Instant issuedAt = instantOf(in.readLong());
+			Instant expiresAt = instantOf(in.readLong());
+			OidcIdToken idToken = new OidcIdToken(DETACHED_TOKEN_VALUE, issuedAt, expiresAt, claims);
+
+			UserProfile profile = null;
+			if (format == FORMAT) {
+				String username = readNullable(in);
+				if (username != null) {
+					profile = new UserProfile(username, readNullable(in), readNullable(in));
+				}
+			}
+
+			return new AppOidcUser(roleMask, idToken, null, roleVersion, profile).toAuthentication(registrationId);
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	private static void writeNullable(DataOutputStream out, @Nullable String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	@Nullable
+	private static String readNullable(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static long epochSecondOf(@Nullable Instant instant) {
+		return instant == null ? Long.MIN_VALUE : instant.getEpochSecond();
+	}
+
+	@Nullable
+	private static Instant instantOf(long epochSecond) {
+		return epochSecond == Long.MIN_VALUE ? null : Instant.ofEpochSecond(epochSecond);
+	}
+}
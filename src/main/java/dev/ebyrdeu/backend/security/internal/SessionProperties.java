@@ -0,0 +1,40 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Where and how the security context of logged-in users is kept between requests.
+ *
+ * @param store         {@code memory} keeps the default servlet session, {@code jdbc} uses {@link JdbcSecurityContextRepository}
+ * @param cookieName    name of the session cookie used by the {@code jdbc} store
+ * @param timeout       idle time after which a {@code jdbc} session expires, extended while the session is used
+ * @param purgeInterval delay between two purges of expired {@code jdbc} sessions and authorization requests
+ * @param authorizationRequestTimeout time a user has to complete an OIDC login started with the {@code jdbc} store
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@ConfigurationProperties("app.security.session")
+record SessionProperties(
+		@DefaultValue("memory")
+		Store store,
+
+		@DefaultValue("APP_SESSION")
+		String cookieName,
+
+		@DefaultValue("30m")
+		Duration timeout,
+
+		@DefaultValue("5m")
+		Duration purgeInterval,
+
+		@DefaultValue("10m")
+		Duration authorizationRequestTimeout
+) {
+	enum Store {
+		MEMORY,
+		JDBC
+	}
+}
@@ -1,5 +1,7 @@
 package dev.ebyrdeu.backend.security.internal;
 
+import dev.ebyrdeu.backend.common.web.RequestClassifier;
+import dev.ebyrdeu.backend.common.web.RequestKind;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -16,7 +18,8 @@ import java.io.IOException;
  * <p>
  * The design leverages the frontend tanstack router, where the "/" route is configured to display
  * a 404 page. This approach provides a graceful handling of access denied scenarios without exposing
- * sensitive error details to the client.
+ * sensitive error details to the client. API requests are answered with a plain {@code 403 Forbidden} instead,
+ * since their callers expect a status rather than the SPA shell.
  *
  * @author Maxim Khnykin
  * @version 1.0
@@ -29,6 +32,12 @@ class WebAccessDeniedHandler implements AccessDeniedHandler {
 
 	@Override
 	public void handle(HttpServletRequest request, HttpServletResponse response, AccessDeniedException accessDeniedException) throws IOException, ServletException {
+		if (RequestClassifier.classify(request) == RequestKind.API) {
+			log.debug("[WebAccessDeniedHandler/handle]:: answering API request with 403");
+			response.sendError(HttpServletResponse.SC_FORBIDDEN);
+			return;
+		}
+
 		log.debug("[WebAccessDeniedHandler/handle]:: forwarding to 404 page");
 		// TODO: if this is become a problem implement differently
 		// NOTE: because of how tanstack router works with react and spring
@@ -8,7 +8,9 @@ import org.springframework.security.web.csrf.CsrfTokenRequestHandler;
 import org.springframework.security.web.csrf.XorCsrfTokenRequestAttributeHandler;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.web.util.WebUtils;
 
+import java.util.Set;
 import java.util.function.Supplier;
 
 
@@ -19,6 +21,11 @@ import java.util.function.Supplier;
  * <p>This handler combines the functionality of {@link CsrfTokenRequestAttributeHandler} (plain CSRF tokens) and
  * {@link XorCsrfTokenRequestAttributeHandler} (XOR-encoded CSRF tokens)
  * </p>
+ * <p>By default the deferred token is only materialised when the CSRF cookie is missing (so the SPA gets one)
+ * or when the request is state-changing (so it can be validated). Safe requests that already carry the cookie
+ * skip the repository entirely, which avoids token loading, generation and {@code Set-Cookie} writes on most
+ * GET requests. Setting {@code app.security.csrf.eager-token=true} restores materialising it on every request.
+ * </p>
  * <p>For more information on Spring Security CSRF token integration, refer to the
  * <a href="https://docs.spring.io/spring-security/reference/servlet/exploits/csrf.html#csrf-integration-javascript-spa">official documentation</a>.</p>
  *
@@ -27,17 +34,29 @@ import java.util.function.Supplier;
  * @see CsrfTokenRequestHandler
  * @see CsrfTokenRequestAttributeHandler
  * @see XorCsrfTokenRequestAttributeHandler
+ * @see CsrfProperties
  */
 @Service
 class WebCsrfTokenRequestHandler implements CsrfTokenRequestHandler {
+	static final String CSRF_COOKIE_NAME = "XSRF-TOKEN";
+
+	private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "TRACE", "OPTIONS");
+
 	private final CsrfTokenRequestHandler plain = new CsrfTokenRequestAttributeHandler();
 	private final CsrfTokenRequestHandler xor = new XorCsrfTokenRequestAttributeHandler();
+	private final boolean eagerToken;
+
+	public WebCsrfTokenRequestHandler(CsrfProperties properties) {
+		this.eagerToken = properties.eagerToken();
+	}
 
 	@Override
 	public void handle(HttpServletRequest request, HttpServletResponse response, Supplier<CsrfToken> csrfToken) {
 		this.xor.handle(request, response, csrfToken);
 
-		csrfToken.get();
+		if (this.eagerToken || isStateChanging(request) || isCookieMissing(request)) {
+			csrfToken.get();
+		}
 	}
 
 	@Override
@@ -46,4 +65,12 @@ class WebCsrfTokenRequestHandler implements CsrfTokenRequestHandler {
 
 		return (StringUtils.hasText(headerValue) ? this.plain : this.xor).resolveCsrfTokenValue(request, csrfToken);
 	}
+
+	private static boolean isStateChanging(HttpServletRequest request) {
+		return !SAFE_METHODS.contains(request.getMethod());
+	}
+
+	private static boolean isCookieMissing(HttpServletRequest request) {
+		return WebUtils.getCookie(request, CSRF_COOKIE_NAME) == null;
+	}
 }
@@ -8,6 +8,7 @@
 		displayName = "Security",
 		allowedDependencies = {
 				"user",
+				"common :: web",
 		}
 )
 @org.springframework.lang.NonNullApi
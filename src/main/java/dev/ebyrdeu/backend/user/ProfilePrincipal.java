@@ -0,0 +1,23 @@
+package dev.ebyrdeu.backend.user;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Principal that carries the {@link UserProfile} of the logged-in user.
+ * <p>
+ * Implemented by the session principal of the security module, so the user module can answer
+ * "who am I" requests from the session instead of the database.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see UserInternalApi#getAuth(org.springframework.security.core.Authentication)
+ */
+public interface ProfilePrincipal {
+
+	/**
+	 * @return the profile captured at login or at the last profile change, or {@code null} if unknown
+	 */
+	@Nullable
+	UserProfile getProfile();
+}
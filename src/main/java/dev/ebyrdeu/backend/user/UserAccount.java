@@ -0,0 +1,16 @@
+package dev.ebyrdeu.backend.user;
+
+/**
+ * Roles and profile of a user, as read when the user logs in.
+ *
+ * @param roles   the user's {@link UserRoles}
+ * @param profile the user's {@link UserProfile}
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see UserExternalApi#createOrGetOidcUser(org.springframework.security.oauth2.core.oidc.user.OidcUser)
+ */
+public record UserAccount(
+		UserRoles roles,
+		UserProfile profile
+) {
+}
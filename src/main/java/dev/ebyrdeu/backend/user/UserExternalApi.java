@@ -3,8 +3,6 @@ package dev.ebyrdeu.backend.user;
 import dev.ebyrdeu.backend.user.internal.excpetion.UserInternalServerErrorException;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 
-import java.util.List;
-
 /**
  * External API for user-related operations
  *
@@ -14,25 +12,32 @@ import java.util.List;
 public interface UserExternalApi {
 
 	/**
-	 * Fetches role names for a user by their email.
+	 * Fetches role names for a user by their email together with the user's role version.
+	 * <p>
+	 * The version changes whenever the user's roles change, so callers can compare a single long
+	 * instead of role lists to detect stale role information.
+	 * </p>
 	 *
 	 * @param email the user's email address
-	 * @return a list of role names (e.g. "USER", "ADMIN")
+	 * @return a {@link UserRoles} snapshot; version {@code -1} and no roles if no user matches
 	 * @throws UserInternalServerErrorException if retrieval fails unexpectedly
 	 */
-	List<String> findUserRolesByEmail(String email);
+	UserRoles findUserRoles(String email);
 
 	/**
-	 * Retrieves an existing OIDC user or creates a new one if not found in the database.
+	 * Retrieves an existing OIDC user or creates a new one if not found in the database, and returns their roles
+	 * and profile.
 	 * <p>
 	 * If no user exists with the OIDC email, a new {@link dev.ebyrdeu.backend.user.internal.model.User}
 	 * is created using the OIDC claims (subject as username, given/family names, email)
-	 * and assigned a default role.
+	 * and assigned a default role. Lookup, creation and role retrieval happen in a single statement,
+	 * so a login costs one round trip and concurrent first logins for the same email are safe.
 	 * </p>
 	 *
 	 * @param oidcUser the authenticated {@link OidcUser} from the OIDC provider
+	 * @return the user's {@link UserAccount}
 	 * @throws UserInternalServerErrorException if creation or lookup fails unexpectedly
 	 */
-	void createOrGetOidcUser(OidcUser oidcUser);
+	UserAccount createOrGetOidcUser(OidcUser oidcUser);
 
 }
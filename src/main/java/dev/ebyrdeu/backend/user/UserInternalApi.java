@@ -1,16 +1,22 @@
 package dev.ebyrdeu.backend.user;
 
 import dev.ebyrdeu.backend.common.dto.BaseResponseDto;
-import dev.ebyrdeu.backend.common.dto.BaseResponseJsonDto;
+import dev.ebyrdeu.backend.common.dto.BaseResponseRawJsonDto;
+import dev.ebyrdeu.backend.common.dto.KeysetPage;
 import dev.ebyrdeu.backend.user.internal.dto.AuthResponseDto;
 import dev.ebyrdeu.backend.user.internal.dto.AuthUserDto;
+import dev.ebyrdeu.backend.user.internal.dto.ProfileResponseDto;
 import dev.ebyrdeu.backend.user.internal.dto.UserInfoReqDto;
+import dev.ebyrdeu.backend.user.internal.excpetion.UserBadRequestException;
+import dev.ebyrdeu.backend.user.internal.excpetion.UserConflictException;
 import dev.ebyrdeu.backend.user.internal.excpetion.UserInternalServerErrorException;
 import dev.ebyrdeu.backend.user.internal.excpetion.UserNotFoundException;
 import dev.ebyrdeu.backend.user.internal.projection.UserMinimalInfoProjection;
+import org.springframework.lang.Nullable;
 import org.springframework.security.core.Authentication;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Internal API for user-related operations
@@ -19,14 +25,29 @@ import java.util.List;
  * @version 1.0
  */
 public interface UserInternalApi {
+	/**
+	 * Largest page size served by {@link #findAll(String, int)}, bigger requests are capped.
+	 */
+	int MAX_PAGE_SIZE = 100;
+
+	/**
+	 * Largest number of distinct usernames accepted by {@link #findManyByUsernames(List)}.
+	 */
+	int MAX_BATCH_SIZE = 100;
+
+	/**
+	 * Largest number of results served by {@link #search(String, int)}, bigger requests are capped.
+	 */
+	int MAX_SEARCH_LIMIT = 20;
 
 	/**
 	 * Returns authentication details for the current user.
 	 * <p>
 	 * If the provided {@code authentication} object is null or unauthenticated,
 	 * an empty {@link AuthUserDto} is returned with {@code authenticated=false}.
-	 * Otherwise, extracts the email and roles from the OIDC user, loads
-	 * minimal user info from the database, and wraps it in an {@link AuthResponseDto}.
+	 * Otherwise, extracts the email and roles from the OIDC user, takes the profile from the principal
+	 * when it is a {@link ProfilePrincipal} (no database access at all), and wraps it in an {@link AuthResponseDto}.
+	 * Principals without a profile fall back to loading minimal user info from the database.
 	 * </p>
 	 *
 	 * @param authentication the security context of the current request
@@ -38,31 +59,91 @@ public interface UserInternalApi {
 	BaseResponseDto<AuthResponseDto> getAuth(Authentication authentication);
 
 	/**
-	 * Retrieves all users with minimal profile information.
+	 * Retrieves one page of users with minimal profile information, ordered by username.
 	 * <p>
 	 * Each user is represented by a {@link UserMinimalInfoProjection} containing
-	 * only username, first name and last name.
+	 * only username, first name and last name. Pages are keyset paginated: pass the
+	 * {@link KeysetPage#nextCursor()} of a page to get the next one.
+	 * </p>
+	 *
+	 * @param cursor the cursor of the page to fetch, or {@code null} for the first page
+	 * @param size   the requested page size, capped at {@value #MAX_PAGE_SIZE}
+	 * @return a {@link BaseResponseDto} wrapping a {@link KeysetPage} of minimal user projections
+	 * @throws UserBadRequestException          if the cursor is malformed or the size is not positive
+	 * @throws UserInternalServerErrorException if retrieval fails unexpectedly
+	 */
+	BaseResponseDto<KeysetPage<UserMinimalInfoProjection>> findAll(@Nullable String cursor, int size);
+
+	/**
+	 * Retrieves minimal profile information for many users in one query.
+	 * <p>
+	 * Meant for views that render many user cards at once. Usernames are trimmed, blank ones are ignored and
+	 * duplicates are collapsed to their first occurrence. The JSON payload holds the found users as
+	 * {@code users} and the usernames without a user as {@code missing}, both in request order.
 	 * </p>
 	 *
-	 * @return a {@link BaseResponseDto} wrapping a list of minimal user projections
+	 * @param usernames the usernames to look up, at most {@value #MAX_BATCH_SIZE} distinct ones
+	 * @return a {@link BaseResponseRawJsonDto} containing the JSON payload
+	 * @throws UserBadRequestException          if no or too many usernames are given
 	 * @throws UserInternalServerErrorException if retrieval fails unexpectedly
 	 */
-	BaseResponseDto<List<UserMinimalInfoProjection>> findAll();
+	BaseResponseRawJsonDto findManyByUsernames(List<String> usernames);
+
+	/**
+	 * Searches users by username, first name and last name for a typeahead, best matches first.
+	 * <p>
+	 * The term is matched case-insensitively as a substring or fuzzily; username prefix matches rank first.
+	 * Terms shorter than three characters only match username prefixes.
+	 * </p>
+	 *
+	 * @param query the search term, surrounding and repeated whitespace is ignored
+	 * @param limit the maximum number of results, capped at {@value #MAX_SEARCH_LIMIT}
+	 * @return a {@link BaseResponseDto} wrapping the matching users
+	 * @throws UserBadRequestException          if the term is blank or the limit is not positive
+	 * @throws UserInternalServerErrorException if the search fails unexpectedly
+	 */
+	BaseResponseDto<List<UserMinimalInfoProjection>> search(String query, int limit);
+
+	/**
+	 * Streams every user with minimal profile information, ordered by username, to the given consumer.
+	 * <p>
+	 * Rows are read through a server-side cursor inside one read-only transaction and handed over one at a time,
+	 * so heap use does not grow with the number of users. The consumer must not keep references to the rows.
+	 * </p>
+	 *
+	 * @param consumer receives each user in turn
+	 * @throws UserInternalServerErrorException if reading or consuming fails unexpectedly
+	 */
+	void exportAll(Consumer<UserMinimalInfoProjection> consumer);
 
 	/**
 	 * Retrieves a single user's detailed profile and associated images as JSON.
 	 * <p>
-	 * The response DTO wraps a raw JSON string payload that includes username,
+	 * The response DTO wraps the UTF-8 encoded JSON payload that includes username,
 	 * first name, last name, email and an array of images (title, description,
 	 * price, and URL). If the user has no images, the array is empty.
 	 * </p>
 	 *
 	 * @param username the unique username identifier
-	 * @return a {@link BaseResponseJsonDto} containing the JSON payload
+	 * @return a {@link ProfileResponseDto} with the {@link BaseResponseRawJsonDto} and the entity tag of its version
 	 * @throws UserNotFoundException            if no user is found for the given username
 	 * @throws UserInternalServerErrorException if retrieval fails unexpectedly
 	 */
-	BaseResponseJsonDto findOneByUsername(String username);
+	ProfileResponseDto findOneByUsername(String username);
+
+	/**
+	 * Returns the entity tag of the current version of a user's profile, without building the profile.
+	 * <p>
+	 * Meant for conditional requests: if the tag matches the one the client holds, the profile has not
+	 * changed and can be answered with {@code 304 Not Modified}.
+	 * </p>
+	 *
+	 * @param username the unique username identifier
+	 * @return the entity tag, unquoted
+	 * @throws UserNotFoundException            if no user is found for the given username
+	 * @throws UserInternalServerErrorException if the lookup fails unexpectedly
+	 */
+	String findProfileETag(String username);
 
 	/**
 	 * Updates a user's information.
@@ -74,14 +155,16 @@ public interface UserInternalApi {
 	 *   <li>{@code username} field in {@code req} is applied only if non-null and non-empty.</li>
 	 *   <li>{@code aboutMe} field in {@code req} is applied only if non-null.</li>
 	 * </ul>
-	 * The updated user is saved in the repository, and a response DTO is returned containing
-	 * the updated user information.
+	 * The patch is applied with a single {@code UPDATE ... RETURNING} statement, without loading the user first,
+	 * and a response DTO is returned containing the updated user information. Username uniqueness is left to
+	 * the database constraint.
 	 * </p>
 	 *
 	 * @param username the username of the user to update
 	 * @param req      a {@link UserInfoReqDto} containing patch data (new username, about me)
 	 * @return a {@link BaseResponseDto} wrapping the updated {@link UserInfoReqDto}
 	 * @throws UserNotFoundException            if no user is found for the given username
+	 * @throws UserConflictException            if the new username is taken by another user
 	 * @throws UserInternalServerErrorException if the update fails due to an unexpected error
 	 */
 	BaseResponseDto<UserInfoReqDto> patchUserInfo(String username, UserInfoReqDto req);
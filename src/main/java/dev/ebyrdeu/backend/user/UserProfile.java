@@ -0,0 +1,26 @@
+package dev.ebyrdeu.backend.user;
+
+import org.springframework.lang.Nullable;
+
+import java.io.Serializable;
+
+/**
+ * Profile basics of a user that change rarely and are needed on every page of the SPA.
+ * <p>
+ * Serializable because it is part of the session principal.
+ * </p>
+ *
+ * @param username  the unique username
+ * @param firstName the first name, may be {@code null}
+ * @param lastName  the last name, may be {@code null}
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see ProfilePrincipal
+ * @see UserProfileChanged
+ */
+public record UserProfile(
+		String username,
+		@Nullable String firstName,
+		@Nullable String lastName
+) implements Serializable {
+}
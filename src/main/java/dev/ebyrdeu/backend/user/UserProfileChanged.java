@@ -0,0 +1,23 @@
+package dev.ebyrdeu.backend.user;
+
+/**
+ * Application event published whenever the public profile of a user changes, i.e. the {@link UserProfile}
+ * or any other field exposed by the profile endpoint such as the about-me text.
+ * <p>
+ * Listeners use it to refresh principals and drop anything they keep in memory for the user,
+ * under both the previous and the new username and names.
+ * </p>
+ *
+ * @param email    the email of the user whose profile changed
+ * @param previous the profile before the change
+ * @param profile  the profile after the change
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see ProfilePrincipal
+ */
+public record UserProfileChanged(
+		String email,
+		UserProfile previous,
+		UserProfile profile
+) {
+}
@@ -0,0 +1,68 @@
+package dev.ebyrdeu.backend.user;
+
+import java.util.Collection;
+
+/**
+ * The roles a user can hold, with their ids in {@code roles}.
+ * <p>
+ * Each role also owns one bit of a role bitmask, derived from its id rather than from the declaration order, so
+ * masks kept outside this module (e.g. in sessions) keep their meaning when roles are reordered or added.
+ * </p>
+ * <p>
+ * Database schema: src/main/resources/db/changelog/table/roles/db.changelog-roles-1.0.xml
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see UserRoles#mask()
+ */
+public enum UserRole {
+	USER(1),
+	VENDOR(2),
+	ADMIN(3);
+
+	private final int id;
+
+	UserRole(int id) {
+		this.id = id;
+	}
+
+	/**
+	 * @return the id of the role in {@code roles}
+	 */
+	public int id() {
+		return id;
+	}
+
+	/**
+	 * @return the bit of the role in a role bitmask, {@code 1 << (id - 1)}
+	 */
+	public int bit() {
+		return 1 << (id - 1);
+	}
+
+	/**
+	 * @param roleNames role names as stored in the database (e.g. "USER", "ADMIN"); unknown names are ignored
+	 * @return the bitmask of the given roles
+	 */
+	public static int maskOf(Collection<String> roleNames) {
+		int mask = 0;
+		for (String roleName : roleNames) {
+			mask |= bitOf(roleName);
+		}
+		return mask;
+	}
+
+	/**
+	 * @param roleName a role name as stored in the database (e.g. "USER")
+	 * @return the bit of the role, or {@code 0} if no role has the given name
+	 */
+	public static int bitOf(String roleName) {
+		for (UserRole role : values()) {
+			if (role.name().equals(roleName)) {
+				return role.bit();
+			}
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,32 @@
+package dev.ebyrdeu.backend.user;
+
+import java.util.List;
+
+/**
+ * Snapshot of a user's roles together with the role version they were read at.
+ * <p>
+ * The version is bumped every time {@code user_role} changes for the user, so two snapshots with the same
+ * version always carry the same roles. A version of {@code -1} means no user exists for the lookup key.
+ * </p>
+ *
+ * @param version the value of {@code users.role_version} when the roles were read
+ * @param roles   the role names (e.g. "USER", "ADMIN")
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see UserRolesChanged
+ */
+public record UserRoles(
+		long version,
+		List<String> roles
+) {
+	public UserRoles {
+		roles = List.copyOf(roles);
+	}
+
+	/**
+	 * @return the roles as a bitmask of {@link UserRole#bit()}s; unknown role names are ignored
+	 */
+	public int mask() {
+		return UserRole.maskOf(roles);
+	}
+}
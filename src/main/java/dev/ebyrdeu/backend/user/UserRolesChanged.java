@@ -0,0 +1,20 @@
+package dev.ebyrdeu.backend.user;
+
+/**
+ * Application event published whenever the rows of {@code user_role} change for a user.
+ * <p>
+ * Listeners use it to drop any role information they keep in memory for the given email
+ * and to remember the new role version, so sessions holding an older version get refreshed.
+ * </p>
+ *
+ * @param email       the email of the user whose roles changed
+ * @param roleVersion the role version after the change
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see UserRoles
+ */
+public record UserRolesChanged(
+		String email,
+		long roleVersion
+) {
+}
@@ -0,0 +1,21 @@
+package dev.ebyrdeu.backend.user.internal.dto;
+
+import dev.ebyrdeu.backend.common.dto.BaseResponseRawJsonDto;
+
+/**
+ * A profile response together with the entity tag of the profile version it was built from.
+ * <p>
+ * The tag travels with the body (both come from the same cache entry), so a client never receives a body
+ * under the tag of a different version.
+ * </p>
+ *
+ * @param etag     the opaque entity tag, unquoted
+ * @param response the profile envelope
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public record ProfileResponseDto(
+		String etag,
+		BaseResponseRawJsonDto response
+) {
+}
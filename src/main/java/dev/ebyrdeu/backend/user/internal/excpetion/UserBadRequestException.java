@@ -0,0 +1,12 @@
+package dev.ebyrdeu.backend.user.internal.excpetion;
+
+
+/**
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public class UserBadRequestException extends RuntimeException {
+	public UserBadRequestException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,12 @@
+package dev.ebyrdeu.backend.user.internal.excpetion;
+
+
+/**
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public class UserConflictException extends RuntimeException {
+	public UserConflictException(String message) {
+		super(message);
+	}
+}
@@ -34,4 +34,26 @@ class UserManagementExceptionHandler {
 				null
 		);
 	}
+
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	@ExceptionHandler(UserBadRequestException.class)
+	public BaseResponseDto<?> handleUserBadRequestException(UserBadRequestException exception) {
+		return new BaseResponseDto<>(
+				HttpStatus.BAD_REQUEST,
+				HttpStatus.BAD_REQUEST.value(),
+				exception.getMessage(),
+				null
+		);
+	}
+
+	@ResponseStatus(HttpStatus.CONFLICT)
+	@ExceptionHandler(UserConflictException.class)
+	public BaseResponseDto<?> handleUserConflictException(UserConflictException exception) {
+		return new BaseResponseDto<>(
+				HttpStatus.CONFLICT,
+				HttpStatus.CONFLICT.value(),
+				exception.getMessage(),
+				null
+		);
+	}
 }
@@ -1,30 +1,57 @@
 package dev.ebyrdeu.backend.user.internal.management;
 
 import dev.ebyrdeu.backend.common.dto.BaseResponseDto;
-import dev.ebyrdeu.backend.common.dto.BaseResponseJsonDto;
+import dev.ebyrdeu.backend.common.dto.BaseResponseRawJsonDto;
+import dev.ebyrdeu.backend.common.dto.KeysetPage;
+import dev.ebyrdeu.backend.common.entity.Tsid;
+import dev.ebyrdeu.backend.common.util.KeysetCursor;
 import dev.ebyrdeu.backend.common.util.Utils;
+import dev.ebyrdeu.backend.user.ProfilePrincipal;
+import dev.ebyrdeu.backend.user.UserAccount;
 import dev.ebyrdeu.backend.user.UserExternalApi;
 import dev.ebyrdeu.backend.user.UserInternalApi;
+import dev.ebyrdeu.backend.user.UserProfile;
+import dev.ebyrdeu.backend.user.UserProfileChanged;
+import dev.ebyrdeu.backend.user.UserRole;
+import dev.ebyrdeu.backend.user.UserRoles;
+import dev.ebyrdeu.backend.user.UserRolesChanged;
 import dev.ebyrdeu.backend.user.internal.dto.AuthResponseDto;
 import dev.ebyrdeu.backend.user.internal.dto.AuthUserDto;
+import dev.ebyrdeu.backend.user.internal.dto.ProfileResponseDto;
 import dev.ebyrdeu.backend.user.internal.dto.UserInfoReqDto;
+import dev.ebyrdeu.backend.user.internal.excpetion.UserBadRequestException;
+import dev.ebyrdeu.backend.user.internal.excpetion.UserConflictException;
 import dev.ebyrdeu.backend.user.internal.excpetion.UserInternalServerErrorException;
 import dev.ebyrdeu.backend.user.internal.excpetion.UserNotFoundException;
-import dev.ebyrdeu.backend.user.internal.mapper.UsernameMapper;
-import dev.ebyrdeu.backend.user.internal.model.User;
 import dev.ebyrdeu.backend.user.internal.projection.UserMinimalInfoProjection;
+import dev.ebyrdeu.backend.user.internal.projection.UserPatchedProjection;
+import dev.ebyrdeu.backend.user.internal.projection.UserProvisionProjection;
+import dev.ebyrdeu.backend.user.internal.projection.UserRoleProjection;
 import dev.ebyrdeu.backend.user.internal.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * @author Maxim Knhykin
@@ -35,15 +62,26 @@ class UserManagement implements UserInternalApi, UserExternalApi {
 	private static final Logger log = LoggerFactory.getLogger(UserManagement.class);
 	private final Utils utils;
 	private final UserRepository userRepository;
-
-	public UserManagement(UserRepository userRepository, Utils utils) {
+	private final ApplicationEventPublisher events;
+	private final UserProfileCache profileCache;
+	private final UserSearchPrefixCache searchPrefixCache;
+
+	public UserManagement(
+			UserRepository userRepository,
+			Utils utils,
+			ApplicationEventPublisher events,
+			UserProfileCache profileCache,
+			UserSearchPrefixCache searchPrefixCache
+	) {
 		this.userRepository = userRepository;
 		this.utils = utils;
+		this.events = events;
+		this.profileCache = profileCache;
+		this.searchPrefixCache = searchPrefixCache;
 	}
 
 
 	@Override
-	@Transactional(readOnly = true)
 	public BaseResponseDto<AuthResponseDto> getAuth(Authentication authentication) {
 		log.debug("[UserManagement/getAuth]:: Execution started.");
 		try {
@@ -64,20 +102,19 @@ class UserManagement implements UserInternalApi, UserExternalApi {
 					.stream()
 					.map(GrantedAuthority::getAuthority)
 					.map(role -> role.substring(5))
+					.sorted()
 					.toList();
 
-			UserMinimalInfoProjection res = this.userRepository
-					.findOneByEmailWithMinimalInfo(email)
-					.orElseThrow(
-							() -> new UserNotFoundException("User with Email " + email + " not found")
-					);
+			UserProfile res = oidcUser instanceof ProfilePrincipal principal && principal.getProfile() != null
+					? principal.getProfile()
+					: findProfileByEmail(email);
 
 			log.debug("[UserManagement/getAuth]:: User found. Email: {}", email);
 
 			AuthUserDto data = new AuthUserDto(
-					res.getFirstName(),
-					res.getLastName(),
-					res.getUsername(),
+					res.firstName(),
+					res.lastName(),
+					res.username(),
 					oidcUser.getPicture(),
 					roles
 			);
@@ -100,13 +137,38 @@ class UserManagement implements UserInternalApi, UserExternalApi {
 		}
 	}
 
+	/**
+	 * Fallback for principals that carry no profile, e.g. sessions created before profiles were kept in the principal.
+	 */
+	private UserProfile findProfileByEmail(String email) {
+		UserMinimalInfoProjection res = this.userRepository
+				.findOneByEmailWithMinimalInfo(email)
+				.orElseThrow(
+						() -> new UserNotFoundException("User with Email " + email + " not found")
+				);
+
+		return new UserProfile(res.username(), res.firstName(), res.lastName());
+	}
+
 	@Override
 	@Transactional(readOnly = true)
-	public BaseResponseDto<List<UserMinimalInfoProjection>> findAll() {
-		log.debug("[UserManagement/findAll]:: Execution started.");
+	public BaseResponseDto<KeysetPage<UserMinimalInfoProjection>> findAll(@Nullable String cursor, int size) {
+		log.debug("[UserManagement/findAll]:: Execution started. Cursor: {} | Size: {}", cursor, size);
 		try {
-			List<UserMinimalInfoProjection> data = this.userRepository.findAllWithMinimalInfo();
-			log.debug("[UserManagement/findAll]:: Found {} user records", data.size());
+			if (size < 1) {
+				throw new UserBadRequestException("Page size must be positive");
+			}
+
+			int pageSize = Math.min(size, MAX_PAGE_SIZE);
+			String after = cursor == null ? "" : decodeUsernameCursor(cursor);
+
+			List<UserMinimalInfoProjection> rows = this.userRepository.findPageWithMinimalInfo(after, pageSize + 1);
+			KeysetPage<UserMinimalInfoProjection> data = KeysetPage.of(
+					rows,
+					pageSize,
+					last -> KeysetCursor.encode(last.username())
+			);
+			log.debug("[UserManagement/findAll]:: Found {} user records", data.items().size());
 
 			return new BaseResponseDto<>(
 					HttpStatus.OK,
@@ -114,6 +176,9 @@ class UserManagement implements UserInternalApi, UserExternalApi {
 					"Users retrieved successfully",
 					data
 			);
+		} catch (UserBadRequestException ex) {
+			log.error("[UserManagement/findAll]:: Invalid page request. Message: {}", ex.getMessage());
+			throw ex;
 		} catch (RuntimeException ex) {
 			log.error("[UserManagement/findAll]:: Database error. Message: {}", ex.getMessage());
 			throw new UserInternalServerErrorException("Failed to retrieve users due to an unexpected error");
@@ -122,25 +187,124 @@ class UserManagement implements UserInternalApi, UserExternalApi {
 		}
 	}
 
+	private static String decodeUsernameCursor(String cursor) {
+		try {
+			return KeysetCursor.decode(cursor, 1)[0];
+		} catch (IllegalArgumentException ex) {
+			throw new UserBadRequestException("Malformed cursor: " + cursor);
+		}
+	}
+
 	@Override
-	@Transactional(readOnly = true)
-	public BaseResponseJsonDto findOneByUsername(String username) {
-		log.debug("[UserManagement/findOneById]:: Execution started. ID: {}", username);
+	public BaseResponseRawJsonDto findManyByUsernames(List<String> usernames) {
+		log.debug("[UserManagement/findManyByUsernames]:: Execution started. Requested: {}", usernames.size());
 		try {
-			String data = this.userRepository
-					.findOneByUsernameWithImages(username)
-					.orElseThrow(
-							() -> new UserNotFoundException("User with ID " + username + " not found")
-					);
+			Set<String> distinct = new LinkedHashSet<>();
+			for (String username : usernames) {
+				if (username != null && !username.isBlank()) {
+					distinct.add(username.trim());
+				}
+			}
 
-			log.debug("[UserManagement/findOneById]:: Found user. ID: {}", username);
+			if (distinct.isEmpty()) {
+				throw new UserBadRequestException("At least one username is required");
+			}
+			if (distinct.size() > MAX_BATCH_SIZE) {
+				throw new UserBadRequestException("At most " + MAX_BATCH_SIZE + " usernames are allowed");
+			}
+
+			String data = this.userRepository.findManyWithMinimalInfoAsJson(List.copyOf(distinct));
+			log.trace("[UserManagement/findManyByUsernames]:: Looked up {} usernames", distinct.size());
 
-			return new BaseResponseJsonDto(
+			return new BaseResponseRawJsonDto(
 					HttpStatus.OK,
 					HttpStatus.OK.value(),
-					"User retrieved successfully",
+					"Users retrieved successfully",
+					data.getBytes(StandardCharsets.UTF_8)
+			);
+		} catch (UserBadRequestException ex) {
+			log.error("[UserManagement/findManyByUsernames]:: Invalid batch request. Message: {}", ex.getMessage());
+			throw ex;
+		} catch (RuntimeException ex) {
+			log.error("[UserManagement/findManyByUsernames]:: Database error. Message: {}", ex.getMessage());
+			throw new UserInternalServerErrorException("Failed to retrieve users due to an unexpected error");
+		} finally {
+			log.debug("[UserManagement/findManyByUsernames]:: Execution completed.");
+		}
+	}
+
+	@Override
+	public BaseResponseDto<List<UserMinimalInfoProjection>> search(String query, int limit) {
+		log.debug("[UserManagement/search]:: Execution started. Query: {} | Limit: {}", query, limit);
+		try {
+			String term = query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+
+			if (term.isEmpty()) {
+				throw new UserBadRequestException("Search query must not be blank");
+			}
+			if (limit < 1) {
+				throw new UserBadRequestException("Search limit must be positive");
+			}
+
+			List<UserMinimalInfoProjection> data = this.searchPrefixCache.search(term, Math.min(limit, MAX_SEARCH_LIMIT));
+			log.debug("[UserManagement/search]:: Found {} user records", data.size());
+
+			return new BaseResponseDto<>(
+					HttpStatus.OK,
+					HttpStatus.OK.value(),
+					"Users retrieved successfully",
 					data
 			);
+		} catch (UserBadRequestException ex) {
+			log.error("[UserManagement/search]:: Invalid search request. Message: {}", ex.getMessage());
+			throw ex;
+		} catch (RuntimeException ex) {
+			log.error("[UserManagement/search]:: Database error. Message: {}", ex.getMessage());
+			throw new UserInternalServerErrorException("Failed to search users due to an unexpected error");
+		} finally {
+			log.debug("[UserManagement/search]:: Execution completed.");
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void exportAll(Consumer<UserMinimalInfoProjection> consumer) {
+		log.debug("[UserManagement/exportAll]:: Execution started.");
+		try (Stream<UserMinimalInfoProjection> rows = this.userRepository.streamAllWithMinimalInfo()) {
+			rows.forEach(consumer);
+		} catch (RuntimeException ex) {
+			log.error("[UserManagement/exportAll]:: Export failed. Message: {}", ex.getMessage());
+			throw new UserInternalServerErrorException("Failed to export users due to an unexpected error");
+		} finally {
+			log.debug("[UserManagement/exportAll]:: Execution completed.");
+		}
+	}
+
+	/**
+	 * Served from {@link UserProfileCache}; only a miss runs the aggregation query, so this method is not
+	 * transactional and a hit does not borrow a connection.
+	 */
+	@Override
+	public ProfileResponseDto findOneByUsername(String username) {
+		log.debug("[UserManagement/findOneById]:: Execution started. ID: {}", username);
+		try {
+			UserProfileCache.Entry profile = this.profileCache.get(username, this::loadProfile);
+
+			if (profile == null) {
+				throw new UserNotFoundException("User with ID " + username + " not found");
+			}
+
+			log.debug("[UserManagement/findOneById]:: Found user. ID: {}", username);
+
+			return new ProfileResponseDto(
+					profile.etag(),
+					new BaseResponseRawJsonDto(
+							HttpStatus.OK,
+							HttpStatus.OK.value(),
+							"User retrieved successfully",
+							profile.json()
+					)
+			);
 		} catch (UserNotFoundException ex) {
 			log.error("[UserManagement/findOneById]:: Lookup failed. ID: {} | Message: {}", username, ex.getMessage());
 			throw ex;
@@ -152,31 +316,86 @@ class UserManagement implements UserInternalApi, UserExternalApi {
 		}
 	}
 
+	/**
+	 * Reads the version before the JSON, see {@link UserProfileCache.Entry}.
+	 */
+	@Nullable
+	private UserProfileCache.Entry loadProfile(String username) {
+		String version = this.userRepository.findProfileVersionByUsername(username).orElse(null);
+		if (version == null) {
+			return null;
+		}
+
+		return this.userRepository
+				.findOneByUsernameWithImages(username)
+				.map(json -> new UserProfileCache.Entry(toETag(version), json.getBytes(StandardCharsets.UTF_8)))
+				.orElse(null);
+	}
+
+	@Override
+	public String findProfileETag(String username) {
+		log.debug("[UserManagement/findProfileETag]:: Execution started. Username: {}", username);
+		try {
+			String version = this.userRepository
+					.findProfileVersionByUsername(username)
+					.orElseThrow(
+							() -> new UserNotFoundException("User with ID " + username + " not found")
+					);
+
+			return toETag(version);
+		} catch (UserNotFoundException ex) {
+			log.error("[UserManagement/findProfileETag]:: Lookup failed. Username: {} | Message: {}", username, ex.getMessage());
+			throw ex;
+		} catch (RuntimeException ex) {
+			log.error("[UserManagement/findProfileETag]:: Database error. Message: {}", ex.getMessage());
+			throw new UserInternalServerErrorException("Failed to retrieve user due to an unexpected error");
+		} finally {
+			log.debug("[UserManagement/findProfileETag]:: Execution completed.");
+		}
+	}
+
+	/**
+	 * Hashes the version so the tag does not expose ids or timestamps.
+	 */
+	private static String toETag(String version) {
+		return DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8));
+	}
+
 	@Override
 	@Transactional
 	public BaseResponseDto<UserInfoReqDto> patchUserInfo(String username, UserInfoReqDto req) {
 		log.debug("[UserManagement/patchUsername]:: Execution started. Username: {}", username);
 		try {
-			User retrievedUser = this.userRepository
-					.findOneByUsername(username)
+			AtomicReference<String> newUsername = new AtomicReference<>();
+			AtomicReference<String> aboutMe = new AtomicReference<>();
+			this.utils.isStringPatchable(req.username(), newUsername::set, true);
+			this.utils.isStringPatchable(req.aboutMe(), aboutMe::set);
+
+			UserPatchedProjection updatedUser = this.userRepository
+					.patchInfo(username, newUsername.get(), aboutMe.get())
 					.orElseThrow(
 							() -> new UserNotFoundException("User with Username " + username + " not found")
 					);
-
-			log.debug("[UserManagement/patchUsername]:: Retrieved user. Username: {}", username);
-
-			this.utils.isStringPatchable(req.username(), retrievedUser::setUsername, true);
-			this.utils.isStringPatchable(req.aboutMe(), retrievedUser::setAboutMe);
-
-			User updatedUser = this.userRepository.save(retrievedUser);
-			log.trace("[UserManagement/patchUsername]:: Updated username: {}", updatedUser.getUsername());
+			log.trace("[UserManagement/patchUsername]:: Updated username: {}", updatedUser.username());
+
+			if (updatedUser.changed()) {
+				// the patch never touches the names, so they are the same before and after
+				this.events.publishEvent(new UserProfileChanged(
+						updatedUser.email(),
+						new UserProfile(username, updatedUser.firstName(), updatedUser.lastName()),
+						new UserProfile(updatedUser.username(), updatedUser.firstName(), updatedUser.lastName())
+				));
+			}
 
 			return new BaseResponseDto<>(
 					HttpStatus.OK,
 					HttpStatus.OK.value(),
 					"User patched successfully",
-					UsernameMapper.map(updatedUser)
+					new UserInfoReqDto(updatedUser.username(), updatedUser.aboutMe())
 			);
+		} catch (DuplicateKeyException ex) {
+			log.error("[UserManagement/patchUsername]:: Username taken. Username: {} | Message: {}", username, ex.getMessage());
+			throw new UserConflictException("Username " + req.username().trim() + " is already taken");
 		} catch (UserNotFoundException ex) {
 			log.error("[UserManagement/patchUsername]:: Update failed. Username: {} | Message: {}", username, ex.getMessage());
 			throw ex;
@@ -190,42 +409,57 @@ class UserManagement implements UserInternalApi, UserExternalApi {
 
 	@Override
 	@Transactional(readOnly = true)
-	public List<String> findUserRolesByEmail(String email) {
-		log.debug("[UserManagement/findUserRolesByEmail]:: Execution started. Email: {}", email);
+	public UserRoles findUserRoles(String email) {
+		log.debug("[UserManagement/findUserRoles]:: Execution started. Email: {}", email);
 		try {
-			List<String> data = this.userRepository.findRolesByEmail(email);
-			log.trace("[UserManagement/findUserRolesByEmail]:: Roles found: {}", data);
+			UserRoles data = toUserRoles(this.userRepository.findRolesWithVersionByEmail(email));
+			log.trace("[UserManagement/findUserRoles]:: Roles found: {}", data);
 			return data;
 		} catch (RuntimeException ex) {
-			log.error("[UserManagement/findUserRolesByEmail]:: Role lookup failed. Message: {}", ex.getMessage());
+			log.error("[UserManagement/findUserRoles]:: Role lookup failed. Message: {}", ex.getMessage());
 			throw new UserInternalServerErrorException("Failed to retrieve user roles due to an unexpected error");
 		} finally {
-			log.debug("[UserManagement/findUserRolesByEmail]:: Execution completed.");
+			log.debug("[UserManagement/findUserRoles]:: Execution completed.");
 		}
 	}
 
 	@Override
 	@Transactional
-	public void createOrGetOidcUser(OidcUser oidcUser) {
+	public UserAccount createOrGetOidcUser(OidcUser oidcUser) {
 		log.debug("[UserManagement/createOrGetOidcUser]:: Execution started.");
 		try {
-			log.debug("[UserManagement/createOrGetOidcUser]:: Checking existing user for email: {}", oidcUser.getEmail());
-			if (this.userRepository.findOneByEmail(oidcUser.getEmail()).isPresent()) {
-				return;
+			String email = oidcUser.getEmail();
+			log.debug("[UserManagement/createOrGetOidcUser]:: Provisioning user for email: {}", email);
+
+			List<UserProvisionProjection> rows = provisionOidcUser(oidcUser);
+
+			if (rows.isEmpty()) {
+				log.debug("[UserManagement/createOrGetOidcUser]:: User created concurrently, re-reading user: {}", email);
+				rows = provisionOidcUser(oidcUser);
 			}
 
-			User user = new User();
-			user.setEmail(oidcUser.getEmail());
-			user.setFirstName(oidcUser.getGivenName());
-			user.setLastName(oidcUser.getFamilyName());
-			user.setUsername(oidcUser.getSubject());
+			if (rows.isEmpty()) {
+				throw new UserConflictException("User with Email " + email + " changed while signing in, please try again");
+			}
 
-			log.debug("[UserManagement/createOrGetOidcUser]:: Creating new user: {}", user.getEmail());
-			User createdUser = this.userRepository.save(user);
+			UserProvisionProjection first = rows.getFirst();
+			UserAccount data = new UserAccount(
+					toUserRoles(rows),
+					new UserProfile(first.getUsername(), first.getFirstName(), first.getLastName())
+			);
 
-			log.debug("[UserManagement/createOrGetOidcUser]:: Assigning default role to user: {}", createdUser.getId());
-			this.userRepository.addSingleRole(createdUser.getId(), Role.USER.getRoleId());
+			if (Boolean.TRUE.equals(first.getProvisioned())) {
+				log.debug("[UserManagement/createOrGetOidcUser]:: Created new user with default role: {}", email);
+				this.events.publishEvent(new UserRolesChanged(email, data.roles().version()));
+			}
 
+			return data;
+		} catch (DataIntegrityViolationException ex) {
+			log.error("[UserManagement/createOrGetOidcUser]:: Username taken. Username: {} | Message: {}", oidcUser.getSubject(), ex.getMessage());
+			throw new UserConflictException("Username " + oidcUser.getSubject() + " is already taken by another account");
+		} catch (UserConflictException ex) {
+			log.error("[UserManagement/createOrGetOidcUser]:: User provisioning failed. Message: {}", ex.getMessage());
+			throw ex;
 		} catch (RuntimeException ex) {
 			log.error("[UserManagement/createOrGetOidcUser]:: User creation failed. Message: {}", ex.getMessage());
 			throw new UserInternalServerErrorException("Failed to create OIDC user due to an unexpected error");
@@ -234,24 +468,31 @@ class UserManagement implements UserInternalApi, UserExternalApi {
 		}
 	}
 
+	private List<UserProvisionProjection> provisionOidcUser(OidcUser oidcUser) {
+		return this.userRepository.provisionOidcUser(
+				Tsid.next(),
+				oidcUser.getEmail(),
+				oidcUser.getGivenName(),
+				oidcUser.getFamilyName(),
+				oidcUser.getSubject(),
+				(long) UserRole.USER.id()
+		);
+	}
+
 	/**
-	 * Value set in that way because we generate roles in exact this order and just check their id
-	 * <p>
-	 * Database schema: src/main/resources/db/changelog/table/user_role/db.changelog.user_role-1.0.xml
+	 * Collapses one-row-per-role results into a {@link UserRoles}; no rows means no user (version {@code -1}).
 	 */
-	private enum Role {
-		USER(1L),
-		VENDOR(2L),
-		ADMIN(3L);
-
-		private final Long roleId;
-
-		Role(Long roleId) {
-			this.roleId = roleId;
+	private static UserRoles toUserRoles(List<? extends UserRoleProjection> rows) {
+		if (rows.isEmpty()) {
+			return new UserRoles(-1L, List.of());
 		}
 
-		public Long getRoleId() {
-			return roleId;
-		}
+		return new UserRoles(
+				rows.getFirst().getVersion(),
+				rows.stream()
+				    .map(UserRoleProjection::getRole)
+				    .filter(Objects::nonNull)
+				    .toList()
+		);
 	}
-}
\ No newline at end of file
+}
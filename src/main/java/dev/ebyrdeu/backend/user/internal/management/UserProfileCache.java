@@ -0,0 +1,109 @@
+package dev.ebyrdeu.backend.user.internal.management;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import dev.ebyrdeu.backend.image.ImagesChanged;
+import dev.ebyrdeu.backend.user.UserProfileChanged;
+import dev.ebyrdeu.backend.user.internal.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.function.Function;
+
+/**
+ * Bounded cache of the profile JSON built by {@link UserRepository#findOneByUsernameWithImages(String)},
+ * keyed by username and stored as UTF-8 bytes together with the entity tag of the profile version.
+ * <p>
+ * Profiles are read far more often than edited, so a hit saves the {@code json_agg} aggregation and the
+ * string decoding of its result. The cache is bounded by the total size of the payloads rather than by
+ * entry count, since a profile with many images is much larger than one without.
+ * </p>
+ * <p>
+ * Entries are dropped when a {@link UserProfileChanged} event is committed (under both the previous and the
+ * new username) and when an {@link ImagesChanged} event is committed for the owner. The TTL bounds staleness
+ * for changes made outside the app. Loads run inside the cache's compute, so an eviction that arrives while a
+ * load is in flight waits for it and then removes its result.
+ * </p>
+ * <p>
+ * Hit, miss and eviction counters are available through {@link #stats()} and are published to Micrometer
+ * under the {@code cache} meters with {@code cache=user.profiles}.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see UserProfileCacheProperties
+ */
+@Component
+class UserProfileCache {
+	private static final Logger log = LoggerFactory.getLogger(UserProfileCache.class);
+	private static final String CACHE_NAME = "user.profiles";
+
+	private final UserRepository userRepository;
+	private final Cache<String, Entry> cache;
+
+	public UserProfileCache(
+			UserRepository userRepository,
+			UserProfileCacheProperties properties,
+			MeterRegistry meterRegistry
+	) {
+		this.userRepository = userRepository;
+		this.cache = Caffeine.newBuilder()
+		                     .maximumWeight(properties.maximumSize().toBytes())
+		                     .weigher((String username, Entry entry) -> (username.length() + entry.etag().length()) * 2 + entry.json().length)
+		                     .expireAfterWrite(properties.timeToLive())
+		                     .recordStats()
+		                     .build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+	}
+
+	/**
+	 * Returns the cached profile for the given username, loading it with the given function on a miss.
+	 *
+	 * @param username the unique username
+	 * @param loader   loads the profile, returns {@code null} if no such user exists (not cached)
+	 * @return the cached profile, or {@code null} if no such user exists
+	 */
+	@Nullable
+	public Entry get(String username, Function<String, Entry> loader) {
+		return this.cache.get(username, loader);
+	}
+
+	public void invalidate(String username) {
+		log.debug("[UserProfileCache/invalidate]:: Dropping cached profile. Username: {}", username);
+		this.cache.invalidate(username);
+	}
+
+	public CacheStats stats() {
+		return this.cache.stats();
+	}
+
+	@TransactionalEventListener
+	void on(UserProfileChanged event) {
+		invalidate(event.previous().username());
+		invalidate(event.profile().username());
+	}
+
+	@TransactionalEventListener
+	void on(ImagesChanged event) {
+		this.userRepository
+				.findUsernameById(event.userId())
+				.ifPresent(this::invalidate);
+	}
+
+	/**
+	 * A cached profile. The tag must be read before the JSON when loading, so that a concurrent change can only
+	 * make the tag older than the JSON, which costs a spurious full response, and never the other way round.
+	 *
+	 * @param etag the entity tag of the profile version, unquoted
+	 * @param json the UTF-8 encoded profile JSON
+	 */
+	record Entry(String etag, byte[] json) {
+	}
+}
@@ -0,0 +1,25 @@
+package dev.ebyrdeu.backend.user.internal.management;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Tuning for {@link UserProfileCache}.
+ *
+ * @param maximumSize the maximum total size of the cached profile payloads (and their keys)
+ * @param timeToLive  how long a profile stays cached after being loaded, bounds staleness for changes made outside the app
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@ConfigurationProperties("app.user.profile-cache")
+record UserProfileCacheProperties(
+		@DefaultValue("16MB")
+		DataSize maximumSize,
+
+		@DefaultValue("10m")
+		Duration timeToLive
+) {
+}
@@ -0,0 +1,117 @@
+package dev.ebyrdeu.backend.user.internal.management;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.ebyrdeu.backend.user.UserInternalApi;
+import dev.ebyrdeu.backend.user.UserProfile;
+import dev.ebyrdeu.backend.user.UserProfileChanged;
+import dev.ebyrdeu.backend.user.internal.projection.UserMinimalInfoProjection;
+import dev.ebyrdeu.backend.user.internal.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * In-memory results of the shortest, most frequent typeahead terms.
+ * <p>
+ * Every search box starts with one, two and three letter terms, and those match the most rows and are the
+ * most expensive to rank. Their top {@value UserInternalApi#MAX_SEARCH_LIMIT} results are kept per term,
+ * so a smaller limit is served by cutting the cached list. Caffeine only admits terms that are asked for
+ * often enough, so the cache holds the hottest prefixes rather than every term ever typed.
+ * </p>
+ * <p>
+ * When a {@link UserProfileChanged} event is committed, only the terms the user can be found by are dropped:
+ * every substring of up to {@link UserSearchProperties#prefixMaxLength()} characters of the user's search text
+ * (see the {@code search_text} column) before and after the change. That covers the username prefixes of short
+ * terms and the substring matches of longer ones; results that only matched by similarity, and new users, show up
+ * once the TTL has passed. Published to Micrometer under the {@code cache} meters with
+ * {@code cache=user.search.prefixes}.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see UserSearchProperties
+ */
+@Component
+class UserSearchPrefixCache {
+	private static final String CACHE_NAME = "user.search.prefixes";
+
+	private final UserRepository userRepository;
+	private final Cache<String, List<UserMinimalInfoProjection>> cache;
+	private final int maxLength;
+	private final boolean enabled;
+
+	public UserSearchPrefixCache(
+			UserRepository userRepository,
+			UserSearchProperties properties,
+			MeterRegistry meterRegistry
+	) {
+		this.userRepository = userRepository;
+		this.enabled = properties.prefixCacheEnabled();
+		this.maxLength = properties.prefixMaxLength();
+		this.cache = Caffeine.newBuilder()
+		                     .maximumSize(properties.prefixCacheMaximumSize())
+		                     .expireAfterWrite(properties.prefixCacheTimeToLive())
+		                     .recordStats()
+		                     .build();
+
+		CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+	}
+
+	/**
+	 * Searches for the given term, from memory if the term is short enough.
+	 *
+	 * @param term  the lower-cased, trimmed search term
+	 * @param limit the maximum number of results, at most {@value UserInternalApi#MAX_SEARCH_LIMIT}
+	 * @return the best matches, best first
+	 */
+	public List<UserMinimalInfoProjection> search(String term, int limit) {
+		if (!this.enabled || term.length() > this.maxLength) {
+			return this.userRepository.searchWithMinimalInfo(term, limit);
+		}
+
+		List<UserMinimalInfoProjection> top = this.cache.get(
+				term,
+				key -> List.copyOf(this.userRepository.searchWithMinimalInfo(key, UserInternalApi.MAX_SEARCH_LIMIT))
+		);
+		return top.size() <= limit ? top : top.subList(0, limit);
+	}
+
+	public void invalidateAll() {
+		this.cache.invalidateAll();
+	}
+
+	@TransactionalEventListener
+	void on(UserProfileChanged event) {
+		Set<String> terms = new HashSet<>();
+		collectTerms(searchTextOf(event.previous()), terms);
+		collectTerms(searchTextOf(event.profile()), terms);
+
+		this.cache.invalidateAll(terms);
+	}
+
+	private void collectTerms(String searchText, Set<String> terms) {
+		for (int start = 0; start < searchText.length(); start++) {
+			int end = Math.min(searchText.length(), start + this.maxLength);
+			for (int length = start + 1; length <= end; length++) {
+				terms.add(searchText.substring(start, length));
+			}
+		}
+	}
+
+	/**
+	 * Same text as the generated {@code users.search_text} column.
+	 */
+	private static String searchTextOf(UserProfile profile) {
+		return (profile.username() + ' '
+				+ Objects.requireNonNullElse(profile.firstName(), "") + ' '
+				+ Objects.requireNonNullElse(profile.lastName(), "")).toLowerCase(Locale.ROOT);
+	}
+}
@@ -0,0 +1,32 @@
+package dev.ebyrdeu.backend.user.internal.management;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Tuning for {@link UserSearchPrefixCache}.
+ *
+ * @param prefixCacheEnabled     whether results for short search terms are kept in memory
+ * @param prefixMaxLength        the longest search term kept in memory; longer ones always hit the trigram index
+ * @param prefixCacheMaximumSize the maximum number of search terms kept in memory
+ * @param prefixCacheTimeToLive  how long results stay cached, bounds how late new users show up
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+@ConfigurationProperties("app.user.search")
+record UserSearchProperties(
+		@DefaultValue("true")
+		boolean prefixCacheEnabled,
+
+		@DefaultValue("3")
+		int prefixMaxLength,
+
+		@DefaultValue("10000")
+		long prefixCacheMaximumSize,
+
+		@DefaultValue("1m")
+		Duration prefixCacheTimeToLive
+) {
+}
@@ -1,15 +1,27 @@
 package dev.ebyrdeu.backend.user.internal.projection;
 
+import org.springframework.lang.Nullable;
+
 /**
  * Shows {@code username} {@code first name} {@code last name}
+ * <p>
+ * An immutable record built directly from the result set, so listing users creates no per-row proxies
+ * and Jackson serialises plain record components.
+ * </p>
  *
+ * @param username  the unique username
+ * @param firstName the first name, if known
+ * @param lastName  the last name, if known
  * @author Maxim Khnykin
  * @version 1.0
  */
-public interface UserMinimalInfoProjection {
-	String getUsername();
+public record UserMinimalInfoProjection(
+		String username,
 
-	String getFirstName();
+		@Nullable
+		String firstName,
 
-	String getLastName();
+		@Nullable
+		String lastName
+) {
 }
@@ -0,0 +1,33 @@
+package dev.ebyrdeu.backend.user.internal.projection;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Shows the state of a user right after a patch, as returned by the {@code UPDATE ... RETURNING} statement.
+ *
+ * @param username  the username after the patch
+ * @param aboutMe   the 'about me' description after the patch
+ * @param email     the email, which a patch never changes
+ * @param firstName the first name, if known
+ * @param lastName  the last name, if known
+ * @param changed   whether the username or 'about me' description differs from before the patch
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public record UserPatchedProjection(
+		String username,
+
+		@Nullable
+		String aboutMe,
+
+		String email,
+
+		@Nullable
+		String firstName,
+
+		@Nullable
+		String lastName,
+
+		boolean changed
+) {
+}
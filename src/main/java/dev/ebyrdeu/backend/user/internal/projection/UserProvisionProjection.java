@@ -0,0 +1,19 @@
+package dev.ebyrdeu.backend.user.internal.projection;
+
+/**
+ * Shows {@code role version} and a single {@code role} of a user, one row per role,
+ * plus the user's {@code username}, {@code first name}, {@code last name}
+ * and whether the user was {@code provisioned} by the statement that produced the row
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public interface UserProvisionProjection extends UserRoleProjection {
+	Boolean getProvisioned();
+
+	String getUsername();
+
+	String getFirstName();
+
+	String getLastName();
+}
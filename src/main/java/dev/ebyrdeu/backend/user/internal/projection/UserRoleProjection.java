@@ -0,0 +1,13 @@
+package dev.ebyrdeu.backend.user.internal.projection;
+
+/**
+ * Shows {@code role version} and a single {@code role} of a user, one row per role
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+public interface UserRoleProjection {
+	Long getVersion();
+
+	String getRole();
+}
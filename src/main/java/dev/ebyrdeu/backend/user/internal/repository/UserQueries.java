@@ -0,0 +1,122 @@
+package dev.ebyrdeu.backend.user.internal.repository;
+
+import dev.ebyrdeu.backend.user.internal.projection.UserMinimalInfoProjection;
+import dev.ebyrdeu.backend.user.internal.projection.UserPatchedProjection;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Custom fragment of {@link UserRepository} for queries that are read far more often than anything else and
+ * only need a few columns.
+ * <p>
+ * They run over JDBC with a {@link org.springframework.jdbc.core.RowMapper} that builds
+ * {@link UserMinimalInfoProjection} records directly, instead of going through the persistence context and
+ * Spring Data's proxy-based interface projections.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see UserQueriesImpl
+ */
+public interface UserQueries {
+	/**
+	 * Rows per round trip when streaming users with {@link #streamAllWithMinimalInfo()}.
+	 */
+	int EXPORT_FETCH_SIZE = 500;
+
+	/**
+	 * Shortest search term served by the trigram index; shorter ones only match username prefixes.
+	 */
+	int TRIGRAM_MIN_LENGTH = 3;
+
+	/**
+	 * Retrieve one page of users with minimal information, ordered by username.
+	 * <p>
+	 * Keyset pagination: the page starts right after the given username and walks the unique index on
+	 * {@code users.username}, so the cost of a page does not depend on how many pages came before it.
+	 * Pass an empty string for the first page; usernames are never empty.
+	 * </p>
+	 *
+	 * @param after the username of the last user of the previous page, or {@code ""} for the first page.
+	 * @param limit the maximum number of rows to return.
+	 * @return a {@link List} of records, never null (empty list if no users).
+	 */
+	List<UserMinimalInfoProjection> findPageWithMinimalInfo(String after, int limit);
+
+	/**
+	 * Stream all users with minimal information, ordered by username.
+	 * <p>
+	 * Rows are fetched from a server-side cursor {@value #EXPORT_FETCH_SIZE} at a time instead of being read
+	 * into a list, so memory stays flat no matter how many users exist. PostgreSQL only honours the fetch size
+	 * inside a transaction; callers must consume and close the stream within a read-only transaction.
+	 * </p>
+	 *
+	 * @return a {@link Stream} of records, to be closed by the caller.
+	 */
+	Stream<UserMinimalInfoProjection> streamAllWithMinimalInfo();
+
+	/**
+	 * Retrieve minimal info for a single user by email.
+	 *
+	 * @param email the email address to search for (non-null).
+	 * @return an {@link Optional} containing the record, or empty if no match.
+	 */
+	Optional<UserMinimalInfoProjection> findOneByEmailWithMinimalInfo(String email);
+
+	/**
+	 * Retrieve minimal info for many users at once, as a single JSON document.
+	 * <p>
+	 * The document has the structure:
+	 * <pre>
+	 * {
+	 *   "users":   [ { "username": "...", "firstName": "...", "lastName": "..." }, ... ],
+	 *   "missing": [ "...", ... ]
+	 * }
+	 * </pre>
+	 * Both arrays follow the order of the given usernames. The usernames are unnested with their ordinal and
+	 * joined to {@code users} through the unique username index, so the whole batch is one statement and one
+	 * round trip.
+	 * </p>
+	 *
+	 * @param usernames the usernames to look up, without duplicates.
+	 * @return the JSON document, never null.
+	 */
+	String findManyWithMinimalInfoAsJson(List<String> usernames);
+
+	/**
+	 * Search users by username, first name and last name, best matches first.
+	 * <p>
+	 * Terms of {@value #TRIGRAM_MIN_LENGTH} characters or more match anywhere in the generated, lower-cased
+	 * {@code users.search_text} column, either as a substring or fuzzily by word similarity, both answered by
+	 * its {@code pg_trgm} GIN index. Username prefix matches rank first, then word similarity, then username.
+	 * Shorter terms cannot form a trigram, so they only match username prefixes, through the
+	 * {@code text_pattern_ops} index on {@code lower(username)}.
+	 * </p>
+	 *
+	 * @param term  the lower-cased, trimmed search term (non-empty).
+	 * @param limit the maximum number of rows to return.
+	 * @return a {@link List} of records, best match first, never null.
+	 */
+	List<UserMinimalInfoProjection> searchWithMinimalInfo(String term, int limit);
+
+	/**
+	 * Apply a patch to a user's username and 'about me' description in a single statement.
+	 * <p>
+	 * One {@code UPDATE ... RETURNING} round trip: the user is neither loaded nor tracked by the persistence
+	 * context. A {@code null} argument keeps the current value. {@code updated_at} is only bumped when a value
+	 * actually changes, so a no-op patch leaves the profile version (and its ETag) as it is, in line with no
+	 * {@code UserProfileChanged} being published. A username that is already taken is rejected by the unique
+	 * constraint on {@code users.username}.
+	 * </p>
+	 *
+	 * @param username    the current username of the user to patch.
+	 * @param newUsername the new username, or {@code null} to keep it.
+	 * @param aboutMe     the new 'about me' description, or {@code null} to keep it.
+	 * @return an {@link Optional} containing the patched state, or empty if no user has the given username.
+	 * @throws org.springframework.dao.DuplicateKeyException if the new username is taken by another user.
+	 */
+	Optional<UserPatchedProjection> patchInfo(String username, @Nullable String newUsername, @Nullable String aboutMe);
+}
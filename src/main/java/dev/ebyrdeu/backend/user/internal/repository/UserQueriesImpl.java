@@ -0,0 +1,197 @@
+package dev.ebyrdeu.backend.user.internal.repository;
+
+import dev.ebyrdeu.backend.user.internal.projection.UserMinimalInfoProjection;
+import dev.ebyrdeu.backend.user.internal.projection.UserPatchedProjection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.lang.Nullable;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * JDBC implementation of {@link UserQueries}, picked up by Spring Data as a fragment of {@link UserRepository}.
+ * <p>
+ * Connections are obtained through Spring's {@code DataSourceUtils}, so the queries join the surrounding JPA
+ * transaction when there is one; unlike JPA queries they do not flush pending entity changes first. Columns are
+ * read by index in the order of the select lists.
+ * </p>
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ */
+class UserQueriesImpl implements UserQueries {
+	static final RowMapper<UserMinimalInfoProjection> MINIMAL_INFO = (rs, rowNum) -> new UserMinimalInfoProjection(
+			rs.getString(1),
+			rs.getString(2),
+			rs.getString(3)
+	);
+
+	static final RowMapper<UserPatchedProjection> PATCHED = (rs, rowNum) -> new UserPatchedProjection(
+			rs.getString(1),
+			rs.getString(2),
+			rs.getString(3),
+			rs.getString(4),
+			rs.getString(5),
+			rs.getBoolean(6)
+	);
+
+	private final JdbcClient jdbcClient;
+	private final JdbcClient exportClient;
+
+	UserQueriesImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcClient = JdbcClient.create(jdbcTemplate);
+
+		JdbcTemplate exportTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+		exportTemplate.setFetchSize(EXPORT_FETCH_SIZE);
+		this.exportClient = JdbcClient.create(exportTemplate);
+	}
+
+	@Override
+	public List<UserMinimalInfoProjection> findPageWithMinimalInfo(String after, int limit) {
+		return this.jdbcClient
+				.sql("""
+						select u.username, u.first_name, u.last_name
+						from users u
+						where u.username > :after
+						order by u.username
+						limit :limit
+						""")
+				.param("after", after)
+				.param("limit", limit)
+				.query(MINIMAL_INFO)
+				.list();
+	}
+
+	@Override
+	public Stream<UserMinimalInfoProjection> streamAllWithMinimalInfo() {
+		return this.exportClient
+				.sql("""
+						select u.username, u.first_name, u.last_name
+						from users u
+						order by u.username
+						""")
+				.query(MINIMAL_INFO)
+				.stream();
+	}
+
+	@Override
+	public Optional<UserMinimalInfoProjection> findOneByEmailWithMinimalInfo(String email) {
+		return this.jdbcClient
+				.sql("""
+						select u.username, u.first_name, u.last_name
+						from users u
+						where u.email = :email
+						""")
+				.param("email", email)
+				.query(MINIMAL_INFO)
+				.optional();
+	}
+
+	@Override
+	public String findManyWithMinimalInfoAsJson(List<String> usernames) {
+		// an array, not a collection: a collection would be expanded into a list of placeholders
+		return this.jdbcClient
+				.sql("""
+						select json_build_object(
+						         'users', coalesce(
+						                    json_agg(
+						                      json_build_object(
+						                        'username',  u.username,
+						                        'firstName', u.first_name,
+						                        'lastName',  u.last_name
+						                      ) order by r.ord
+						                    ) filter (where u.id is not null),
+						                    '[]'::json
+						                  ),
+						         'missing', coalesce(
+						                      json_agg(r.username order by r.ord) filter (where u.id is null),
+						                      '[]'::json
+						                    )
+						       )::text
+						from unnest(cast(:usernames as text[])) with ordinality as r(username, ord)
+						left join users u
+						  on u.username = r.username
+						""")
+				.param("usernames", usernames.toArray(String[]::new))
+				.query(String.class)
+				.single();
+	}
+
+	@Override
+	public List<UserMinimalInfoProjection> searchWithMinimalInfo(String term, int limit) {
+		String prefix = escapeLike(term) + "%";
+
+		if (term.length() < TRIGRAM_MIN_LENGTH) {
+			return this.jdbcClient
+					.sql("""
+							select u.username, u.first_name, u.last_name
+							from users u
+							where lower(u.username) like :prefix
+							order by lower(u.username) using ~<~
+							limit :limit
+							""")
+					.param("prefix", prefix)
+					.param("limit", limit)
+					.query(MINIMAL_INFO)
+					.list();
+		}
+
+		return this.jdbcClient
+				.sql("""
+						select u.username, u.first_name, u.last_name
+						from users u
+						where u.search_text like :contains
+						   or :term <% u.search_text
+						order by
+						  lower(u.username) like :prefix desc,
+						  word_similarity(:term, u.search_text) desc,
+						  u.username
+						limit :limit
+						""")
+				.param("contains", "%" + prefix)
+				.param("term", term)
+				.param("prefix", prefix)
+				.param("limit", limit)
+				.query(MINIMAL_INFO)
+				.list();
+	}
+
+	@Override
+	public Optional<UserPatchedProjection> patchInfo(String username, @Nullable String newUsername, @Nullable String aboutMe) {
+		// the self-join exposes the row as it was before the update, to tell whether anything changed
+		return this.jdbcClient
+				.sql("""
+						update users u
+						set username   = coalesce(:newUsername, u.username),
+						    about_me   = coalesce(:aboutMe, u.about_me),
+						    updated_at = case
+						                   when (coalesce(:newUsername, u.username), coalesce(:aboutMe, u.about_me))
+						                        is distinct from (u.username, u.about_me)
+						                   then localtimestamp
+						                   else u.updated_at
+						                 end
+						from users previous
+						where u.username = :username
+						  and previous.id = u.id
+						returning u.username, u.about_me, u.email, u.first_name, u.last_name,
+						          u.username <> previous.username or u.about_me is distinct from previous.about_me
+						""")
+				.param("username", username)
+				.param("newUsername", newUsername, Types.VARCHAR)
+				.param("aboutMe", aboutMe, Types.VARCHAR)
+				.query(PATCHED)
+				.optional();
+	}
+
+	private static String escapeLike(String value) {
+		return value
+				.replace("\\", "\\\\")
+				.replace("%", "\\%")
+				.replace("_", "\\_");
+	}
+}
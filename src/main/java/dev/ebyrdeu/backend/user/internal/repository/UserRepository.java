@@ -1,7 +1,8 @@
 package dev.ebyrdeu.backend.user.internal.repository;
 
 import dev.ebyrdeu.backend.user.internal.model.User;
-import dev.ebyrdeu.backend.user.internal.projection.UserMinimalInfoProjection;
+import dev.ebyrdeu.backend.user.internal.projection.UserProvisionProjection;
+import dev.ebyrdeu.backend.user.internal.projection.UserRoleProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -15,14 +16,15 @@ import java.util.Optional;
  * Repository interface for managing {@link User} entities and fetching
  * user data in various shapes (full entity, minimal projection or JSON payload).
  * <p>
- * Extends {@link JpaRepository} to inherit standard CRUD-operations.
+ * Extends {@link JpaRepository} to inherit standard CRUD-operations and {@link UserQueries} for the
+ * read-heavy minimal-info queries, which map rows straight into records over JDBC.
  * Adds native queries for:
  * <ul>
  *   <li>Retrieving a full {@link User} by email.</li>
- *   <li>Fetching minimal user details (username, firstName, lastName) via a projection.</li>
  *   <li>Producing a JSON string payload containing user fields + associated images.</li>
- *   <li>Retrieving user roles.</li>
- *   <li>Linking a user to a role (inserting into {@code user_role}).</li>
+ *   <li>Retrieving user roles, optionally together with the user's role version.</li>
+ *   <li>Provisioning an OIDC user and reading back their roles in a single statement.</li>
+ *   <li>Linking a user to a role (inserting into {@code user_role} and bumping {@code users.role_version}).</li>
  * </ul>
  * <p>
  * Note: The JSON-generating query (PostgreSQL) uses {@code json_build_object},
@@ -33,54 +35,7 @@ import java.util.Optional;
  * @version 1.0
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-
-	/**
-	 * Find a {@link User} entity by its email address.
-	 *
-	 * @param email the email address to search for (non-null, unique).
-	 * @return an {@link Optional} containing the matching {@link User}, or empty if none found.
-	 */
-	@Query(
-			value = "select * from users u where u.email = :email",
-			nativeQuery = true
-	)
-	Optional<User> findOneByEmail(@Param("email") String email);
-
-
-	/**
-	 * Find a {@link User} entity by its email address.
-	 *
-	 * @param username the email address to search for (non-null, unique).
-	 * @return an {@link Optional} containing the matching {@link User}, or empty if none found.
-	 */
-	@Query(
-			value = "select * from users u where u.username = :username",
-			nativeQuery = true
-	)
-	Optional<User> findOneByUsername(@Param("username") String username);
-
-	/**
-	 * Retrieve all users with minimal information.
-	 * <p>
-	 * Returns only username, firstName and lastName wrapped in a
-	 * {@link UserMinimalInfoProjection}.
-	 * </p>
-	 *
-	 * @return a {@link List} of projections, never null (empty list if no users).
-	 */
-	@Query(
-			value = """
-					select
-					    u.username    as username,
-					    u.first_name  as firstName,
-					    u.last_name   as lastName
-					from users u
-					""",
-			nativeQuery = true
-	)
-	List<UserMinimalInfoProjection> findAllWithMinimalInfo();
-
+public interface UserRepository extends JpaRepository<User, Long>, UserQueries {
 	/**
 	 * Retrieve minimal info for a single user, together with their images, as a JSON string.
 	 * <p>
@@ -103,7 +58,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
 	 *   ]
 	 * }
 	 * </pre>
-	 * An empty array is returned if the user has no images.
+	 * An empty array is returned if the user has no images; otherwise images are in creation order.
 	 * <p>
 	 * Uses PostgreSQL’s {@code json_build_object}, {@code json_agg} and {@code FILTER}
 	 * to assemble the payload.
@@ -128,7 +83,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
 					                          'description', i.description,
 					                          'price',       i.price,
 					                          'imageUrl',    i.image_url
-					                        )
+					                        ) order by i.created_at, i.id
 					                      ) filter (where i.id is not null),
 					                      '[]'::json
 					                    )
@@ -149,52 +104,159 @@ public interface UserRepository extends JpaRepository<User, Long> {
 	Optional<String> findOneByUsernameWithImages(@Param("username") String username);
 
 	/**
-	 * Retrieve minimal info for a single user by email.
+	 * Retrieve the version of the profile returned by {@link #findOneByUsernameWithImages(String)}.
 	 * <p>
-	 * Returns a {@link UserMinimalInfoProjection} containing username,
-	 * firstName and lastName for the matching user.
+	 * The version combines the user id, {@code users.updated_at}, the newest {@code images.updated_at} and the
+	 * image count (so a deleted image changes it too). It is a cheap probe for conditional requests: the user is
+	 * found through the unique username index and the few images of the user are read through
+	 * {@code images_user_id_created_at}, without building any JSON.
 	 * </p>
 	 *
-	 * @param email the email address to search for (non-null).
-	 * @return an {@link Optional} containing the projection, or empty if no match.
+	 * @param username the unique username of the user (non-null).
+	 * @return an {@link Optional} containing the opaque version string, or empty if no user with the given username exists.
+	 */
+	@Query(
+			value = """
+					select concat_ws(
+					         ':',
+					         u.id,
+					         floor(extract(epoch from u.updated_at) * 1000000)::bigint,
+					         coalesce(floor(extract(epoch from max(i.updated_at)) * 1000000)::bigint, 0),
+					         count(i.user_id)
+					       ) as profile_version
+					from users u
+					left join images i
+					  on u.id = i.user_id
+					where u.username = :username
+					group by
+					  u.id,
+					  u.updated_at;
+					""",
+			nativeQuery = true
+	)
+	Optional<String> findProfileVersionByUsername(@Param("username") String username);
+
+	/**
+	 * Retrieve the username of a user by id.
+	 * <p>
+	 * Used to translate events keyed by user id (e.g. image changes) into the username
+	 * under which the profile is cached.
+	 * </p>
+	 *
+	 * @param id the user id (non-null).
+	 * @return an {@link Optional} containing the username, or empty if no match.
+	 */
+	@Query(
+			value = """
+					select u.username
+					from users u
+					where u.id = :id
+					""",
+			nativeQuery = true
+	)
+	Optional<String> findUsernameById(@Param("id") long id);
+
+	/**
+	 * Retrieve the role version and all role names of a user identified by email.
+	 * <p>
+	 * Returns one row per role, every row carrying the same {@code users.role_version}.
+	 * A user without roles yields a single row with a {@code null} role; an unknown email yields no rows.
+	 * </p>
+	 *
+	 * @param email the email address of the user (non-null).
+	 * @return a {@link List} of {@link UserRoleProjection}, empty if no user matches.
 	 */
 	@Query(
 			value = """
 					select
-					    u.username    as username,
-					    u.first_name  as firstName,
-					    u.last_name   as lastName
+					    u.role_version as version,
+					    r.role         as role
 					from users u
+					left join user_role ur on ur.user_id = u.id
+					left join roles r      on r.id = ur.role_id
 					where u.email = :email
+					order by r.id
 					""",
 			nativeQuery = true
 	)
-	Optional<UserMinimalInfoProjection> findOneByEmailWithMinimalInfo(@Param("email") String email);
+	List<UserRoleProjection> findRolesWithVersionByEmail(@Param("email") String email);
 
 	/**
-	 * Retrieve all role names associated with a user identified by email.
+	 * Create a user with the given default role unless one with the same email exists,
+	 * and return the user's role version, roles and profile basics, all in one round trip.
+	 * <p>
+	 * The insert uses {@code on conflict (email) do nothing} against the unique {@code users_email} index, so two
+	 * concurrent first logins never create the same user twice. Any other unique violation, such as a username
+	 * taken by a different user, still fails the statement. A new user starts at role version 1,
+	 * matching the single role granted here. Rows coming from the insert are marked {@code provisioned}.
+	 * </p>
 	 * <p>
-	 * Joins {@code users} → {@code user_role} → {@code roles}.
+	 * Note: every part of the statement reads the same snapshot. When a concurrent transaction commits the user
+	 * after this statement started, the insert is skipped and the user is not visible yet, so no rows come back;
+	 * callers should run the statement once more, which then reads the committed user.
 	 * </p>
 	 *
-	 * @param email the email address of the user (non-null).
-	 * @return a {@link List} of role names (e.g. "ROLE_ADMIN"), empty if none.
+	 * @param id        the id of the user if it is created, see {@link dev.ebyrdeu.backend.common.entity.Tsid}.
+	 * @param email     the email address of the user (non-null).
+	 * @param firstName the first name used when creating the user.
+	 * @param lastName  the last name used when creating the user.
+	 * @param username  the username used when creating the user (non-null).
+	 * @param roleId    the ID of the role granted to a new user (non-null).
+	 * @return a {@link List} of {@link UserProvisionProjection}, one row per role.
 	 */
 	@Query(
 			value = """
-					select r.role
-					from roles r
-					join user_role ur on r.id = ur.role_id
-					join users u     on u.id = ur.user_id
+					with inserted_user as (
+					    insert into users (id, username, first_name, last_name, email, role_version)
+					    values (:id, :username, :firstName, :lastName, :email, 1)
+					    on conflict (email) do nothing
+					    returning id, role_version, username, first_name, last_name
+					),
+					granted_role as (
+					    insert into user_role (user_id, role_id)
+					    select iu.id, :roleId
+					    from inserted_user iu
+					    returning user_id, role_id
+					)
+					select
+					    iu.role_version as version,
+					    r.role          as role,
+					    iu.username     as username,
+					    iu.first_name   as firstName,
+					    iu.last_name    as lastName,
+					    true            as provisioned
+					from inserted_user iu
+					join granted_role gr on gr.user_id = iu.id
+					join roles r         on r.id = gr.role_id
+					union all
+					select
+					    u.role_version as version,
+					    r.role         as role,
+					    u.username     as username,
+					    u.first_name   as firstName,
+					    u.last_name    as lastName,
+					    false          as provisioned
+					from users u
+					left join user_role ur on ur.user_id = u.id
+					left join roles r      on r.id = ur.role_id
 					where u.email = :email
 					""",
 			nativeQuery = true
 	)
-	List<String> findRolesByEmail(@Param("email") String email);
+	List<UserProvisionProjection> provisionOidcUser(
+			@Param("id") long id,
+			@Param("email") String email,
+			@Param("firstName") String firstName,
+			@Param("lastName") String lastName,
+			@Param("username") String username,
+			@Param("roleId") Long roleId
+	);
 
 	/**
 	 * Assign a single role to a user by inserting into {@code user_role}.
 	 * <p>
+	 * The insert and the bump of {@code users.role_version} run as one statement, so the version
+	 * can never lag behind the granted roles. Granting a role the user already has changes nothing.
 	 * Executes within a transaction; caller must handle transaction boundaries.
 	 * </p>
 	 *
@@ -204,8 +266,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
 	@Modifying
 	@Query(
 			value = """
-					insert into user_role (user_id, role_id)
-					values (:userId, :roleId)
+					with granted as (
+					    insert into user_role (user_id, role_id)
+					    values (:userId, :roleId)
+					    on conflict (user_id, role_id) do nothing
+					    returning user_id
+					)
+					update users
+					set role_version = role_version + 1
+					where id in (select user_id from granted)
 					""",
 			nativeQuery = true
 	)
@@ -1,19 +1,31 @@
 package dev.ebyrdeu.backend.user.internal.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.ebyrdeu.backend.common.dto.BaseResponseDto;
-import dev.ebyrdeu.backend.common.dto.BaseResponseJsonDto;
+import dev.ebyrdeu.backend.common.dto.BaseResponseRawJsonDto;
+import dev.ebyrdeu.backend.common.dto.KeysetPage;
 import dev.ebyrdeu.backend.common.util.JsonConverterAdapter;
 import dev.ebyrdeu.backend.user.UserInternalApi;
 import dev.ebyrdeu.backend.user.internal.dto.AuthResponseDto;
+import dev.ebyrdeu.backend.user.internal.dto.ProfileResponseDto;
 import dev.ebyrdeu.backend.user.internal.dto.UserInfoReqDto;
 import dev.ebyrdeu.backend.user.internal.projection.UserMinimalInfoProjection;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -23,10 +35,12 @@ class UserController {
 	private static final Logger log = LoggerFactory.getLogger(UserController.class);
 	private final UserInternalApi userInternalApi;
 	private final JsonConverterAdapter jsonConverter;
+	private final ObjectMapper objectMapper;
 
-	private UserController(UserInternalApi userInternalApi, JsonConverterAdapter jsonConverter) {
+	private UserController(UserInternalApi userInternalApi, JsonConverterAdapter jsonConverter, ObjectMapper objectMapper) {
 		this.userInternalApi = userInternalApi;
 		this.jsonConverter = jsonConverter;
+		this.objectMapper = objectMapper;
 	}
 
 	// TODO: Create ITests
@@ -36,31 +50,161 @@ class UserController {
 
 		BaseResponseDto<AuthResponseDto> response = this.userInternalApi.getAuth(authentication);
 
-		log.trace("[UserController/auth]:: Response data: {}", this.jsonConverter.valueOf(response.data()));
+		log.trace("[UserController/auth]:: Response data: {}", this.jsonConverter.lazyValueOf(response.data()));
 
 		return ResponseEntity.status(response.status()).body(response);
 	}
 
-	@GetMapping
-	public ResponseEntity<BaseResponseDto<List<UserMinimalInfoProjection>>> findAllWithMinimalInfo() {
-		log.debug("[UserController/findAll]:: Fetching all users.");
+	/**
+	 * Lists users one keyset page at a time. The body keeps {@code data} as a plain array;
+	 * the next page, if any, is advertised in a {@code Link: <...>; rel="next"} header.
+	 * <p>
+	 * The directory read, the batch lookup and the search share this path and are told apart by their parameters.
+	 * Each mapping excludes the parameters of the others, so a request combining them matches none and is
+	 * rejected with {@code 400 Bad Request} instead of being ambiguous.
+	 * </p>
+	 */
+	@GetMapping(params = {"!usernames", "!q"})
+	public ResponseEntity<BaseResponseDto<List<UserMinimalInfoProjection>>> findAllWithMinimalInfo(
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "20") int size
+	) {
+		log.debug("[UserController/findAll]:: Fetching users. Cursor: {} | Size: {}", cursor, size);
+
+		BaseResponseDto<KeysetPage<UserMinimalInfoProjection>> page = this.userInternalApi.findAll(cursor, size);
+		BaseResponseDto<List<UserMinimalInfoProjection>> response = new BaseResponseDto<>(
+				page.status(),
+				page.code(),
+				page.message(),
+				page.data().items()
+		);
+
+		log.trace("[UserController/findAll]:: Response data: {}", this.jsonConverter.lazyValueOf(response.data()));
+
+		ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.status());
+		String nextCursor = page.data().nextCursor();
+		if (nextCursor != null) {
+			String next = ServletUriComponentsBuilder
+					.fromCurrentRequest()
+					.replaceQueryParam("cursor", nextCursor)
+					.replaceQueryParam("size", Math.min(size, UserInternalApi.MAX_PAGE_SIZE))
+					.build()
+					.toUriString();
+			builder.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+		}
+
+		return builder.body(response);
+	}
+
+	/**
+	 * Looks up many users at once ({@code ?usernames=alice,bob}), so a view with many user cards needs one
+	 * request and one query instead of one per card.
+	 */
+	@GetMapping(params = {"usernames", "!q"})
+	public ResponseEntity<BaseResponseRawJsonDto> findManyByUsernames(@RequestParam List<String> usernames) {
+		log.debug("[UserController/findMany]:: Fetching {} users", usernames.size());
+
+		BaseResponseRawJsonDto response = this.userInternalApi.findManyByUsernames(usernames);
+
+		log.trace("[UserController/findMany]:: Response data: {}", this.jsonConverter.lazyRawValueOf(response.data()));
+
+		return ResponseEntity.status(response.status()).body(response);
+	}
+
+	/**
+	 * Typeahead search ({@code ?q=jo&limit=10}), best matches first.
+	 */
+	@GetMapping(params = {"q", "!usernames"})
+	public ResponseEntity<BaseResponseDto<List<UserMinimalInfoProjection>>> search(
+			@RequestParam("q") String query,
+			@RequestParam(defaultValue = "10") int limit
+	) {
+		log.debug("[UserController/search]:: Searching users. Query: {} | Limit: {}", query, limit);
 
-		BaseResponseDto<List<UserMinimalInfoProjection>> response = this.userInternalApi.findAll();
+		BaseResponseDto<List<UserMinimalInfoProjection>> response = this.userInternalApi.search(query, limit);
 
-		log.trace("[UserController/findAll]:: Response data: {}", this.jsonConverter.valueOf(response.data()));
+		log.trace("[UserController/search]:: Response data: {}", this.jsonConverter.lazyValueOf(response.data()));
 
 		return ResponseEntity.status(response.status()).body(response);
 	}
 
+	/**
+	 * Streams the whole user directory as a JSON array ({@code /export?format=json}) or NDJSON
+	 * ({@code /export?format=ndjson}). Rows are written through a {@link JsonGenerator} as they are read, so
+	 * nothing is buffered per user. The generator writes no separator of its own between root values, so NDJSON
+	 * lines are separated by the newline alone. The export has to finish within
+	 * {@code spring.mvc.async.request-timeout}.
+	 * <p>
+	 * Being an unbounded bulk read, the export has its own path so the security config can restrict it to admins.
+	 * </p>
+	 */
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> exportAll(@RequestParam(defaultValue = "json") String format) {
+		UserExportFormat exportFormat = UserExportFormat.of(format);
+		log.debug("[UserController/exportAll]:: Exporting users. Format: {}", exportFormat);
+
+		StreamingResponseBody body = out -> {
+			try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(out)) {
+				generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+				generator.setRootValueSeparator(null); // the default " " would start every NDJSON line but the first
+
+				if (exportFormat == UserExportFormat.JSON) {
+					generator.writeStartArray();
+				}
+
+				this.userInternalApi.exportAll(user -> writeUser(generator, user, exportFormat));
+
+				if (exportFormat == UserExportFormat.JSON) {
+					generator.writeEndArray();
+				}
+			}
+		};
+
+		return ResponseEntity.ok().contentType(exportFormat.getMediaType()).body(body);
+	}
+
+	private static void writeUser(JsonGenerator generator, UserMinimalInfoProjection user, UserExportFormat format) {
+		try {
+			generator.writeStartObject();
+			generator.writeStringField("username", user.username());
+			generator.writeStringField("firstName", user.firstName());
+			generator.writeStringField("lastName", user.lastName());
+			generator.writeEndObject();
+
+			if (format == UserExportFormat.NDJSON) {
+				generator.writeRaw('\n');
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Answers {@code If-None-Match} requests after a version probe only, with {@code 304 Not Modified} if the
+	 * client's tag is still current; the profile itself is only read when it has to be sent.
+	 */
 	@GetMapping("/{username}")
-	public ResponseEntity<BaseResponseJsonDto> findOneUserWithMinimalInfo(@PathVariable String username) {
+	public ResponseEntity<BaseResponseRawJsonDto> findOneUserWithMinimalInfo(
+			@PathVariable String username,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) @Nullable String ifNoneMatch
+	) {
 		log.debug("[UserController/findOne]:: Fetching user with Username: {}", username);
 
-		BaseResponseJsonDto response = this.userInternalApi.findOneByUsername(username);
+		if (ifNoneMatch != null) {
+			ETag current = ETag.create(this.userInternalApi.findProfileETag(username));
 
-		log.trace("[UserController/findOne]:: Username: {} | Response data: {}", username, this.jsonConverter.valueOf(response.data()));
+			if (ETag.parse(ifNoneMatch).stream().anyMatch(tag -> tag.isWildcard() || tag.compare(current, false))) {
+				log.trace("[UserController/findOne]:: Username: {} | Not modified: {}", username, current.formattedTag());
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current.formattedTag()).build();
+			}
+		}
 
-		return ResponseEntity.status(response.status()).body(response);
+		ProfileResponseDto profile = this.userInternalApi.findOneByUsername(username);
+		BaseResponseRawJsonDto response = profile.response();
+
+		log.trace("[UserController/findOne]:: Username: {} | Response data: {}", username, this.jsonConverter.lazyRawValueOf(response.data()));
+
+		return ResponseEntity.status(response.status()).eTag(profile.etag()).body(response);
 	}
 
 	@PatchMapping("/{username}")
@@ -70,13 +214,13 @@ class UserController {
 	) {
 		log.debug("[UserController/patch]:: Username: {}", username);
 
-		log.trace("[UserController/patch]:: Username: {} | Request body: {}", username, this.jsonConverter.valueOf(dto));
+		log.trace("[UserController/patch]:: Username: {} | Request body: {}", username, this.jsonConverter.lazyValueOf(dto));
 
 		BaseResponseDto<UserInfoReqDto> response = this.userInternalApi.patchUserInfo(username, dto);
 
 		log.debug("[UserController/patch]:: Username: {} | Response status: {}", username, response.status());
 
-		log.trace("[UserController/patch]:: Username: {} | Response data: {}", username, this.jsonConverter.valueOf(response.data()));
+		log.trace("[UserController/patch]:: Username: {} | Response data: {}", username, this.jsonConverter.lazyValueOf(response.data()));
 
 		return ResponseEntity.status(response.status()).body(response);
 	}
@@ -0,0 +1,42 @@
+package dev.ebyrdeu.backend.user.internal.web;
+
+import dev.ebyrdeu.backend.user.internal.excpetion.UserBadRequestException;
+import org.springframework.http.MediaType;
+
+/**
+ * Output formats of the streaming user export.
+ *
+ * @author Maxim Khnykin
+ * @version 1.0
+ * @see UserController
+ */
+enum UserExportFormat {
+	/**
+	 * A single JSON array of users.
+	 */
+	JSON(MediaType.APPLICATION_JSON),
+
+	/**
+	 * One JSON object per line, see <a href="https://github.com/ndjson/ndjson-spec">ndjson-spec</a>.
+	 */
+	NDJSON(MediaType.APPLICATION_NDJSON);
+
+	private final MediaType mediaType;
+
+	UserExportFormat(MediaType mediaType) {
+		this.mediaType = mediaType;
+	}
+
+	MediaType getMediaType() {
+		return mediaType;
+	}
+
+	static UserExportFormat of(String value) {
+		for (UserExportFormat format : values()) {
+			if (format.name().equalsIgnoreCase(value)) {
+				return format;
+			}
+		}
+		throw new UserBadRequestException("Unsupported export format: " + value);
+	}
+}
@@ -10,6 +10,7 @@
 				"common :: entity",
 				"common :: dto",
 				"common :: util",
+				"image",
 		}
 )
 package dev.ebyrdeu.backend.user;
\ No newline at end of file
@@ -0,0 +1,193 @@
+package dev.ebyrdeu.backend.common.entity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second when inserting 100k users in one transaction, replaying the JDBC calls Hibernate makes for
+ * {@link DefaultEntity} ids.
+ * <ul>
+ *   <li>{@code identity}: the id is generated by the insert, so every row is its own statement and round trip
+ *   ({@code GenerationType.IDENTITY}, batching disabled).</li>
+ *   <li>{@code pooledSequence}: one {@code nextval} per 50 ids (pooled-lo) and inserts sent in JDBC batches of
+ *   50 ({@code GenerationType.SEQUENCE} with {@code hibernate.jdbc.batch_size=50}).</li>
+ *   <li>{@code tsid}: ids assigned by {@link Tsid} without any round trip, inserts sent in JDBC batches of 50
+ *   (the current mapping).</li>
+ * </ul>
+ * <p>
+ * Needs Docker for the PostgreSQL container. Not part of the test suite (surefire only picks up {@code *Test}
+ * classes); after {@code mvn test-compile}, run {@link #main(String[])} from the IDE.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class IdGenerationInsertBenchmark {
+	private static final int ROWS = 100_000;
+	private static final int BATCH_SIZE = 50;
+
+	private PostgreSQLContainer<?> container;
+	private Connection connection;
+
+	@Setup
+	public void setup() throws SQLException {
+		this.container = new PostgreSQLContainer<>("postgres:17");
+		this.container.start();
+		this.connection = DriverManager.getConnection(
+				this.container.getJdbcUrl(),
+				this.container.getUsername(),
+				this.container.getPassword()
+		);
+
+		try (Statement statement = this.connection.createStatement()) {
+			statement.execute("""
+					create table identity_users (
+					  id         bigint generated by default as identity primary key,
+					  username   varchar(50) not null unique,
+					  email      varchar(100) not null unique,
+					  first_name varchar(50),
+					  last_name  varchar(50)
+					)
+					""");
+			statement.execute("""
+					create table pooled_users (
+					  id         bigint primary key,
+					  username   varchar(50) not null unique,
+					  email      varchar(100) not null unique,
+					  first_name varchar(50),
+					  last_name  varchar(50)
+					)
+					""");
+			statement.execute("create sequence pooled_users_id_seq increment by " + BATCH_SIZE);
+			statement.execute("create table tsid_users (like pooled_users including all)");
+		}
+		this.connection.setAutoCommit(false);
+	}
+
+	@Setup(Level.Invocation)
+	public void truncate() throws SQLException {
+		try (Statement statement = this.connection.createStatement()) {
+			statement.execute("truncate identity_users, pooled_users, tsid_users");
+		}
+		this.connection.commit();
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		this.connection.close();
+		this.container.stop();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public long identity() throws SQLException {
+		long last = 0;
+		try (PreparedStatement insert = this.connection.prepareStatement(
+				"insert into identity_users (username, email, first_name, last_name) values (?, ?, ?, ?)",
+				Statement.RETURN_GENERATED_KEYS
+		)) {
+			for (int i = 0; i < ROWS; i++) {
+				bind(insert, i);
+				insert.executeUpdate();
+				try (ResultSet keys = insert.getGeneratedKeys()) {
+					keys.next();
+					last = keys.getLong(1);
+				}
+			}
+		}
+		this.connection.commit();
+		return last;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public long pooledSequence() throws SQLException {
+		long next = 0;
+		long high = 0;
+		try (PreparedStatement sequence = this.connection.prepareStatement("select nextval('pooled_users_id_seq')");
+		     PreparedStatement insert = this.connection.prepareStatement(
+				     "insert into pooled_users (username, email, first_name, last_name, id) values (?, ?, ?, ?, ?)"
+		     )) {
+			for (int i = 0; i < ROWS; i++) {
+				if (next == high) {
+					try (ResultSet value = sequence.executeQuery()) {
+						value.next();
+						next = value.getLong(1);
+						high = next + BATCH_SIZE;
+					}
+				}
+				bind(insert, i);
+				insert.setLong(5, next++);
+				insert.addBatch();
+				if ((i + 1) % BATCH_SIZE == 0) {
+					insert.executeBatch();
+				}
+			}
+			insert.executeBatch();
+		}
+		this.connection.commit();
+		return next;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public long tsid() throws SQLException {
+		long last = 0;
+		try (PreparedStatement insert = this.connection.prepareStatement(
+				"insert into tsid_users (username, email, first_name, last_name, id) values (?, ?, ?, ?, ?)"
+		)) {
+			for (int i = 0; i < ROWS; i++) {
+				bind(insert, i);
+				last = Tsid.next();
+				insert.setLong(5, last);
+				insert.addBatch();
+				if ((i + 1) % BATCH_SIZE == 0) {
+					insert.executeBatch();
+				}
+			}
+			insert.executeBatch();
+		}
+		this.connection.commit();
+		return last;
+	}
+
+	private static void bind(PreparedStatement insert, int i) throws SQLException {
+		insert.setString(1, "user" + i);
+		insert.setString(2, "user" + i + "@email.com");
+		insert.setString(3, "First" + i);
+		insert.setString(4, "Last" + i);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				           .include(IdGenerationInsertBenchmark.class.getSimpleName())
+				           .build()
+		).run();
+	}
+}
@@ -0,0 +1,87 @@
+package dev.ebyrdeu.backend.common.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TSID Unit Tests")
+class TsidUTest {
+
+	@Test
+	@DisplayName("Should return strictly increasing ids")
+	void should_ReturnStrictlyIncreasingIds() {
+		// Given
+		long previous = Tsid.next();
+
+		// When / Then
+		for (int i = 0; i < 100_000; i++) {
+			long next = Tsid.next();
+			assertTrue(next > previous, "id " + next + " is not greater than " + previous);
+			previous = next;
+		}
+	}
+
+	@Test
+	@DisplayName("Should return unique ids across threads")
+	void should_ReturnUniqueIds_acrossThreads() {
+		// Given
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+
+		// When
+		IntStream.range(0, 200_000).parallel().forEach(i -> ids.add(Tsid.next()));
+
+		// Then
+		assertEquals(200_000, ids.size());
+	}
+
+	@Test
+	@DisplayName("Should encode the creation time in the upper bits")
+	void should_EncodeTheCreationTime_inTheUpperBits() {
+		// Given
+		long before = System.currentTimeMillis();
+
+		// When
+		long id = Tsid.next();
+
+		// Then
+		long millis = (id >>> 22) + Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+		assertAll(
+				() -> assertTrue(id > 0),
+				() -> assertTrue(millis >= before, "timestamp " + millis + " is before " + before)
+		);
+	}
+
+	@Test
+	@DisplayName("Should encode the configured node below the creation time")
+	void should_EncodeTheConfiguredNode_belowTheCreationTime() {
+		// Given
+		int previousNode = Tsid.node();
+		Tsid.useNode(613);
+
+		try {
+			// When
+			long id = Tsid.next();
+
+			// Then
+			assertEquals(613, (id >>> 12) & Tsid.MAX_NODE);
+		} finally {
+			Tsid.useNode(previousNode);
+		}
+	}
+
+	@Test
+	@DisplayName("Should reject a node outside of the node bits")
+	void should_RejectANode_outsideOfTheNodeBits() {
+		// When / Then
+		assertAll(
+				() -> assertThrows(IllegalArgumentException.class, () -> Tsid.useNode(-1)),
+				() -> assertThrows(IllegalArgumentException.class, () -> Tsid.useNode(Tsid.MAX_NODE + 1))
+		);
+	}
+}
@@ -0,0 +1,89 @@
+package dev.ebyrdeu.backend.common.util.internal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("JSON Converter Unit Tests")
+class JsonConverterUTest {
+	private final JsonConverter converter = new JsonConverter(new ObjectMapper(), new PayloadLoggingProperties(32, 1.0));
+
+	@Test
+	@DisplayName("Should only serialize a lazy value when it is rendered, and only once")
+	void should_SerializeLazyValue_onlyWhenRendered() {
+		// Given
+		AtomicInteger calls = new AtomicInteger();
+		CountingPayload payload = new CountingPayload(calls);
+
+		// When
+		Object lazy = converter.lazyValueOf(payload);
+		int before = calls.get();
+		String first = lazy.toString();
+		String second = lazy.toString();
+
+		// Then
+		assertAll(
+				() -> assertEquals(0, before),
+				() -> assertEquals("{\"name\":\"John\"}", first),
+				() -> assertSame(first, second),
+				() -> assertEquals(1, calls.get())
+		);
+	}
+
+	@Test
+	@DisplayName("Should cut payloads longer than the maximum length")
+	void should_CutLongPayloads() {
+		// Given
+		List<String> payload = List.of("a".repeat(100));
+		ByteBuffer raw = ByteBuffer.wrap(("\"" + "ö".repeat(100) + "\"").getBytes(StandardCharsets.UTF_8));
+
+		// When
+		String value = converter.lazyValueOf(payload).toString();
+		String rawValue = converter.lazyRawValueOf(raw).toString();
+
+		// Then
+		assertAll(
+				() -> assertEquals("[\"" + "a".repeat(30) + "...(truncated)", value),
+				() -> assertEquals("\"" + "ö".repeat(31) + "...(truncated)", rawValue),
+				() -> assertEquals(0, raw.position())
+		);
+	}
+
+	@Test
+	@DisplayName("Should render short payloads and nulls as they are")
+	void should_RenderShortPayloads_asTheyAre() {
+		assertAll(
+				() -> assertEquals("{\"a\":1}", converter.lazyValueOf(Map.of("a", 1)).toString()),
+				() -> assertEquals("null", converter.lazyValueOf(null).toString()),
+				() -> assertEquals("[]", converter.lazyRawValueOf(ByteBuffer.wrap("[]".getBytes(StandardCharsets.UTF_8))).toString()),
+				() -> assertEquals("null", converter.lazyRawValueOf(null).toString())
+		);
+	}
+
+	@Test
+	@DisplayName("Should render a marker instead of the payload when sampled out")
+	void should_RenderMarker_whenSampledOut() {
+		assertEquals("<sampled out>", converter.lazyValueOf(Map.of("a", 1), 32, 0.0).toString());
+	}
+
+	public static final class CountingPayload {
+		private final AtomicInteger calls;
+
+		CountingPayload(AtomicInteger calls) {
+			this.calls = calls;
+		}
+
+		public String getName() {
+			this.calls.incrementAndGet();
+			return "John";
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package dev.ebyrdeu.backend.common.web;
+
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Request Classifier Unit Tests")
+class RequestClassifierUTest {
+
+	@Test
+	@DisplayName("Should classify known routes by their path")
+	void should_ClassifyKnownRoutes() {
+		assertAll(
+				() -> assertEquals(RequestKind.SPA_SHELL, RequestClassifier.classify("/")),
+				() -> assertEquals(RequestKind.SPA_SHELL, RequestClassifier.classify("/auth")),
+				() -> assertEquals(RequestKind.STATIC_ASSET, RequestClassifier.classify("/index.html")),
+				() -> assertEquals(RequestKind.STATIC_ASSET, RequestClassifier.classify("/vite.svg")),
+				() -> assertEquals(RequestKind.STATIC_ASSET, RequestClassifier.classify("/assets/index-3f2a1c.js")),
+				() -> assertEquals(RequestKind.STATIC_ASSET, RequestClassifier.classify("/media/9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")),
+				() -> assertEquals(RequestKind.API, RequestClassifier.classify("/api/v1/users")),
+				() -> assertEquals(RequestKind.OTHER, RequestClassifier.classify("/login/oauth2/code/google")),
+				() -> assertEquals(RequestKind.OTHER, RequestClassifier.classify("/error"))
+		);
+	}
+
+	@Test
+	@DisplayName("Should classify unknown paths as SPA routes unless they have a file extension")
+	void should_ClassifyUnknownPaths_byFileExtension() {
+		assertAll(
+				() -> assertEquals(RequestKind.SPA_ROUTE, RequestClassifier.classify("/admin")),
+				() -> assertEquals(RequestKind.SPA_ROUTE, RequestClassifier.classify("/auth/callback")),
+				() -> assertEquals(RequestKind.SPA_ROUTE, RequestClassifier.classify("/admin/users/42/images/7")),
+				() -> assertEquals(RequestKind.OTHER, RequestClassifier.classify("/favicon.ico")),
+				() -> assertEquals(RequestKind.OTHER, RequestClassifier.classify("/admin/report.pdf/view"))
+		);
+	}
+
+	@Test
+	@DisplayName("Should classify requests by their decoded and normalized path")
+	void should_ClassifyRequests_byDecodedAndNormalizedPath() {
+		assertAll(
+				() -> assertEquals(RequestKind.API, classifyRequest("", "/%61pi/v1/users")),
+				() -> assertEquals(RequestKind.API, classifyRequest("", "/%61%70%69/v1/users")),
+				() -> assertEquals(RequestKind.API, classifyRequest("", "/api;jsessionid=42/v1/users")),
+				() -> assertEquals(RequestKind.API, classifyRequest("", "/assets/../api/v1/users")),
+				() -> assertEquals(RequestKind.API, classifyRequest("", "/./api/v1/users")),
+				() -> assertEquals(RequestKind.API, classifyRequest("/app", "/app/%61pi/v1/users")),
+				() -> assertEquals(RequestKind.STATIC_ASSET, classifyRequest("", "/%61ssets/index-3f2a1c.js")),
+				() -> assertEquals(RequestKind.SPA_ROUTE, classifyRequest("", "/api/../admin"))
+		);
+	}
+
+	private static RequestKind classifyRequest(String contextPath, String requestUri) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", requestUri);
+		request.setContextPath(contextPath);
+		return RequestClassifier.classify(request);
+	}
+
+	@Test
+	@DisplayName("Should store the kind of the original request and reclassify forwards")
+	void should_StoreKind_andReclassifyForwards() {
+		// Given
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/admin/users");
+
+		// When
+		RequestKind original = RequestClassifier.classify(request);
+		request.setRequestURI("/index.html");
+		request.setDispatcherType(DispatcherType.FORWARD);
+		RequestKind forwarded = RequestClassifier.classify(request);
+
+		// Then
+		assertAll(
+				() -> assertEquals(RequestKind.SPA_ROUTE, original),
+				() -> assertEquals(RequestKind.SPA_ROUTE, request.getAttribute(RequestClassifier.KIND_ATTRIBUTE)),
+				() -> assertEquals(RequestKind.STATIC_ASSET, forwarded)
+		);
+	}
+}
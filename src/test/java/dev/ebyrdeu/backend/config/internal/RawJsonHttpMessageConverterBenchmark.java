@@ -0,0 +1,129 @@
+package dev.ebyrdeu.backend.config.internal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.ebyrdeu.backend.common.dto.BaseResponseJsonDto;
+import dev.ebyrdeu.backend.common.dto.BaseResponseRawJsonDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing a cached profile through {@link RawJsonHttpMessageConverter} with the previous path, where the
+ * UTF-8 bytes are decoded into a String and {@link MappingJackson2HttpMessageConverter} re-encodes the envelope.
+ * <p>
+ * Not part of the test suite (surefire only picks up {@code *Test} classes); after {@code mvn test-compile}, run
+ * {@link #main(String[])} from the IDE.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RawJsonHttpMessageConverterBenchmark {
+	private static final String MESSAGE = "User retrieved successfully";
+
+	@Param({"0", "20", "200"})
+	public int images;
+
+	private byte[] payload;
+	private RawJsonHttpMessageConverter raw;
+	private MappingJackson2HttpMessageConverter jackson;
+
+	@Setup
+	public void setup() {
+		StringBuilder json = new StringBuilder("{\"username\" : \"JohnJohn\", \"firstName\" : \"John\", \"lastName\" : \"Johnson\", \"email\" : \"email@email.com\", \"images\" : [");
+		for (int i = 0; i < this.images; i++) {
+			json.append(i == 0 ? "" : ", ")
+			    .append("{\"title\" : \"Image ").append(i)
+			    .append("\", \"description\" : \"Sunset over the fjörd\", \"price\" : 19.99, \"url\" : \"https://cdn.example.com/images/")
+			    .append(i).append(".webp\"}");
+		}
+		this.payload = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+		this.raw = new RawJsonHttpMessageConverter();
+		this.jackson = new MappingJackson2HttpMessageConverter(new ObjectMapper());
+	}
+
+	@Benchmark
+	public long jackson() throws IOException {
+		CountingOutputMessage output = new CountingOutputMessage();
+		BaseResponseJsonDto body = new BaseResponseJsonDto(
+				HttpStatus.OK,
+				HttpStatus.OK.value(),
+				MESSAGE,
+				new String(this.payload, StandardCharsets.UTF_8)
+		);
+		this.jackson.write(body, MediaType.APPLICATION_JSON, output);
+		return output.count;
+	}
+
+	@Benchmark
+	public long raw() throws IOException {
+		CountingOutputMessage output = new CountingOutputMessage();
+		BaseResponseRawJsonDto body = new BaseResponseRawJsonDto(
+				HttpStatus.OK,
+				HttpStatus.OK.value(),
+				MESSAGE,
+				this.payload
+		);
+		this.raw.write(body, MediaType.APPLICATION_JSON, output);
+		return output.count;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				           .include(RawJsonHttpMessageConverterBenchmark.class.getSimpleName())
+				           .build()
+		).run();
+	}
+
+	/**
+	 * Stands in for the servlet response: counts bytes so the writes cannot be optimised away.
+	 */
+	private static final class CountingOutputMessage extends OutputStream implements HttpOutputMessage {
+		private final HttpHeaders headers = new HttpHeaders();
+		private long count;
+
+		@Override
+		public OutputStream getBody() {
+			return this;
+		}
+
+		@Override
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		@Override
+		public void write(int b) {
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			this.count += len;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package dev.ebyrdeu.backend.config.internal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.ebyrdeu.backend.common.dto.BaseResponseJsonDto;
+import dev.ebyrdeu.backend.common.dto.BaseResponseRawJsonDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Raw JSON Message Converter Unit Tests")
+class RawJsonHttpMessageConverterUTest {
+	private static final String PAYLOAD = "{\"username\" : \"Jöhn\", \"images\" : []}";
+	private static final String MESSAGE = "User \"Jöhn\" retrieved\n";
+
+	private final RawJsonHttpMessageConverter converter = new RawJsonHttpMessageConverter();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private MockHttpOutputMessage write(Object body) throws IOException {
+		MockHttpOutputMessage output = new MockHttpOutputMessage();
+		this.converter.write(body, MediaType.APPLICATION_JSON, output);
+		return output;
+	}
+
+	@Test
+	@DisplayName("Should write byte payloads exactly as Jackson writes the string envelope")
+	void should_WriteBytePayloads_likeJackson() throws IOException {
+		// Given
+		byte[] payload = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+		String expected = objectMapper.writeValueAsString(new BaseResponseJsonDto(HttpStatus.OK, 200, MESSAGE, PAYLOAD));
+
+		// When
+		MockHttpOutputMessage output = write(new BaseResponseRawJsonDto(HttpStatus.OK, 200, MESSAGE, payload));
+
+		// Then
+		assertAll(
+				() -> assertEquals(expected, output.getBodyAsString(StandardCharsets.UTF_8)),
+				() -> assertEquals(expected.getBytes(StandardCharsets.UTF_8).length, output.getHeaders().getContentLength()),
+				() -> assertEquals(MediaType.APPLICATION_JSON, output.getHeaders().getContentType())
+		);
+	}
+
+	@Test
+	@DisplayName("Should write direct buffers and string payloads without moving the buffer")
+	void should_WriteDirectBuffersAndStrings_withoutMovingTheBuffer() throws IOException {
+		// Given
+		byte[] bytes = PAYLOAD.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+		String expected = objectMapper.writeValueAsString(new BaseResponseJsonDto(HttpStatus.OK, 200, MESSAGE, PAYLOAD));
+
+		// When
+		MockHttpOutputMessage fromDirect = write(new BaseResponseRawJsonDto(HttpStatus.OK, 200, MESSAGE, direct));
+		MockHttpOutputMessage fromString = write(new BaseResponseJsonDto(HttpStatus.OK, 200, MESSAGE, PAYLOAD));
+
+		// Then
+		assertAll(
+				() -> assertEquals(expected, fromDirect.getBodyAsString(StandardCharsets.UTF_8)),
+				() -> assertEquals(expected, fromString.getBodyAsString(StandardCharsets.UTF_8)),
+				() -> assertEquals(0, direct.position())
+		);
+	}
+
+	@Test
+	@DisplayName("Should write a missing payload as null")
+	void should_WriteMissingPayload_asNull() throws IOException {
+		// Given
+		BaseResponseRawJsonDto body = new BaseResponseRawJsonDto(HttpStatus.NOT_FOUND, 404, "Missing", (byte[]) null);
+
+		// When
+		MockHttpOutputMessage output = write(body);
+
+		// Then
+		assertEquals(
+				"{\"status\":\"NOT_FOUND\",\"code\":404,\"message\":\"Missing\",\"data\":null}",
+				output.getBodyAsString(StandardCharsets.UTF_8)
+		);
+	}
+
+	@Test
+	@DisplayName("Should only write raw JSON envelopes")
+	void should_OnlyWriteRawJsonEnvelopes() {
+		assertAll(
+				() -> assertTrue(converter.canWrite(BaseResponseRawJsonDto.class, MediaType.APPLICATION_JSON)),
+				() -> assertTrue(converter.canWrite(BaseResponseJsonDto.class, MediaType.APPLICATION_JSON)),
+				() -> assertFalse(converter.canWrite(String.class, MediaType.APPLICATION_JSON)),
+				() -> assertFalse(converter.canRead(BaseResponseRawJsonDto.class, MediaType.APPLICATION_JSON))
+		);
+	}
+}
@@ -0,0 +1,95 @@
+package dev.ebyrdeu.backend.image.internal.management;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.SplittableRandom;
+
+/**
+ * Pseudo-random PNG-signed content of any size, generated while it is read, so tests can upload large files
+ * without holding them on the heap. The same seed and size always give the same bytes.
+ * <p>
+ * It also records how it was read, so tests can check that a reader streams it through a bounded buffer.
+ * </p>
+ */
+class GeneratedImage extends InputStream {
+	private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+	private final long size;
+	private final SplittableRandom random;
+	private long position;
+	private int largestRead;
+	private boolean readWhole;
+
+	GeneratedImage(long size, long seed) {
+		this.size = size;
+		this.random = new SplittableRandom(seed);
+	}
+
+	@Override
+	public int read() {
+		if (this.position >= this.size) {
+			return -1;
+		}
+		int value = this.position < PNG_SIGNATURE.length
+				? PNG_SIGNATURE[(int) this.position] & 0xFF
+				: this.random.nextInt(256);
+		this.position++;
+		return value;
+	}
+
+	@Override
+	public int read(byte[] buffer, int offset, int length) {
+		if (this.position >= this.size) {
+			return -1;
+		}
+		this.largestRead = Math.max(this.largestRead, length);
+		int count = (int) Math.min(length, this.size - this.position);
+		for (int i = 0; i < count; i++) {
+			buffer[offset + i] = (byte) read();
+		}
+		return count;
+	}
+
+	@Override
+	public byte[] readAllBytes() throws IOException {
+		this.readWhole = true;
+		return super.readAllBytes();
+	}
+
+	@Override
+	public byte[] readNBytes(int length) throws IOException {
+		this.readWhole = true;
+		return super.readNBytes(length);
+	}
+
+	/**
+	 * @return the largest number of bytes asked for by a single read
+	 */
+	int largestRead() {
+		return this.largestRead;
+	}
+
+	/**
+	 * @return whether the content was collected into one array instead of being streamed
+	 */
+	boolean readWhole() {
+		return this.readWhole;
+	}
+
+	/**
+	 * @return the SHA-256 of the content of the given size and seed, as 64 lowercase hex digits
+	 */
+	static String sha256(long size, long seed) throws NoSuchAlgorithmException {
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		byte[] buffer = new byte[8192];
+		GeneratedImage image = new GeneratedImage(size, seed);
+		int read;
+		while ((read = image.read(buffer, 0, buffer.length)) != -1) {
+			digest.update(buffer, 0, read);
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+}
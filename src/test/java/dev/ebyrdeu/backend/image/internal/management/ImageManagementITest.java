@@ -0,0 +1,319 @@
+package dev.ebyrdeu.backend.image.internal.management;
+
+import dev.ebyrdeu.backend.TestOAuth2Client;
+import dev.ebyrdeu.backend.TestWithPostgresContainer;
+import dev.ebyrdeu.backend.common.dto.BaseResponseDto;
+import dev.ebyrdeu.backend.common.dto.KeysetPage;
+import dev.ebyrdeu.backend.image.ImageInternalApi;
+import dev.ebyrdeu.backend.image.ImagesChanged;
+import dev.ebyrdeu.backend.image.internal.dto.ImageCatalogueFilter;
+import dev.ebyrdeu.backend.image.internal.dto.ImageMediaDto;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadDto;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadResponseDto;
+import dev.ebyrdeu.backend.image.internal.excpetion.ImageBadRequestException;
+import dev.ebyrdeu.backend.image.internal.excpetion.ImageNotFoundException;
+import dev.ebyrdeu.backend.image.internal.projection.ImageCatalogueProjection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestOAuth2Client
+@TestWithPostgresContainer
+@RecordApplicationEvents
+class ImageManagementITest {
+	private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ImageInternalApi imageInternalApi;
+
+	@Autowired
+	private ApplicationEvents applicationEvents;
+
+	@BeforeEach
+	void setup() {
+		String createUser = "INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)";
+		this.jdbcTemplate.update(createUser, 1, "John", "Johnson", "JohnJohn", "email@email.com");
+		this.jdbcTemplate.update(createUser, 2, "Jane", "Johnson", "JaneJane", "jane@email.com");
+
+		// images 3 and 4 share their creation time, the id breaks the tie
+		createImage(1, 1, "Sunrise", "5.00", NOW.minusHours(4));
+		createImage(2, 2, "Snowfall", "15.00", NOW.minusHours(3));
+		createImage(3, 1, "Beach", "25.00", NOW.minusHours(2));
+		createImage(4, 2, "Ice", "35.00", NOW.minusHours(2));
+		createImage(5, 1, "Sunset", null, NOW.minusHours(1));
+
+		String addCategory = """
+				INSERT INTO image_category (image_id, category_id)
+				SELECT ?, c.id FROM categories c WHERE c.category = ?
+				""";
+		this.jdbcTemplate.update(addCategory, 2, "winter");
+		this.jdbcTemplate.update(addCategory, 4, "winter");
+		this.jdbcTemplate.update(addCategory, 3, "summer");
+	}
+
+	private void createImage(long id, long userId, String title, String price, LocalDateTime createdAt) {
+		this.jdbcTemplate.update(
+				"INSERT INTO images (id, user_id, title, description, price, image_url, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+				id, userId, title, "Description of " + title, price == null ? null : new BigDecimal(price),
+				"https://cdn.example.com/" + id + ".webp", Timestamp.valueOf(createdAt)
+		);
+	}
+
+	private List<Long> ids(List<ImageCatalogueProjection> images) {
+		return images.stream().map(ImageCatalogueProjection::id).toList();
+	}
+
+	@Nested
+	class FindCatalogue {
+
+		@Test
+		@DisplayName("Should page through the whole catalogue newest first without gaps or repeats")
+		void should_PageThroughTheCatalogue_newestFirst() {
+			// Given
+			List<Long> seen = new ArrayList<>();
+			String cursor = null;
+			int pages = 0;
+
+			// When
+			do {
+				BaseResponseDto<KeysetPage<ImageCatalogueProjection>> response =
+						imageInternalApi.findCatalogue(cursor, 2, ImageCatalogueFilter.NONE);
+				assertEquals(HttpStatus.OK, response.status());
+				seen.addAll(ids(response.data().items()));
+				cursor = response.data().nextCursor();
+				pages++;
+			} while (cursor != null);
+
+			// Then
+			int pageCount = pages;
+			assertAll(
+					() -> assertEquals(List.of(5L, 4L, 3L, 2L, 1L), seen),
+					() -> assertEquals(3, pageCount)
+			);
+		}
+
+		@Test
+		@DisplayName("Should return lean rows with the owner's username")
+		void should_ReturnLeanRows_withTheOwnersUsername() {
+			// When
+			ImageCatalogueProjection first = imageInternalApi
+					.findCatalogue(null, 1, ImageCatalogueFilter.NONE)
+					.data()
+					.items()
+					.getFirst();
+
+			// Then
+			assertAll(
+					() -> assertEquals(5L, first.id()),
+					() -> assertEquals("Sunset", first.title()),
+					() -> assertNull(first.price()),
+					() -> assertEquals("https://cdn.example.com/5.webp", first.imageUrl()),
+					() -> assertEquals("JohnJohn", first.owner()),
+					() -> assertEquals(NOW.minusHours(1), first.createdAt())
+			);
+		}
+
+		@Test
+		@DisplayName("Should apply owner, price range and category filters together with the cursor")
+		void should_ApplyFilters_togetherWithTheCursor() {
+			// Given
+			ImageCatalogueFilter byOwner = new ImageCatalogueFilter(null, null, null, "JohnJohn");
+			ImageCatalogueFilter byPrice = new ImageCatalogueFilter(null, new BigDecimal("10"), new BigDecimal("30"), null);
+			ImageCatalogueFilter byCategory = new ImageCatalogueFilter("winter", null, null, null);
+			ImageCatalogueFilter combined = new ImageCatalogueFilter("winter", new BigDecimal("20"), null, "JaneJane");
+
+			// When
+			KeysetPage<ImageCatalogueProjection> ownerFirstPage = imageInternalApi.findCatalogue(null, 2, byOwner).data();
+			KeysetPage<ImageCatalogueProjection> ownerSecondPage = imageInternalApi
+					.findCatalogue(ownerFirstPage.nextCursor(), 2, byOwner)
+					.data();
+
+			// Then
+			assertAll(
+					() -> assertEquals(List.of(5L, 3L), ids(ownerFirstPage.items())),
+					() -> assertEquals(List.of(1L), ids(ownerSecondPage.items())),
+					() -> assertNull(ownerSecondPage.nextCursor()),
+					() -> assertEquals(List.of(3L, 2L), ids(imageInternalApi.findCatalogue(null, 10, byPrice).data().items())),
+					() -> assertEquals(List.of(4L, 2L), ids(imageInternalApi.findCatalogue(null, 10, byCategory).data().items())),
+					() -> assertEquals(List.of(4L), ids(imageInternalApi.findCatalogue(null, 10, combined).data().items()))
+			);
+		}
+
+		@Test
+		@DisplayName("Should return an empty page for an unknown owner")
+		void should_ReturnAnEmptyPage_forAnUnknownOwner() {
+			// When
+			KeysetPage<ImageCatalogueProjection> page = imageInternalApi
+					.findCatalogue(null, 10, new ImageCatalogueFilter(null, null, null, "Nobody"))
+					.data();
+
+			// Then
+			assertAll(
+					() -> assertTrue(page.items().isEmpty()),
+					() -> assertNull(page.nextCursor())
+			);
+		}
+
+		@Test
+		@DisplayName("Should throw ImageBadRequestException for a malformed cursor, a bad size or an empty price range")
+		void should_ThrowImageBadRequestException_forInvalidRequests() {
+			// Given
+			ImageCatalogueFilter emptyRange = new ImageCatalogueFilter(null, new BigDecimal("30"), new BigDecimal("10"), null);
+
+			// When / Then
+			assertAll(
+					() -> assertThrowsExactly(
+							ImageBadRequestException.class,
+							() -> imageInternalApi.findCatalogue("not-a-cursor", 10, ImageCatalogueFilter.NONE)
+					),
+					() -> assertThrowsExactly(
+							ImageBadRequestException.class,
+							() -> imageInternalApi.findCatalogue(null, 0, ImageCatalogueFilter.NONE)
+					),
+					() -> assertThrowsExactly(
+							ImageBadRequestException.class,
+							() -> imageInternalApi.findCatalogue(null, 10, emptyRange)
+					)
+			);
+		}
+	}
+
+	@Nested
+	class Upload {
+		private static final long SIZE = 256 * 1024;
+
+		private InputStreamSource image(long seed) {
+			return () -> new GeneratedImage(SIZE, seed);
+		}
+
+		@Test
+		@DisplayName("Should store the content under its SHA-256 and record the image for the owner")
+		void should_StoreTheContent_underItsHash() throws Exception {
+			// Given
+			String expectedHash = GeneratedImage.sha256(SIZE, 42);
+			ImageUploadDto upload = new ImageUploadDto("  Northern lights ", "Taken in Tromsø", new BigDecimal("12.50"));
+
+			// When
+			ImageUploadResponseDto uploaded = imageInternalApi.upload("email@email.com", upload, image(42)).data();
+			ImageMediaDto media = imageInternalApi.findMedia(expectedHash);
+			Map<String, Object> row = jdbcTemplate.queryForMap(
+					"SELECT user_id, title, image_url, content_hash, content_type, content_size FROM images WHERE id = ?",
+					uploaded.id()
+			);
+
+			// Then
+			assertAll(
+					() -> assertEquals(expectedHash, uploaded.contentHash()),
+					() -> assertEquals("/media/" + expectedHash, uploaded.imageUrl()),
+					() -> assertEquals("image/png", uploaded.contentType()),
+					() -> assertEquals(SIZE, uploaded.contentSize()),
+					() -> assertEquals(1L, ((Number) row.get("user_id")).longValue()),
+					() -> assertEquals("Northern lights", row.get("title")),
+					() -> assertEquals("/media/" + expectedHash, row.get("image_url")),
+					() -> assertEquals(expectedHash, row.get("content_hash")),
+					() -> assertEquals("image/png", row.get("content_type")),
+					() -> assertEquals(SIZE, ((Number) row.get("content_size")).longValue()),
+					() -> assertEquals(SIZE, media.size()),
+					() -> assertEquals("image/png", media.contentType()),
+					() -> assertEquals(SIZE, Files.size(media.file())),
+					() -> assertEquals(List.of(new ImagesChanged(1)), applicationEvents.stream(ImagesChanged.class).toList())
+			);
+		}
+
+		@Test
+		@DisplayName("Should store identical content once and give both images the same media URL")
+		void should_StoreIdenticalContentOnce() {
+			// When
+			ImageUploadResponseDto first = imageInternalApi
+					.upload("email@email.com", new ImageUploadDto("First", null, null), image(7))
+					.data();
+			ImageUploadResponseDto second = imageInternalApi
+					.upload("jane@email.com", new ImageUploadDto("Second", null, null), image(7))
+					.data();
+			ImageMediaDto media = imageInternalApi.findMedia(first.contentHash());
+
+			// Then
+			assertAll(
+					() -> assertNotEquals(first.id(), second.id()),
+					() -> assertEquals(first.imageUrl(), second.imageUrl()),
+					() -> assertTrue(Files.isRegularFile(media.file())),
+					() -> assertEquals(2, applicationEvents.stream(ImagesChanged.class).count())
+			);
+		}
+
+		@Test
+		@DisplayName("Should reject content that is not an image, too large or empty, and invalid titles")
+		void should_RejectInvalidUploads() {
+			// Given
+			InputStreamSource html = () -> new ByteArrayInputStream("<html></html>".getBytes(StandardCharsets.UTF_8));
+			InputStreamSource empty = () -> new ByteArrayInputStream(new byte[0]);
+			InputStreamSource tooLarge = () -> new GeneratedImage(8 * 1024 * 1024 + 1, 1);
+			ImageUploadDto upload = new ImageUploadDto("Title", null, null);
+
+			// When / Then
+			assertAll(
+					() -> assertThrowsExactly(
+							ImageBadRequestException.class,
+							() -> imageInternalApi.upload("email@email.com", upload, html)
+					),
+					() -> assertThrowsExactly(
+							ImageBadRequestException.class,
+							() -> imageInternalApi.upload("email@email.com", upload, empty)
+					),
+					() -> assertThrowsExactly(
+							ImageBadRequestException.class,
+							() -> imageInternalApi.upload("email@email.com", upload, tooLarge)
+					),
+					() -> assertThrowsExactly(
+							ImageBadRequestException.class,
+							() -> imageInternalApi.upload("email@email.com", new ImageUploadDto(" x ", null, null), image(1))
+					),
+					() -> assertEquals(0, applicationEvents.stream(ImagesChanged.class).count())
+			);
+		}
+
+		@Test
+		@DisplayName("Should throw ImageNotFoundException for an unknown owner or unknown content")
+		void should_ThrowImageNotFoundException_forUnknownOwnerOrContent() {
+			// When / Then
+			assertAll(
+					() -> assertThrowsExactly(
+							ImageNotFoundException.class,
+							() -> imageInternalApi.upload("nobody@email.com", new ImageUploadDto("Title", null, null), image(3))
+					),
+					() -> assertThrowsExactly(
+							ImageNotFoundException.class,
+							() -> imageInternalApi.findMedia("0".repeat(64))
+					),
+					() -> assertThrowsExactly(
+							ImageNotFoundException.class,
+							() -> imageInternalApi.findMedia("../../etc/passwd")
+					)
+			);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package dev.ebyrdeu.backend.image.internal.management;
+
+import dev.ebyrdeu.backend.TestOAuth2Client;
+import dev.ebyrdeu.backend.TestWithPostgresContainer;
+import dev.ebyrdeu.backend.image.ImageInternalApi;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadDto;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadResponseDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Uploads run on their own threads and commit, so this class opts out of the rolled-back test transaction and
+ * removes its rows itself. The stored files go to a temporary root of their own, emptied after each test.
+ */
+@SpringBootTest
+@TestOAuth2Client
+@TestWithPostgresContainer
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Image Upload Concurrency Integration Tests")
+class ImageUploadConcurrencyITest {
+	private static final long OWNER_ID = 900;
+	private static final String OWNER_EMAIL = "uploader@email.com";
+	private static final int UPLOADS = 100;
+	private static final long SIZE = 4 * 1024 * 1024;
+
+	@TempDir
+	static Path storageRoot;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ImageInternalApi imageInternalApi;
+
+	@DynamicPropertySource
+	static void storage(DynamicPropertyRegistry registry) {
+		registry.add("app.image.storage.root", () -> storageRoot.toString());
+	}
+
+	@BeforeEach
+	void setup() {
+		this.jdbcTemplate.update(
+				"INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)",
+				OWNER_ID, "Upload", "User", "Uploader", OWNER_EMAIL
+		);
+	}
+
+	@AfterEach
+	void cleanup() throws IOException {
+		this.jdbcTemplate.update("DELETE FROM images WHERE user_id = ?", OWNER_ID);
+		this.jdbcTemplate.update("DELETE FROM users WHERE id = ?", OWNER_ID);
+
+		// the store keeps using its .incoming directory, everything else is stored content
+		try (Stream<Path> stored = Files.list(storageRoot)) {
+			for (Path directory : stored.filter(path -> !path.endsWith(".incoming")).toList()) {
+				FileSystemUtils.deleteRecursively(directory);
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Should stream 100 concurrent uploads of 4 MB through a bounded buffer")
+	void should_StreamConcurrentUploads_throughABoundedBuffer() throws Exception {
+		// Given
+		CountDownLatch start = new CountDownLatch(1);
+		List<GeneratedImage> contents = new ArrayList<>();
+		List<Future<ImageUploadResponseDto>> results = new ArrayList<>();
+
+		// When
+		try (ExecutorService pool = Executors.newFixedThreadPool(UPLOADS)) {
+			for (int i = 0; i < UPLOADS; i++) {
+				GeneratedImage content = new GeneratedImage(SIZE, i);
+				contents.add(content);
+				results.add(pool.submit(() -> {
+					start.await();
+					return upload(content);
+				}));
+			}
+			start.countDown();
+		}
+
+		List<ImageUploadResponseDto> uploaded = new ArrayList<>();
+		for (Future<ImageUploadResponseDto> result : results) {
+			uploaded.add(result.get());
+		}
+		long stored = this.jdbcTemplate.queryForObject(
+				"SELECT count(DISTINCT content_hash) FROM images WHERE user_id = ?",
+				Long.class,
+				OWNER_ID
+		);
+		long leftovers;
+		try (Stream<Path> incoming = Files.list(storageRoot.resolve(".incoming"))) {
+			leftovers = incoming.count();
+		}
+
+		// Then
+		assertAll(
+				() -> assertEquals(UPLOADS, stored),
+				() -> assertEquals(0, leftovers, "temporary upload files were left behind"),
+				() -> assertTrue(
+						contents.stream().noneMatch(GeneratedImage::readWhole),
+						"an upload was collected into one array instead of being streamed"
+				),
+				() -> assertTrue(
+						contents.stream().allMatch(content -> content.largestRead() <= ImageContentStore.BUFFER_SIZE),
+						"an upload was read in chunks larger than " + ImageContentStore.BUFFER_SIZE + " bytes"
+				)
+		);
+		for (int seed = 0; seed < UPLOADS; seed++) {
+			String hash = uploaded.get(seed).contentHash();
+			Path file = storageRoot.resolve(hash.substring(0, 2)).resolve(hash);
+			assertEquals(GeneratedImage.sha256(SIZE, seed), hash);
+			assertEquals(SIZE, Files.size(file));
+		}
+	}
+
+	private ImageUploadResponseDto upload(GeneratedImage content) {
+		return this.imageInternalApi
+				.upload(OWNER_EMAIL, new ImageUploadDto("Upload", null, null), () -> content)
+				.data();
+	}
+}
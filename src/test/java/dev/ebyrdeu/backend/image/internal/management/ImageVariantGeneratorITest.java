@@ -0,0 +1,161 @@
+package dev.ebyrdeu.backend.image.internal.management;
+
+import dev.ebyrdeu.backend.TestOAuth2Client;
+import dev.ebyrdeu.backend.TestWithPostgresContainer;
+import dev.ebyrdeu.backend.image.ImageInternalApi;
+import dev.ebyrdeu.backend.image.ImageStored;
+import dev.ebyrdeu.backend.image.internal.dto.ImageMediaDto;
+import dev.ebyrdeu.backend.image.internal.dto.ImageUploadDto;
+import dev.ebyrdeu.backend.image.internal.projection.ImageVariantProjection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Variants are generated after the upload has committed, so this class opts out of the rolled-back test
+ * transaction and removes its rows itself.
+ */
+@SpringBootTest
+@TestOAuth2Client
+@TestWithPostgresContainer
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Image Variant Generator Integration Tests")
+class ImageVariantGeneratorITest {
+	private static final long OWNER_ID = 901;
+	private static final String OWNER_EMAIL = "variants@email.com";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ImageInternalApi imageInternalApi;
+
+	@BeforeEach
+	void setup() {
+		this.jdbcTemplate.update(
+				"INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)",
+				OWNER_ID, "Variant", "User", "VariantUser", OWNER_EMAIL
+		);
+	}
+
+	@AfterEach
+	void cleanup() {
+		this.jdbcTemplate.update("DELETE FROM images WHERE user_id = ?", OWNER_ID);
+		this.jdbcTemplate.update("DELETE FROM users WHERE id = ?", OWNER_ID);
+		this.jdbcTemplate.update("DELETE FROM event_publication WHERE event_type = ?", ImageStored.class.getName());
+	}
+
+	private static byte[] png(int width, int height) throws IOException {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setPaint(new GradientPaint(0, 0, Color.BLUE, width, height, Color.ORANGE));
+		graphics.fillRect(0, 0, width, height);
+		graphics.dispose();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", bytes);
+		return bytes.toByteArray();
+	}
+
+	private long upload(byte[] content) {
+		return this.imageInternalApi
+				.upload(OWNER_EMAIL, new ImageUploadDto("Gradient", null, null), () -> new ByteArrayInputStream(content))
+				.data()
+				.id();
+	}
+
+	private List<ImageVariantProjection> variants(long imageId) {
+		return this.imageInternalApi.findVariants(imageId).data();
+	}
+
+	private boolean publicationCompleted(long imageId) {
+		return Boolean.TRUE.equals(this.jdbcTemplate.queryForObject(
+				"SELECT bool_and(completion_date IS NOT NULL) FROM event_publication WHERE event_type = ? AND serialized_event LIKE ?",
+				Boolean.class,
+				ImageStored.class.getName(),
+				"%\"imageId\":" + imageId + ",%"
+		));
+	}
+
+	private static <T> T await(Supplier<T> probe, Predicate<T> done) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+		T value = probe.get();
+		while (!done.test(value) && System.nanoTime() < deadline) {
+			Thread.sleep(50);
+			value = probe.get();
+		}
+		return value;
+	}
+
+	@Test
+	@DisplayName("Should generate every variant after the upload and complete the event publication")
+	void should_GenerateEveryVariant_afterTheUpload() throws Exception {
+		// Given
+		long imageId = upload(png(2000, 1000));
+
+		// When
+		List<ImageVariantProjection> variants = await(() -> variants(imageId), found -> found.size() == 3);
+		boolean completed = await(() -> publicationCompleted(imageId), done -> done);
+
+		// Then
+		assertAll(
+				() -> assertEquals(
+						List.of("thumbnail", "medium", "large"),
+						variants.stream().map(ImageVariantProjection::variant).toList()
+				),
+				() -> assertEquals(List.of(160, 640, 1280), variants.stream().map(ImageVariantProjection::width).toList()),
+				() -> assertEquals(List.of(80, 320, 640), variants.stream().map(ImageVariantProjection::height).toList()),
+				() -> assertTrue(completed, "the ImageStored publication was not completed")
+		);
+
+		ImageVariantProjection large = variants.getLast();
+		ImageMediaDto media = this.imageInternalApi.findMedia(large.imageUrl().substring("/media/".length()));
+		BufferedImage decoded = ImageIO.read(media.file().toFile());
+		assertAll(
+				() -> assertEquals("image/jpeg", media.contentType()),
+				() -> assertEquals(1280, decoded.getWidth()),
+				() -> assertEquals(640, decoded.getHeight())
+		);
+	}
+
+	@Test
+	@DisplayName("Should not upscale: only variants smaller than the original are generated")
+	void should_NotUpscale() throws Exception {
+		// Given
+		long imageId = upload(png(400, 300));
+
+		// When
+		boolean completed = await(() -> publicationCompleted(imageId), done -> done);
+		List<ImageVariantProjection> variants = variants(imageId);
+
+		// Then
+		assertAll(
+				() -> assertTrue(completed, "the ImageStored publication was not completed"),
+				() -> assertEquals(1, variants.size()),
+				() -> assertEquals("thumbnail", variants.getFirst().variant()),
+				() -> assertEquals(160, variants.getFirst().width()),
+				() -> assertEquals(120, variants.getFirst().height())
+		);
+	}
+}
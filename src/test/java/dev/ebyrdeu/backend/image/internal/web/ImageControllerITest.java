@@ -0,0 +1,232 @@
+package dev.ebyrdeu.backend.image.internal.web;
+
+import dev.ebyrdeu.backend.TestOAuth2Client;
+import dev.ebyrdeu.backend.TestWithPostgresContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.util.DigestUtils;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oidcLogin;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@TestOAuth2Client
+@TestWithPostgresContainer
+@AutoConfigureMockMvc
+class ImageControllerITest {
+	private static final byte[] CONTENT = png(1000);
+	private static final String HASH = sha256(CONTENT);
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setup() {
+		String createUser = "INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)";
+		this.jdbcTemplate.update(createUser, 1, "John", "Johnson", "JohnJohn", "email@email.com");
+
+		String addAdminRole = "INSERT INTO user_role (user_id, role_id) VALUES (?, ?)";
+		this.jdbcTemplate.update(addAdminRole, 1, 3);
+	}
+
+	private static byte[] png(int size) {
+		byte[] content = new byte[size];
+		byte[] signature = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+		System.arraycopy(signature, 0, content, 0, signature.length);
+		for (int i = signature.length; i < size; i++) {
+			content[i] = (byte) (i * 31);
+		}
+		return content;
+	}
+
+	private static String sha256(byte[] content) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+		} catch (Exception ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private ResultActions upload() throws Exception {
+		return mockMvc.perform(
+				multipart("/api/v1/images")
+						.file(new MockMultipartFile("file", "image.png", "image/png", CONTENT))
+						.param("title", "Northern lights")
+						.param("price", "12.50")
+						.with(csrf())
+						.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+		);
+	}
+
+	@Nested
+	class Upload {
+
+		@Test
+		@DisplayName("Should return Created with the hash-named media URL in the body and the Location header")
+		void shouldReturnCreatedWithTheMediaUrl() throws Exception {
+			// When
+			ResultActions response = upload();
+
+			// Then
+			response
+					.andExpect(status().isCreated())
+					.andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/media/" + HASH))
+					.andExpect(jsonPath("$.code").value(HttpStatus.CREATED.value()))
+					.andExpect(jsonPath("$.message").value("Image uploaded successfully"))
+					.andExpect(jsonPath("$.data.imageUrl").value("/media/" + HASH))
+					.andExpect(jsonPath("$.data.contentHash").value(HASH))
+					.andExpect(jsonPath("$.data.contentType").value("image/png"))
+					.andExpect(jsonPath("$.data.contentSize").value(CONTENT.length))
+					.andDo(print());
+		}
+
+		@Test
+		@DisplayName("Should return Bad Request when the file is not an image")
+		void shouldReturnBadRequestWhenTheFileIsNotAnImage() throws Exception {
+			// When
+			ResultActions response = mockMvc.perform(
+					multipart("/api/v1/images")
+							.file(new MockMultipartFile("file", "image.png", "image/png", "<svg/>".getBytes()))
+							.param("title", "Not an image")
+							.with(csrf())
+							.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+			);
+
+			// Then
+			response
+					.andExpect(status().isBadRequest())
+					.andExpect(jsonPath("$.message").value("Only PNG, JPEG, GIF and WebP images are supported"))
+					.andDo(print());
+		}
+	}
+
+	@Nested
+	class Serve {
+
+		@Test
+		@DisplayName("Should serve the whole content with immutable cache headers and the hash as entity tag")
+		void shouldServeTheWholeContent() throws Exception {
+			// Given
+			upload();
+
+			// When
+			ResultActions response = mockMvc.perform(get("/media/" + HASH));
+
+			// Then
+			response
+					.andExpect(status().isOk())
+					.andExpect(content().contentType("image/png"))
+					.andExpect(content().bytes(CONTENT))
+					.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length))
+					.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+					.andExpect(header().string(HttpHeaders.ETAG, "\"" + HASH + "\""))
+					.andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"));
+		}
+
+		@Test
+		@DisplayName("Should serve a single range as Partial Content")
+		void shouldServeASingleRange() throws Exception {
+			// Given
+			upload();
+
+			// When
+			ResultActions response = mockMvc.perform(get("/media/" + HASH).header(HttpHeaders.RANGE, "bytes=100-199"));
+
+			// Then
+			response
+					.andExpect(status().isPartialContent())
+					.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/" + CONTENT.length))
+					.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+					.andExpect(content().bytes(Arrays.copyOfRange(CONTENT, 100, 200)));
+		}
+
+		@Test
+		@DisplayName("Should answer an unsatisfiable range with Range Not Satisfiable")
+		void shouldAnswerAnUnsatisfiableRange() throws Exception {
+			// Given
+			upload();
+
+			// When
+			ResultActions response = mockMvc.perform(get("/media/" + HASH).header(HttpHeaders.RANGE, "bytes=5000-"));
+
+			// Then
+			response
+					.andExpect(status().isRequestedRangeNotSatisfiable())
+					.andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */" + CONTENT.length));
+		}
+
+		@Test
+		@DisplayName("Should return Not Modified when the client already has the content")
+		void shouldReturnNotModifiedWhenTheClientHasTheContent() throws Exception {
+			// Given
+			upload();
+
+			// When
+			ResultActions response = mockMvc.perform(
+					get("/media/" + HASH).header(HttpHeaders.IF_NONE_MATCH, "\"" + HASH + "\"")
+			);
+
+			// Then
+			response
+					.andExpect(status().isNotModified())
+					.andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+					.andExpect(content().bytes(new byte[0]));
+		}
+
+		@Test
+		@DisplayName("Should return Not Found for unknown content")
+		void shouldReturnNotFoundForUnknownContent() throws Exception {
+			// When
+			ResultActions response = mockMvc.perform(
+					get("/media/" + DigestUtils.md5DigestAsHex(CONTENT) + DigestUtils.md5DigestAsHex(CONTENT))
+			);
+
+			// Then
+			response
+					.andExpect(status().isNotFound())
+					.andExpect(jsonPath("$.code").value(HttpStatus.NOT_FOUND.value()));
+		}
+	}
+
+	@Nested
+	class Variants {
+
+		@Test
+		@DisplayName("Should return Not Found for an unknown image")
+		void shouldReturnNotFoundForAnUnknownImage() throws Exception {
+			// When
+			ResultActions response = mockMvc.perform(
+					get("/api/v1/images/{id}/variants", 404)
+							.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+			);
+
+			// Then
+			response
+					.andExpect(status().isNotFound())
+					.andExpect(jsonPath("$.code").value(HttpStatus.NOT_FOUND.value()));
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import dev.ebyrdeu.backend.TestOAuth2Client;
+import dev.ebyrdeu.backend.TestWithPostgresContainer;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestOAuth2Client
+@TestWithPostgresContainer
+@DisplayName("JDBC Authorization Request Repository Integration Tests")
+class JdbcAuthorizationRequestRepositoryITest {
+	private static final String STATE = "c3RhdGUtb2YtdGhlLWxvZ2lu";
+	private static final String STATE_COOKIE_NAME = "OAUTH2_STATE";
+
+	@Autowired
+	private JdbcClient jdbcClient;
+
+	private JdbcAuthorizationRequestRepository repository;
+
+	@BeforeEach
+	void setup() {
+		this.repository = new JdbcAuthorizationRequestRepository(
+				this.jdbcClient,
+				new SessionProperties(
+						SessionProperties.Store.JDBC,
+						"APP_SESSION",
+						Duration.ofMinutes(30),
+						Duration.ofMinutes(5),
+						Duration.ofMinutes(10)
+				)
+		);
+	}
+
+	private static OAuth2AuthorizationRequest authorizationRequest() {
+		return OAuth2AuthorizationRequest
+				.authorizationCode()
+				.authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+				.clientId("client-id")
+				.redirectUri("http://localhost/login/oauth2/code/google")
+				.scopes(Set.of("openid", "email"))
+				.state(STATE)
+				.attributes(Map.of(OAuth2ParameterNames.REGISTRATION_ID, "google"))
+				.build();
+	}
+
+	private static MockHttpServletRequest callback(String state, String cookieState) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/login/oauth2/code/google");
+		request.setParameter(OAuth2ParameterNames.STATE, state);
+		if (cookieState != null) {
+			request.setCookies(new Cookie(STATE_COOKIE_NAME, cookieState));
+		}
+		return request;
+	}
+
+	@Test
+	@DisplayName("Should load the saved request on a callback from the browser that started the login")
+	void should_LoadSavedRequest_onCallbackFromSameBrowser() {
+		// Given
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveAuthorizationRequest(authorizationRequest(), new MockHttpServletRequest(), response);
+
+		// When
+		OAuth2AuthorizationRequest loaded = this.repository.loadAuthorizationRequest(callback(STATE, STATE));
+
+		// Then
+		assertAll(
+				() -> assertEquals(STATE, response.getCookie(STATE_COOKIE_NAME).getValue()),
+				() -> assertNotNull(loaded),
+				() -> assertEquals("client-id", loaded.getClientId()),
+				() -> assertEquals(Set.of("openid", "email"), loaded.getScopes()),
+				() -> assertEquals("google", loaded.getAttribute(OAuth2ParameterNames.REGISTRATION_ID))
+		);
+	}
+
+	@Test
+	@DisplayName("Should not load the request when the state cookie is missing or different")
+	void should_NotLoadRequest_whenStateCookieDoesNotMatch() {
+		// Given
+		this.repository.saveAuthorizationRequest(authorizationRequest(), new MockHttpServletRequest(), new MockHttpServletResponse());
+
+		// When / Then
+		assertAll(
+				() -> assertNull(this.repository.loadAuthorizationRequest(callback(STATE, null))),
+				() -> assertNull(this.repository.loadAuthorizationRequest(callback(STATE, "another-state")))
+		);
+	}
+
+	@Test
+	@DisplayName("Should remove the request once and clear the state cookie")
+	void should_RemoveRequestOnce_andClearStateCookie() {
+		// Given
+		this.repository.saveAuthorizationRequest(authorizationRequest(), new MockHttpServletRequest(), new MockHttpServletResponse());
+
+		// When
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		OAuth2AuthorizationRequest removed = this.repository.removeAuthorizationRequest(callback(STATE, STATE), response);
+		OAuth2AuthorizationRequest removedAgain = this.repository.removeAuthorizationRequest(
+				callback(STATE, STATE),
+				new MockHttpServletResponse()
+		);
+
+		// Then
+		assertAll(
+				() -> assertNotNull(removed),
+				() -> assertNull(removedAgain),
+				() -> assertEquals(0, response.getCookie(STATE_COOKIE_NAME).getMaxAge())
+		);
+	}
+
+	@Test
+	@DisplayName("Should not load an expired request and purge it")
+	void should_NotLoadExpiredRequest_andPurgeIt() {
+		// Given
+		this.repository.saveAuthorizationRequest(authorizationRequest(), new MockHttpServletRequest(), new MockHttpServletResponse());
+		this.jdbcClient
+				.sql("UPDATE oauth2_authorization_requests SET expires_at = now() - interval '1 minute' WHERE state = :state")
+				.param("state", STATE)
+				.update();
+
+		// When
+		OAuth2AuthorizationRequest loaded = this.repository.loadAuthorizationRequest(callback(STATE, STATE));
+		this.repository.purgeExpired();
+
+		// Then
+		assertAll(
+				() -> assertNull(loaded),
+				() -> assertEquals(
+						0,
+						this.jdbcClient.sql("SELECT count(*) FROM oauth2_authorization_requests").query(Long.class).single()
+				)
+		);
+	}
+}
@@ -0,0 +1,197 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import dev.ebyrdeu.backend.TestOAuth2Client;
+import dev.ebyrdeu.backend.TestWithPostgresContainer;
+import dev.ebyrdeu.backend.user.UserProfile;
+import dev.ebyrdeu.backend.user.UserRole;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.DeferredSecurityContext;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestOAuth2Client
+@TestWithPostgresContainer
+@DisplayName("JDBC Security Context Repository Integration Tests")
+class JdbcSecurityContextRepositoryITest {
+	private static final String COOKIE_NAME = "APP_SESSION";
+
+	@Autowired
+	private JdbcClient jdbcClient;
+
+	private JdbcSecurityContextRepository repository;
+
+	@BeforeEach
+	void setup() {
+		this.repository = new JdbcSecurityContextRepository(
+				this.jdbcClient,
+				new SessionProperties(
+						SessionProperties.Store.JDBC,
+						COOKIE_NAME,
+						Duration.ofMinutes(30),
+						Duration.ofMinutes(5),
+						Duration.ofMinutes(10)
+				)
+		);
+	}
+
+	private static SecurityContext context(String email, List<String> roles, long roleVersion) {
+		OidcIdToken idToken = OidcIdToken
+				.withTokenValue("token")
+				.subject("123")
+				.claim("email", email)
+				.build();
+		AppOidcUser user = new AppOidcUser(
+				UserRole.maskOf(roles),
+				idToken,
+				null,
+				roleVersion,
+				new UserProfile("JohnJohn", "John", "Johnson")
+		);
+
+		SecurityContext context = SecurityContextHolder.createEmptyContext();
+		context.setAuthentication(user.toAuthentication("google"));
+		return context;
+	}
+
+	private static String sessionIdOf(MockHttpServletResponse response) {
+		Cookie cookie = response.getCookie(COOKIE_NAME);
+		assertNotNull(cookie, "no session cookie was written");
+		return cookie.getValue();
+	}
+
+	private static MockHttpServletRequest requestWith(String sessionId) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users");
+		request.setCookies(new Cookie(COOKIE_NAME, sessionId));
+		return request;
+	}
+
+	private long countSessions() {
+		return this.jdbcClient.sql("SELECT count(*) FROM security_sessions").query(Long.class).single();
+	}
+
+	private String save(SecurityContext context) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveContext(context, new MockHttpServletRequest(), response);
+		return sessionIdOf(response);
+	}
+
+	@Test
+	@DisplayName("Should load the saved context from a new request carrying the session cookie")
+	void should_LoadSavedContext_fromNewRequest() {
+		// Given
+		String sessionId = save(context("email@email.com", List.of("USER", "ADMIN"), 4L));
+
+		// When
+		DeferredSecurityContext loaded = this.repository.loadDeferredContext(requestWith(sessionId));
+
+		// Then
+		AppOidcUser user = (AppOidcUser) loaded.get().getAuthentication().getPrincipal();
+		assertAll(
+				() -> assertFalse(loaded.isGenerated()),
+				() -> assertEquals("email@email.com", user.getEmail()),
+				() -> assertEquals(UserRole.maskOf(List.of("USER", "ADMIN")), user.getRoleMask()),
+				() -> assertEquals(4L, user.getRoleVersion()),
+				() -> assertEquals(1, countSessions())
+		);
+	}
+
+	@Test
+	@DisplayName("Should keep the session id and skip the write when a loaded context is saved unchanged")
+	void should_SkipWrite_whenLoadedContextIsUnchanged() {
+		// Given
+		String sessionId = save(context("email@email.com", List.of("USER"), 1L));
+		MockHttpServletRequest request = requestWith(sessionId);
+		SecurityContext loaded = this.repository.loadDeferredContext(request).get();
+
+		// When
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveContext(loaded, request, response);
+
+		// Then
+		assertAll(
+				() -> assertNull(response.getHeader(HttpHeaders.SET_COOKIE)),
+				() -> assertEquals(1, countSessions())
+		);
+	}
+
+	@Test
+	@DisplayName("Should issue a new session id when a different user logs in on the same browser")
+	void should_IssueNewSessionId_whenDifferentUserLogsIn() {
+		// Given
+		String sessionId = save(context("email@email.com", List.of("USER"), 1L));
+		MockHttpServletRequest request = requestWith(sessionId);
+		this.repository.loadDeferredContext(request).get();
+
+		// When
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveContext(context("other@email.com", List.of("USER"), 1L), request, response);
+
+		// Then
+		String newSessionId = sessionIdOf(response);
+		assertAll(
+				() -> assertNotEquals(sessionId, newSessionId),
+				() -> assertTrue(this.repository.loadDeferredContext(requestWith(sessionId)).isGenerated()),
+				() -> assertEquals(1, countSessions())
+		);
+	}
+
+	@Test
+	@DisplayName("Should not load an expired session and purge it")
+	void should_NotLoadExpiredSession_andPurgeIt() {
+		// Given
+		String sessionId = save(context("email@email.com", List.of("USER"), 1L));
+		this.jdbcClient
+				.sql("UPDATE security_sessions SET expires_at = now() - interval '1 minute' WHERE id = :id")
+				.param("id", sessionId)
+				.update();
+
+		// When
+		DeferredSecurityContext loaded = this.repository.loadDeferredContext(requestWith(sessionId));
+		this.repository.purgeExpired();
+
+		// Then
+		assertAll(
+				() -> assertTrue(loaded.isGenerated()),
+				() -> assertNull(loaded.get().getAuthentication()),
+				() -> assertEquals(0, countSessions())
+		);
+	}
+
+	@Test
+	@DisplayName("Should delete the session and clear the cookie when an empty context is saved")
+	void should_DeleteSession_whenEmptyContextIsSaved() {
+		// Given
+		String sessionId = save(context("email@email.com", List.of("USER"), 1L));
+		MockHttpServletRequest request = requestWith(sessionId);
+		this.repository.loadDeferredContext(request).get();
+
+		// When
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.repository.saveContext(SecurityContextHolder.createEmptyContext(), request, response);
+
+		// Then
+		Cookie cleared = response.getCookie(COOKIE_NAME);
+		assertAll(
+				() -> assertEquals(0, countSessions()),
+				() -> assertNotNull(cleared),
+				() -> assertEquals(0, cleared.getMaxAge()),
+				() -> assertTrue(this.repository.loadDeferredContext(requestWith(sessionId)).isGenerated())
+		);
+	}
+}
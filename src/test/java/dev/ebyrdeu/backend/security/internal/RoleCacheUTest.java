@@ -0,0 +1,107 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import dev.ebyrdeu.backend.user.UserExternalApi;
+import dev.ebyrdeu.backend.user.UserRoles;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Role Cache Unit Tests")
+class RoleCacheUTest {
+	private static final String EMAIL = "email@email.com";
+	private static final int PARALLEL_REQUESTS = 64;
+
+	private UserExternalApi userExternalApi;
+	private RoleCache roleCache;
+
+	@BeforeEach
+	void setup() {
+		this.userExternalApi = mock(UserExternalApi.class);
+		this.roleCache = new RoleCache(
+				this.userExternalApi,
+				new RoleCacheProperties(100, Duration.ofMinutes(5)),
+				new SimpleMeterRegistry()
+		);
+	}
+
+	@Test
+	@DisplayName("Should execute a single query when parallel requests look up the same email")
+	void should_ExecuteSingleQuery_whenParallelRequestsLookUpSameEmail() throws Exception {
+		// Given
+		CountDownLatch queryStarted = new CountDownLatch(1);
+		CountDownLatch releaseQuery = new CountDownLatch(1);
+		UserRoles roles = new UserRoles(1L, List.of("USER"));
+
+		when(this.userExternalApi.findUserRoles(EMAIL)).thenAnswer(invocation -> {
+			queryStarted.countDown();
+			assertTrue(releaseQuery.await(5, TimeUnit.SECONDS));
+			return roles;
+		});
+
+		// When
+		List<Future<UserRoles>> results = new ArrayList<>();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < PARALLEL_REQUESTS; i++) {
+				results.add(executor.submit(() -> this.roleCache.get(EMAIL)));
+			}
+
+			assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+			releaseQuery.countDown();
+		}
+
+		// Then
+		for (Future<UserRoles> result : results) {
+			assertSame(roles, result.get());
+		}
+		verify(this.userExternalApi, times(1)).findUserRoles(EMAIL);
+	}
+
+	@Test
+	@DisplayName("Should query again when the in-flight lookup failed")
+	void should_QueryAgain_whenInFlightLookupFailed() {
+		// Given
+		UserRoles roles = new UserRoles(1L, List.of("USER"));
+		when(this.userExternalApi.findUserRoles(EMAIL))
+				.thenThrow(new IllegalStateException("database unavailable"))
+				.thenReturn(roles);
+
+		// When
+		assertThrowsExactly(IllegalStateException.class, () -> this.roleCache.get(EMAIL));
+		UserRoles res = this.roleCache.get(EMAIL);
+
+		// Then
+		assertSame(roles, res);
+		verify(this.userExternalApi, times(2)).findUserRoles(EMAIL);
+	}
+
+	@Test
+	@DisplayName("Should query again after the email was invalidated")
+	void should_QueryAgain_whenEmailWasInvalidated() {
+		// Given
+		when(this.userExternalApi.findUserRoles(EMAIL)).thenReturn(new UserRoles(1L, List.of("USER")));
+		this.roleCache.get(EMAIL);
+
+		// When
+		this.roleCache.invalidate(EMAIL);
+		this.roleCache.get(EMAIL);
+
+		// Then
+		assertAll(
+				() -> verify(this.userExternalApi, times(2)).findUserRoles(EMAIL),
+				() -> assertEquals(2, this.roleCache.stats().missCount())
+		);
+	}
+}
@@ -0,0 +1,252 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import dev.ebyrdeu.backend.user.UserProfile;
+import dev.ebyrdeu.backend.user.UserProfileChanged;
+import dev.ebyrdeu.backend.user.UserRole;
+import dev.ebyrdeu.backend.user.UserRoles;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
+import org.springframework.security.oauth2.core.oidc.user.OidcUser;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Role Refresher Filter Unit Tests")
+class RoleRefresherFilterUTest {
+	private static final String EMAIL = "email@email.com";
+	private static final UserProfile PROFILE = new UserProfile("JohnJohn", "John", "Johnson");
+
+	private RoleCache roleCache;
+	private RoleVersionRegistry roleVersionRegistry;
+	private ProfileRegistry profileRegistry;
+	private RoleRefresherFilter filter;
+
+	@BeforeEach
+	void setup() {
+		this.roleCache = mock(RoleCache.class);
+		RoleCacheProperties properties = new RoleCacheProperties(100, Duration.ofMinutes(5));
+		SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
+		this.roleVersionRegistry = new RoleVersionRegistry(properties);
+		this.profileRegistry = new ProfileRegistry(properties, securityContextRepository);
+		this.filter = new RoleRefresherFilter(
+				this.roleCache,
+				this.roleVersionRegistry,
+				this.profileRegistry,
+				securityContextRepository
+		);
+	}
+
+	@AfterEach
+	void cleanup() {
+		SecurityContextHolder.clearContext();
+	}
+
+	private OidcIdToken createIdToken() {
+		return OidcIdToken
+				.withTokenValue("token")
+				.subject("123")
+				.claim("email", EMAIL)
+				.build();
+	}
+
+	private Authentication authenticate(OidcUser principal) {
+		Authentication authentication = new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "google");
+		SecurityContextHolder.getContext().setAuthentication(authentication);
+		return authentication;
+	}
+
+	private void doFilter() throws Exception {
+		doFilter("/api/v1/users");
+	}
+
+	private void doFilter(String requestUri) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", requestUri);
+		this.filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+	}
+
+	@Test
+	@DisplayName("Should not rebuild the token when roles are unchanged but returned in a different order")
+	void should_NotRebuildToken_whenRolesAreUnchangedButInDifferentOrder() throws Exception {
+		// Given
+		Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+		authorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+		authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+		authenticate(new DefaultOidcUser(authorities, createIdToken(), "sub"));
+
+		when(this.roleCache.get(EMAIL)).thenReturn(new UserRoles(1L, List.of("USER", "ADMIN")));
+
+		// When
+		doFilter(); // a principal without a role version is rebuilt once to store the version
+		Authentication versioned = SecurityContextHolder.getContext().getAuthentication();
+		doFilter();
+
+		// Then
+		assertAll(
+				() -> assertSame(versioned, SecurityContextHolder.getContext().getAuthentication()),
+				() -> assertEquals(
+						Set.of("ROLE_USER", "ROLE_ADMIN"),
+						Set.copyOf(versioned.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
+				)
+		);
+		verify(this.roleCache, times(1)).get(EMAIL);
+	}
+
+	@Test
+	@DisplayName("Should store the newer role version in the session when the roles themselves are unchanged")
+	void should_StoreNewerVersion_whenRolesAreUnchanged() throws Exception {
+		// Given
+		int mask = UserRole.maskOf(List.of("USER"));
+		authenticate(new AppOidcUser(mask, createIdToken(), null, 1L, PROFILE));
+		this.roleVersionRegistry.record(EMAIL, 3L);
+
+		// e.g. ADMIN granted and revoked again
+		when(this.roleCache.get(EMAIL)).thenReturn(new UserRoles(3L, List.of("USER")));
+
+		// When
+		doFilter();
+		doFilter();
+
+		// Then
+		AppOidcUser refreshed = (AppOidcUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+		assertAll(
+				() -> assertEquals(mask, refreshed.getRoleMask()),
+				() -> assertEquals(3L, refreshed.getRoleVersion()),
+				() -> assertEquals(PROFILE, refreshed.getProfile())
+		);
+		verify(this.roleCache, times(1)).get(EMAIL);
+	}
+
+	@Test
+	@DisplayName("Should skip the role lookup when the session role version is current")
+	void should_SkipRoleLookup_whenSessionRoleVersionIsCurrent() throws Exception {
+		// Given
+		int mask = UserRole.maskOf(List.of("USER", "ADMIN"));
+		Authentication authentication = authenticate(new AppOidcUser(mask, createIdToken(), null, 4L, PROFILE));
+		this.roleVersionRegistry.record(EMAIL, 4L);
+
+		// When
+		doFilter();
+
+		// Then
+		assertSame(authentication, SecurityContextHolder.getContext().getAuthentication());
+		verifyNoInteractions(this.roleCache);
+	}
+
+	@Test
+	@DisplayName("Should rebuild the token with new authorities when roles changed")
+	void should_RebuildToken_whenRolesChanged() throws Exception {
+		// Given
+		int mask = UserRole.maskOf(List.of("USER"));
+		Authentication authentication = authenticate(new AppOidcUser(mask, createIdToken(), null, 1L, PROFILE));
+		this.roleVersionRegistry.record(EMAIL, 2L);
+
+		when(this.roleCache.get(EMAIL)).thenReturn(new UserRoles(2L, List.of("ADMIN", "USER")));
+
+		// When
+		doFilter();
+
+		// Then
+		Authentication refreshed = SecurityContextHolder.getContext().getAuthentication();
+		assertAll(
+				() -> assertNotSame(authentication, refreshed),
+				() -> assertEquals(
+						Set.of("ROLE_USER", "ROLE_ADMIN"),
+						Set.copyOf(refreshed.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList())
+				),
+				() -> assertEquals(2L, ((AppOidcUser) refreshed.getPrincipal()).getRoleVersion())
+		);
+	}
+
+	@Test
+	@DisplayName("Should pick up roles changed without an event once the known version expired")
+	void should_RebuildToken_whenRolesChangedWithoutEventAndVersionExpired() throws Exception {
+		// Given
+		RoleCacheProperties properties = new RoleCacheProperties(100, Duration.ofMillis(20));
+		SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
+		RoleRefresherFilter shortLived = new RoleRefresherFilter(
+				this.roleCache,
+				new RoleVersionRegistry(properties),
+				new ProfileRegistry(properties, securityContextRepository),
+				securityContextRepository
+		);
+		int mask = UserRole.maskOf(List.of("USER"));
+		authenticate(new AppOidcUser(mask, createIdToken(), null, 1L, PROFILE));
+
+		when(this.roleCache.get(EMAIL))
+				.thenReturn(new UserRoles(1L, List.of("USER")))
+				.thenReturn(new UserRoles(2L, List.of("USER", "ADMIN"))); // e.g. granted by direct SQL
+
+		shortLived.doFilter(new MockHttpServletRequest("GET", "/api/v1/users"), new MockHttpServletResponse(), new MockFilterChain());
+
+		// When
+		Thread.sleep(100);
+		shortLived.doFilter(new MockHttpServletRequest("GET", "/api/v1/users"), new MockHttpServletResponse(), new MockFilterChain());
+
+		// Then
+		AppOidcUser refreshed = (AppOidcUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+		assertAll(
+				() -> assertEquals(UserRole.maskOf(List.of("USER", "ADMIN")), refreshed.getRoleMask()),
+				() -> assertEquals(2L, refreshed.getRoleVersion())
+		);
+		verify(this.roleCache, times(2)).get(EMAIL);
+	}
+
+	@Test
+	@DisplayName("Should skip the role lookup for static assets and the SPA shell")
+	void should_SkipRoleLookup_whenRequestIsStaticAssetOrSpaShell() throws Exception {
+		// Given
+		int mask = UserRole.maskOf(List.of("USER"));
+		Authentication authentication = authenticate(new AppOidcUser(mask, createIdToken(), null, 1L, PROFILE));
+
+		// When
+		doFilter("/assets/index-3f2a1c.js");
+		doFilter("/");
+
+		// Then
+		assertSame(authentication, SecurityContextHolder.getContext().getAuthentication());
+		verifyNoInteractions(this.roleCache);
+	}
+
+	@Test
+	@DisplayName("Should swap the profile without a role lookup when another session changed it")
+	void should_SwapProfile_whenProfileChangedElsewhere() throws Exception {
+		// Given
+		int mask = UserRole.maskOf(List.of("USER"));
+		authenticate(new AppOidcUser(mask, createIdToken(), null, 1L, PROFILE));
+		this.roleVersionRegistry.record(EMAIL, 1L);
+
+		UserProfile changed = new UserProfile("JohnnyJ", "John", "Johnson");
+		this.profileRegistry.on(new UserProfileChanged(EMAIL, PROFILE, changed));
+
+		// When
+		doFilter();
+
+		// Then
+		AppOidcUser refreshed = (AppOidcUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+		assertAll(
+				() -> assertEquals(changed, refreshed.getProfile()),
+				() -> assertEquals(mask, refreshed.getRoleMask()),
+				() -> assertEquals(1L, refreshed.getRoleVersion())
+		);
+		verifyNoInteractions(this.roleCache);
+	}
+}
@@ -0,0 +1,86 @@
+package dev.ebyrdeu.backend.security.internal;
+
+import dev.ebyrdeu.backend.user.UserProfile;
+import dev.ebyrdeu.backend.user.UserRole;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.OidcUserInfo;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Security Context Codec Unit Tests")
+class SecurityContextCodecUTest {
+
+	private OAuth2AuthenticationToken createAuthentication() {
+		Instant issuedAt = Instant.ofEpochSecond(1_790_000_000L);
+		OidcIdToken idToken = OidcIdToken
+				.withTokenValue("eyJhbGciOiJSUzI1NiJ9.payload.signature")
+				.subject("108234567890")
+				.claim("email", "email@email.com")
+				.claim("picture", "https://lh3.googleusercontent.com/a/picture")
+				.issuedAt(issuedAt)
+				.expiresAt(issuedAt.plusSeconds(3600))
+				.build();
+		OidcUserInfo userInfo = new OidcUserInfo(Map.of("sub", "108234567890", "given_name", "John"));
+		AppOidcUser user = new AppOidcUser(
+				UserRole.maskOf(List.of("USER", "ADMIN")),
+				idToken,
+				userInfo,
+				7L,
+				new UserProfile("JohnJohn", "John", null)
+		);
+
+		return new OAuth2AuthenticationToken(user, user.getAuthorities(), "google");
+	}
+
+	@Test
+	@DisplayName("Should restore roles, version, identity claims and profile when decoding an encoded session")
+	void should_RestoreSession_whenDecodingEncodedSession() {
+		// Given
+		OAuth2AuthenticationToken authentication = createAuthentication();
+
+		// When
+		byte[] encoded = SecurityContextCodec.encode(authentication);
+		OAuth2AuthenticationToken decoded = SecurityContextCodec.decode(encoded);
+
+		// Then
+		assertNotNull(decoded);
+		AppOidcUser user = (AppOidcUser) decoded.getPrincipal();
+		assertAll(
+				() -> assertTrue(encoded.length < 200),
+				() -> assertEquals("google", decoded.getAuthorizedClientRegistrationId()),
+				() -> assertEquals(authentication.getAuthorities(), decoded.getAuthorities()),
+				() -> assertEquals(7L, user.getRoleVersion()),
+				() -> assertEquals("108234567890", user.getSubject()),
+				() -> assertEquals("email@email.com", user.getEmail()),
+				() -> assertEquals("https://lh3.googleusercontent.com/a/picture", user.getPicture()),
+				() -> assertEquals(Instant.ofEpochSecond(1_790_003_600L), user.getIdToken().getExpiresAt()),
+				() -> assertEquals(new UserProfile("JohnJohn", "John", null), user.getProfile())
+		);
+	}
+
+	@Test
+	@DisplayName("Should encode equal sessions to equal bytes so unchanged contexts are not written back")
+	void should_EncodeEqualSessionsToEqualBytes() {
+		// Given
+		byte[] first = SecurityContextCodec.encode(createAuthentication());
+
+		// When
+		byte[] second = SecurityContextCodec.encode(SecurityContextCodec.decode(first));
+
+		// Then
+		assertArrayEquals(first, second);
+	}
+
+	@Test
+	@DisplayName("Should return null when the encoded format is unknown")
+	void should_ReturnNull_whenFormatIsUnknown() {
+		assertNull(SecurityContextCodec.decode(new byte[]{42, 0, 0, 0}));
+	}
+}
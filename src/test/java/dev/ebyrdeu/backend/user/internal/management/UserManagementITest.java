@@ -1,16 +1,27 @@
 package dev.ebyrdeu.backend.user.internal.management;
 
+import com.jayway.jsonpath.JsonPath;
 import dev.ebyrdeu.backend.TestOAuth2Client;
 import dev.ebyrdeu.backend.TestWithPostgresContainer;
 import dev.ebyrdeu.backend.common.dto.BaseResponseDto;
-import dev.ebyrdeu.backend.common.dto.BaseResponseJsonDto;
+import dev.ebyrdeu.backend.common.dto.BaseResponseRawJsonDto;
+import dev.ebyrdeu.backend.common.dto.KeysetPage;
+import dev.ebyrdeu.backend.user.ProfilePrincipal;
 import dev.ebyrdeu.backend.user.UserExternalApi;
 import dev.ebyrdeu.backend.user.UserInternalApi;
+import dev.ebyrdeu.backend.user.UserProfile;
+import dev.ebyrdeu.backend.user.UserProfileChanged;
+import dev.ebyrdeu.backend.user.internal.dto.AuthResponseDto;
+import dev.ebyrdeu.backend.user.internal.dto.ProfileResponseDto;
 import dev.ebyrdeu.backend.user.internal.dto.UserInfoReqDto;
+import dev.ebyrdeu.backend.user.internal.excpetion.UserBadRequestException;
+import dev.ebyrdeu.backend.user.internal.excpetion.UserConflictException;
 import dev.ebyrdeu.backend.user.internal.excpetion.UserNotFoundException;
-import dev.ebyrdeu.backend.user.internal.model.User;
 import dev.ebyrdeu.backend.user.internal.projection.UserMinimalInfoProjection;
 import dev.ebyrdeu.backend.user.internal.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,10 +30,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpStatus;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.oidc.OidcIdToken;
+import org.springframework.security.oauth2.core.oidc.user.DefaultOidcUser;
 import org.springframework.security.oauth2.core.oidc.user.OidcUser;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +66,15 @@ class UserManagementITest {
 	@Autowired
 	private UserRepository userRepository;
 
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UserProfileCache userProfileCache;
+
+	@Autowired
+	private UserSearchPrefixCache userSearchPrefixCache;
+
 
 	@BeforeEach
 	void setup() {
@@ -58,9 +86,77 @@ class UserManagementITest {
 
 		String updateSequence = "SELECT setval('users_id_seq', (SELECT MAX(id) FROM users))";
 		this.jdbcTemplate.execute(updateSequence);
+
+		this.userProfileCache.invalidate("JohnJohn");
+		this.userSearchPrefixCache.invalidateAll();
 	}
 
 
+	@Nested
+	class GetAuth {
+		private Authentication authenticate(UserProfile profile) {
+			OidcIdToken idToken = OidcIdToken
+					.withTokenValue("token")
+					.subject("123")
+					.claim("email", "email@email.com")
+					.build();
+			Set<GrantedAuthority> authorities = Set.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
+			class ProfileOidcUser extends DefaultOidcUser implements ProfilePrincipal {
+				ProfileOidcUser() {
+					super(authorities, idToken, "sub");
+				}
+
+				@Override
+				public UserProfile getProfile() {
+					return profile;
+				}
+			}
+
+			return new OAuth2AuthenticationToken(new ProfileOidcUser(), authorities, "google");
+		}
+
+		@Test
+		@DisplayName("Should return auth data without any database query when the principal carries the profile")
+		void should_ReturnAuthDataWithoutQueries_whenPrincipalCarriesProfile() {
+			// Given
+			Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+			Authentication authentication = authenticate(new UserProfile("JohnJohn", "John", "Johnson"));
+			statistics.clear();
+
+			// When
+			BaseResponseDto<AuthResponseDto> response = userInternalApi.getAuth(authentication);
+
+			// Then
+			assertAll(
+					() -> assertEquals(0, statistics.getPrepareStatementCount()),
+					() -> assertTrue(response.data().status()),
+					() -> assertEquals("JohnJohn", response.data().user().username()),
+					() -> assertEquals("John", response.data().user().firstName()),
+					() -> assertEquals(List.of("ADMIN"), response.data().user().roles())
+			);
+		}
+
+		@Test
+		@DisplayName("Should load the profile from the database when the principal carries none")
+		void should_LoadProfileFromDatabase_whenPrincipalCarriesNone() {
+			// Given
+			Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+			Authentication authentication = authenticate(null);
+			statistics.clear();
+
+			// When
+			BaseResponseDto<AuthResponseDto> response = userInternalApi.getAuth(authentication);
+
+			// Then
+			assertAll(
+					() -> assertEquals(1, statistics.getPrepareStatementCount()),
+					() -> assertEquals("JohnJohn", response.data().user().username()),
+					() -> assertEquals("Johnson", response.data().user().lastName())
+			);
+		}
+	}
+
 	@Nested
 	class FindAll {
 		@Test
@@ -69,7 +165,7 @@ class UserManagementITest {
 			// Given
 			String message = "Users retrieved successfully";
 			// When
-			BaseResponseDto<List<UserMinimalInfoProjection>> response = userInternalApi.findAll();
+			BaseResponseDto<KeysetPage<UserMinimalInfoProjection>> response = userInternalApi.findAll(null, 20);
 
 			// Then
 			assertAll(
@@ -77,9 +173,207 @@ class UserManagementITest {
 					() -> assertEquals(HttpStatus.OK, response.status()),
 					() -> assertEquals(HttpStatus.OK.value(), response.code()),
 					() -> assertEquals(message, response.message()),
-					() -> assertEquals(1, response.data().size())
+					() -> assertEquals(1, response.data().items().size()),
+					() -> assertNull(response.data().nextCursor())
+			);
+		}
+
+		@Test
+		@DisplayName("Should walk all users page by page in username order when following cursors")
+		void should_WalkAllUsersInUsernameOrder_whenFollowingCursors() {
+			// Given
+			String createUser = "INSERT INTO users (username, email) VALUES (?, ?)";
+			jdbcTemplate.update(createUser, "Alice", "alice@email.com");
+			jdbcTemplate.update(createUser, "Bobby", "bobby@email.com");
+			jdbcTemplate.update(createUser, "Zelda", "zelda@email.com");
+
+			// When
+			KeysetPage<UserMinimalInfoProjection> first = userInternalApi.findAll(null, 2).data();
+			KeysetPage<UserMinimalInfoProjection> second = userInternalApi.findAll(first.nextCursor(), 2).data();
+
+			// Then
+			assertAll(
+					() -> assertEquals(List.of("Alice", "Bobby"), first.items().stream().map(UserMinimalInfoProjection::username).toList()),
+					() -> assertNotNull(first.nextCursor()),
+					() -> assertEquals(List.of("JohnJohn", "Zelda"), second.items().stream().map(UserMinimalInfoProjection::username).toList()),
+					() -> assertNull(second.nextCursor())
+			);
+		}
+
+		@Test
+		@DisplayName("Should stream every user in username order when exporting")
+		void should_StreamEveryUserInUsernameOrder_whenExporting() {
+			// Given
+			String createUser = "INSERT INTO users (username, email) VALUES (?, ?)";
+			jdbcTemplate.update(createUser, "Alice", "alice@email.com");
+			jdbcTemplate.update(createUser, "Zelda", "zelda@email.com");
+			List<String> exported = new ArrayList<>();
+
+			// When
+			userInternalApi.exportAll(user -> exported.add(user.username()));
+
+			// Then
+			assertEquals(List.of("Alice", "JohnJohn", "Zelda"), exported);
+		}
+
+		@Test
+		@DisplayName("Should throw UserBadRequestException when the cursor is malformed")
+		void should_ThrowUserBadRequestException_whenCursorIsMalformed() {
+			assertThrowsExactly(
+					UserBadRequestException.class,
+					() -> userInternalApi.findAll("not-a-cursor", 20)
+			);
+		}
+	}
+
+	@Nested
+	class FindMany {
+		@Test
+		@DisplayName("Should return found users and misses in request order when usernames are provided")
+		void should_ReturnUsersAndMissesInRequestOrder_whenUsernamesAreProvided() {
+			// Given
+			jdbcTemplate.update(
+					"INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)",
+					2, "Alice", "Adams", "Alice", "alice@email.com"
+			);
+
+			// When
+			BaseResponseRawJsonDto response = userInternalApi.findManyByUsernames(
+					List.of("JohnJohn", "Ghost", " Alice ", "JohnJohn", "")
+			);
+
+			// Then
+			String json = response.dataAsString();
+			assertAll(
+					() -> assertEquals(HttpStatus.OK, response.status()),
+					() -> assertEquals(List.of("JohnJohn", "Alice"), JsonPath.read(json, "$.users[*].username")),
+					() -> assertEquals("Adams", JsonPath.read(json, "$.users[1].lastName")),
+					() -> assertEquals(List.of("Ghost"), JsonPath.read(json, "$.missing"))
+			);
+		}
+
+		@Test
+		@DisplayName("Should throw UserBadRequestException when no or too many usernames are provided")
+		void should_ThrowUserBadRequestException_whenNoOrTooManyUsernamesAreProvided() {
+			// Given
+			List<String> tooMany = new ArrayList<>();
+			for (int i = 0; i <= UserInternalApi.MAX_BATCH_SIZE; i++) {
+				tooMany.add("user" + i);
+			}
+
+			// When / Then
+			assertAll(
+					() -> assertThrowsExactly(UserBadRequestException.class, () -> userInternalApi.findManyByUsernames(List.of(" "))),
+					() -> assertThrowsExactly(UserBadRequestException.class, () -> userInternalApi.findManyByUsernames(tooMany))
+			);
+		}
+	}
+
+	@Nested
+	class Search {
+		@BeforeEach
+		void setup() {
+			String createUser = "INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)";
+			jdbcTemplate.update(createUser, 2, "Joanna", "Smith", "jo_smith", "joanna@email.com");
+			jdbcTemplate.update(createUser, 3, "Maria", "Johansson", "maria", "maria@email.com");
+			jdbcTemplate.update(createUser, 4, "Peter", "Parker", "spidey", "peter@email.com");
+		}
+
+		@Test
+		@DisplayName("Should rank username prefix matches before name matches")
+		void should_RankUsernamePrefixMatchesFirst_whenTermMatchesNamesToo() {
+			// When
+			BaseResponseDto<List<UserMinimalInfoProjection>> response = userInternalApi.search("  JOH ", 10);
+
+			// Then
+			assertAll(
+					() -> assertEquals(HttpStatus.OK, response.status()),
+					() -> assertEquals(
+							List.of("JohnJohn", "maria"),
+							response.data().stream().map(UserMinimalInfoProjection::username).toList()
+					)
+			);
+		}
+
+		@Test
+		@DisplayName("Should match short terms as username prefixes only and treat wildcards literally")
+		void should_MatchShortTermsAsUsernamePrefixes_andTreatWildcardsLiterally() {
+			// When
+			List<UserMinimalInfoProjection> jo = userInternalApi.search("jo", 10).data();
+			List<UserMinimalInfoProjection> wildcard = userInternalApi.search("%", 10).data();
+			List<UserMinimalInfoProjection> underscore = userInternalApi.search("jo_", 10).data();
+
+			// Then
+			assertAll(
+					() -> assertEquals(List.of("jo_smith", "JohnJohn"), jo.stream().map(UserMinimalInfoProjection::username).toList()),
+					() -> assertTrue(wildcard.isEmpty()),
+					() -> assertEquals("jo_smith", underscore.getFirst().username())
+			);
+		}
+
+		@Test
+		@DisplayName("Should find users by a misspelled name")
+		void should_FindUsersByMisspelledName() {
+			// When
+			List<UserMinimalInfoProjection> res = userInternalApi.search("parkker", 10).data();
+
+			// Then
+			assertEquals(List.of("spidey"), res.stream().map(UserMinimalInfoProjection::username).toList());
+		}
+
+		@Test
+		@DisplayName("Should drop only the cached terms of a renamed user")
+		void should_DropOnlyCachedTermsOfRenamedUser_whenProfileChanged() {
+			// Given
+			userInternalApi.search("jo", 10);
+			userInternalApi.search("sp", 10);
+			jdbcTemplate.update("UPDATE users SET username = ? WHERE id = ?", "Zed", 1);
+			jdbcTemplate.update("UPDATE users SET username = ? WHERE id = ?", "webslinger", 4);
+
+			// When
+			userSearchPrefixCache.on(new UserProfileChanged(
+					"email@email.com",
+					new UserProfile("JohnJohn", "John", "Johnson"),
+					new UserProfile("Zed", "John", "Johnson")
+			));
+
+			// Then
+			List<UserMinimalInfoProjection> jo = userInternalApi.search("jo", 10).data();
+			List<UserMinimalInfoProjection> sp = userInternalApi.search("sp", 10).data();
+			assertAll(
+					() -> assertEquals(List.of("jo_smith"), jo.stream().map(UserMinimalInfoProjection::username).toList()),
+					// no event for spidey, so its term is still served from memory
+					() -> assertEquals(List.of("spidey"), sp.stream().map(UserMinimalInfoProjection::username).toList())
 			);
 		}
+
+		@Test
+		@DisplayName("Should drop the cached terms of a user's previous first name")
+		void should_DropCachedTermsOfPreviousFirstName_whenProfileChanged() {
+			// Given
+			List<UserMinimalInfoProjection> before = userInternalApi.search("pet", 10).data();
+			jdbcTemplate.update("UPDATE users SET first_name = ? WHERE id = ?", "Miles", 4);
+
+			// When
+			userSearchPrefixCache.on(new UserProfileChanged(
+					"peter@email.com",
+					new UserProfile("spidey", "Peter", "Parker"),
+					new UserProfile("spidey", "Miles", "Parker")
+			));
+
+			// Then
+			List<UserMinimalInfoProjection> after = userInternalApi.search("pet", 10).data();
+			assertAll(
+					() -> assertEquals(List.of("spidey"), before.stream().map(UserMinimalInfoProjection::username).toList()),
+					() -> assertTrue(after.isEmpty())
+			);
+		}
+
+		@Test
+		@DisplayName("Should throw UserBadRequestException when the query is blank")
+		void should_ThrowUserBadRequestException_whenQueryIsBlank() {
+			assertThrowsExactly(UserBadRequestException.class, () -> userInternalApi.search("   ", 10));
+		}
 	}
 
 	@Nested
@@ -91,7 +385,7 @@ class UserManagementITest {
 			String message = "User retrieved successfully";
 
 			// When
-			BaseResponseJsonDto response = userInternalApi.findOneByUsername("JohnJohn");
+			BaseResponseRawJsonDto response = userInternalApi.findOneByUsername("JohnJohn").response();
 
 			// Then
 			assertAll(
@@ -118,6 +412,82 @@ class UserManagementITest {
 			assertEquals(errorMessage, exception.getMessage());
 		}
 
+		@Test
+		@DisplayName("Should serve a repeated lookup from the profile cache without any database query")
+		void should_ServeRepeatedLookupFromCache_whenProfileWasLoaded() {
+			// Given
+			Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+			ProfileResponseDto first = userInternalApi.findOneByUsername("JohnJohn");
+			statistics.clear();
+
+			// When
+			ProfileResponseDto second = userInternalApi.findOneByUsername("JohnJohn");
+
+			// Then
+			assertAll(
+					() -> assertEquals(0, statistics.getPrepareStatementCount()),
+					() -> assertEquals(first.etag(), second.etag()),
+					() -> assertEquals(first.response().dataAsString(), second.response().dataAsString())
+			);
+		}
+
+		@Test
+		@DisplayName("Should reload the profile when a profile change event drops the previous username")
+		void should_ReloadProfile_whenProfileChangeEventDropsPreviousUsername() {
+			// Given
+			Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+			userInternalApi.findOneByUsername("JohnJohn");
+			userProfileCache.on(new UserProfileChanged(
+					"email@email.com",
+					new UserProfile("JohnJohn", "John", "Johnson"),
+					new UserProfile("Johnny", "John", "Johnson")
+			));
+			statistics.clear();
+
+			// When
+			userInternalApi.findOneByUsername("JohnJohn");
+
+			// Then
+			assertEquals(2, statistics.getPrepareStatementCount());
+		}
+
+		@Test
+		@DisplayName("Should return the cached entity tag from the version probe and change it with the profile")
+		void should_ReturnCachedETagFromProbe_andChangeItWithProfile() {
+			// Given
+			String cached = userInternalApi.findOneByUsername("JohnJohn").etag();
+
+			// When
+			String probed = userInternalApi.findProfileETag("JohnJohn");
+			jdbcTemplate.update("UPDATE users SET updated_at = updated_at + interval '1 second' WHERE id = 1");
+			String changed = userInternalApi.findProfileETag("JohnJohn");
+
+			// Then
+			assertAll(
+					() -> assertEquals(cached, probed),
+					() -> assertNotEquals(probed, changed),
+					() -> assertThrowsExactly(UserNotFoundException.class, () -> userInternalApi.findProfileETag("Ghost"))
+			);
+		}
+
+		@Test
+		@DisplayName("Should not cache a missing user")
+		void should_NotCacheMissingUser_whenUsernameDoesNotExist() {
+			// Given
+			assertThrowsExactly(UserNotFoundException.class, () -> userInternalApi.findOneByUsername("Ghost"));
+			jdbcTemplate.update(
+					"INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)",
+					2, "Gus", "Ghost", "Ghost", "ghost@email.com"
+			);
+
+			// When
+			BaseResponseRawJsonDto response = userInternalApi.findOneByUsername("Ghost").response();
+
+			// Then
+			assertThat(response.dataAsString()).contains("Ghost");
+			userProfileCache.invalidate("Ghost");
+		}
+
 	}
 
 	@Nested
@@ -165,30 +535,67 @@ class UserManagementITest {
 			assertEquals(errorMessage, exception.getMessage());
 		}
 
-	}
+		@Test
+		@DisplayName("Should throw UserConflictException when the new username is taken")
+		void should_ThrowUserConflictException_whenTheNewUsernameIsTaken() {
+			// Given
+			jdbcTemplate.update(
+					"INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)",
+					2, "Jane", "Johnson", "JaneJane", "jane@email.com"
+			);
+			UserInfoReqDto dto = new UserInfoReqDto(" JaneJane ", null);
 
-	@Nested
-	class Special {
+			// When
+			UserConflictException exception = assertThrowsExactly(
+					UserConflictException.class,
+					() -> userInternalApi.patchUserInfo("JohnJohn", dto)
+			);
 
+			// Then
+			assertEquals("Username JaneJane is already taken", exception.getMessage());
+		}
 
 		@Test
-		@DisplayName("Should return user roles when a valid Email is provided")
-		void should_returnUSerRoles_whenAValidEmailIsProvided() {
+		@DisplayName("Should patch with a single statement and keep fields that are not supplied")
+		void should_PatchWithASingleStatement_andKeepFieldsThatAreNotSupplied() {
 			// Given
-			String email = "email@email.com";
+			jdbcTemplate.update("UPDATE users SET about_me = ? WHERE id = ?", "old about me", 1);
+			UserInfoReqDto dto = new UserInfoReqDto("JohnnyJohn", null);
 
 			// When
-			List<String> res = userExternalApi.findUserRolesByEmail(email);
+			BaseResponseDto<UserInfoReqDto> response = userInternalApi.patchUserInfo("JohnJohn", dto);
 
 			// Then
-
 			assertAll(
-					() -> assertEquals(1, res.size()),
-					() -> assertEquals("ADMIN", res.getFirst())
+					() -> assertEquals("JohnnyJohn", response.data().username()),
+					() -> assertEquals("old about me", response.data().aboutMe()),
+					() -> assertEquals(
+							"old about me",
+							jdbcTemplate.queryForObject("SELECT about_me FROM users WHERE username = ?", String.class, "JohnnyJohn")
+					)
 			);
+		}
+
+		@Test
+		@DisplayName("Should keep the profile entity tag when the patch changes nothing")
+		void should_KeepProfileETag_whenPatchChangesNothing() {
+			// Given
+			jdbcTemplate.update("UPDATE users SET about_me = ?, updated_at = timestamp '2024-01-01 00:00' WHERE id = ?", "about me", 1);
+			String before = userInternalApi.findProfileETag("JohnJohn");
+
+			// When
+			userInternalApi.patchUserInfo("JohnJohn", new UserInfoReqDto(" JohnJohn ", "about me"));
+			String after = userInternalApi.findProfileETag("JohnJohn");
 
+			// Then
+			assertEquals(before, after);
 		}
 
+	}
+
+	@Nested
+	class Special {
+
 
 		@Test
 		@DisplayName("Should assign role to new user when email doesnt exist")
@@ -205,17 +612,36 @@ class UserManagementITest {
 			userExternalApi.createOrGetOidcUser(oidcUser);
 
 			// Then
-			Optional<User> res = userRepository.findOneByEmail(newEmail);
+			Optional<UserMinimalInfoProjection> res = userRepository.findOneByEmailWithMinimalInfo(newEmail);
 			assertThat(res).isPresent();
 
 			assertAll(
-					() -> assertEquals(newEmail, res.get().getEmail()),
-					() -> assertEquals("123", res.get().getUsername()),
-					() -> assertEquals("John", res.get().getFirstName()),
-					() -> assertEquals("John", res.get().getLastName())
+					() -> assertEquals("123", res.get().username()),
+					() -> assertEquals("John", res.get().firstName()),
+					() -> assertEquals("John", res.get().lastName())
 			);
 		}
 
+		@Test
+		@DisplayName("Should throw UserConflictException when the username of a new user is taken by another account")
+		void should_throwUserConflictException_whenUsernameIsTakenByAnotherAccount() {
+			// Given
+			OidcUser oidcUser = mock(OidcUser.class);
+			when(oidcUser.getEmail()).thenReturn("new.email@email.com");
+			when(oidcUser.getGivenName()).thenReturn("John");
+			when(oidcUser.getFamilyName()).thenReturn("John");
+			when(oidcUser.getSubject()).thenReturn("JohnJohn");
+
+			// When
+			UserConflictException ex = assertThrowsExactly(
+					UserConflictException.class,
+					() -> userExternalApi.createOrGetOidcUser(oidcUser)
+			);
+
+			// Then
+			assertEquals("Username JohnJohn is already taken by another account", ex.getMessage());
+		}
+
 
 	}
 
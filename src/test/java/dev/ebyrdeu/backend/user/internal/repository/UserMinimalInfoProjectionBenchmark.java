@@ -0,0 +1,113 @@
+package dev.ebyrdeu.backend.user.internal.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.ebyrdeu.backend.user.internal.projection.UserMinimalInfoProjection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per 10k rows of materialising and serialising minimal user info as Spring Data interface projections
+ * (a map-backed proxy per row, which is what native queries produced before) versus records built by
+ * {@link UserQueriesImpl#MINIMAL_INFO}.
+ * <p>
+ * Rows are taken from memory so the numbers exclude the database round trip, which is the same for both.
+ * Not part of the test suite (surefire only picks up {@code *Test} classes); after {@code mvn test-compile},
+ * run {@link #main(String[])} from the IDE.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMinimalInfoProjectionBenchmark {
+	private static final int ROWS = 10_000;
+
+	private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private String[][] rows;
+	private List<MinimalInfo> proxies;
+	private List<UserMinimalInfoProjection> records;
+
+	@Setup
+	public void setup() {
+		this.rows = new String[ROWS][];
+		for (int i = 0; i < ROWS; i++) {
+			this.rows[i] = new String[]{"user" + i, "First" + i, "Last" + i};
+		}
+		this.proxies = materialiseProxies();
+		this.records = materialiseRecords();
+	}
+
+	@Benchmark
+	public List<MinimalInfo> materialiseProxies() {
+		List<MinimalInfo> result = new ArrayList<>(ROWS);
+		for (String[] row : this.rows) {
+			Map<String, Object> tuple = new HashMap<>(4);
+			tuple.put("username", row[0]);
+			tuple.put("firstName", row[1]);
+			tuple.put("lastName", row[2]);
+			result.add(this.projectionFactory.createProjection(MinimalInfo.class, tuple));
+		}
+		return result;
+	}
+
+	@Benchmark
+	public List<UserMinimalInfoProjection> materialiseRecords() {
+		List<UserMinimalInfoProjection> result = new ArrayList<>(ROWS);
+		for (String[] row : this.rows) {
+			result.add(new UserMinimalInfoProjection(row[0], row[1], row[2]));
+		}
+		return result;
+	}
+
+	@Benchmark
+	public byte[] serialiseProxies() throws JsonProcessingException {
+		return this.objectMapper.writeValueAsBytes(this.proxies);
+	}
+
+	@Benchmark
+	public byte[] serialiseRecords() throws JsonProcessingException {
+		return this.objectMapper.writeValueAsBytes(this.records);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				           .include(UserMinimalInfoProjectionBenchmark.class.getSimpleName())
+				           .build()
+		).run();
+	}
+
+	/**
+	 * The interface projection the repository used to return.
+	 */
+	public interface MinimalInfo {
+		String getUsername();
+
+		String getFirstName();
+
+		String getLastName();
+	}
+}
@@ -0,0 +1,135 @@
+package dev.ebyrdeu.backend.user.internal.repository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.ebyrdeu.backend.TestWithPostgresContainer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Query-plan regression tests: the hot native queries of {@link UserRepository} must not scan the big tables
+ * sequentially. The queries are read from their {@link Query} annotations, so the test follows any change to them.
+ */
+@DataJpaTest
+@TestWithPostgresContainer
+@DisplayName("User Query Plan Integration Tests")
+class UserQueryPlanITest {
+	private static final int USERS = 10_000;
+	private static final Set<String> LARGE_TABLES = Set.of("users", "user_role", "images");
+	private static final Pattern NAMED_PARAMETER = Pattern.compile("(?<!:):(\\w+)");
+	private static final Map<String, String> PARAMETERS = Map.of(
+			"email", "'user4242@email.com'",
+			"username", "'user4242'"
+	);
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setup() {
+		this.jdbcTemplate.update("""
+				insert into users (id, username, email, first_name, last_name)
+				select g, 'user' || g, 'user' || g || '@email.com', 'First' || g, 'Last' || g
+				from generate_series(1, ?) g
+				""", USERS);
+		this.jdbcTemplate.update("""
+				insert into user_role (user_id, role_id)
+				select g, 1 from generate_series(1, ?) g
+				union all
+				select g, 3 from generate_series(1, ?, 100) g
+				""", USERS, USERS);
+		this.jdbcTemplate.update("""
+				insert into images (user_id, title, description, price, image_url)
+				select g % ? + 1, 'Image ' || g, 'Description ' || g, 9.99, 'https://cdn.example.com/' || g || '.webp'
+				from generate_series(1, ? * 3) g
+				""", USERS, USERS);
+		this.jdbcTemplate.execute("analyze users, user_role, images");
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@ValueSource(strings = {
+			"findRolesWithVersionByEmail",
+			"findOneByUsernameWithImages",
+			"findProfileVersionByUsername"
+	})
+	@DisplayName("Should not scan users, user_role or images sequentially")
+	void should_NotScanLargeTablesSequentially(String methodName) throws Exception {
+		// Given
+		String sql = bind(nativeQueryOf(methodName));
+
+		// When
+		String plan = this.jdbcTemplate.queryForObject("explain (format json) " + sql, String.class);
+		List<String> seqScans = new ArrayList<>();
+		collectSeqScans(this.objectMapper.readTree(plan).get(0).get("Plan"), seqScans);
+
+		// Then
+		assertTrue(
+				seqScans.stream().noneMatch(LARGE_TABLES::contains),
+				() -> methodName + " scans " + seqScans + " sequentially:\n" + plan
+		);
+	}
+
+	@Test
+	@DisplayName("Should serve every per-user image lookup from a single user_id-leading index")
+	void should_KeepSingleUserIdLeadingIndexOnImages() {
+		// When
+		List<String> indexes = this.jdbcTemplate.queryForList(
+				"select indexname from pg_indexes where tablename = 'images' and indexdef like '%(user_id%'",
+				String.class
+		);
+
+		// Then
+		assertEquals(List.of("images_user_id_created_at"), indexes);
+	}
+
+	private static String nativeQueryOf(String methodName) {
+		Method method = Arrays.stream(UserRepository.class.getMethods())
+		                      .filter(candidate -> candidate.getName().equals(methodName))
+		                      .findFirst()
+		                      .orElseThrow();
+		Query query = method.getAnnotation(Query.class);
+		assertNotNull(query, methodName + " has no @Query");
+		assertTrue(query.nativeQuery(), methodName + " is not a native query");
+		return query.value();
+	}
+
+	private static String bind(String sql) {
+		Matcher matcher = NAMED_PARAMETER.matcher(sql);
+		StringBuilder bound = new StringBuilder();
+		while (matcher.find()) {
+			String literal = PARAMETERS.get(matcher.group(1));
+			assertNotNull(literal, "No value for parameter :" + matcher.group(1));
+			matcher.appendReplacement(bound, Matcher.quoteReplacement(literal));
+		}
+		return matcher.appendTail(bound).toString();
+	}
+
+	private static void collectSeqScans(JsonNode node, List<String> seqScans) {
+		if ("Seq Scan".equals(node.path("Node Type").asText())) {
+			seqScans.add(node.path("Relation Name").asText());
+		}
+		for (JsonNode child : node.path("Plans")) {
+			collectSeqScans(child, seqScans);
+		}
+	}
+}
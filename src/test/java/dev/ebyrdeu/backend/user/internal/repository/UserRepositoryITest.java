@@ -3,8 +3,10 @@ package dev.ebyrdeu.backend.user.internal.repository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.jayway.jsonpath.JsonPath;
 import dev.ebyrdeu.backend.TestWithPostgresContainer;
+import dev.ebyrdeu.backend.common.entity.Tsid;
 import dev.ebyrdeu.backend.user.internal.model.User;
 import dev.ebyrdeu.backend.user.internal.projection.UserMinimalInfoProjection;
+import dev.ebyrdeu.backend.user.internal.projection.UserProvisionProjection;
 import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,8 +14,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,21 +37,30 @@ class UserRepositoryITest {
 
 
 	@Test
-	@DisplayName("Should Return user successfully when valid email is provided")
-	void should_ReturnUserSuccessfully_whenValidEmailIsProvided() {
+	@DisplayName("Should keep the id and hash code assigned at construction when the user is persisted and loaded")
+	void should_KeepIdAndHashCode_whenTheUserIsPersistedAndLoaded() {
 		// Given
 		User user = new User();
 		user.setUsername("John");
 		user.setEmail("email@email.com");
-		this.entityManager.persist(user);
-		this.entityManager.flush();
+		Long id = user.getId();
+		Set<User> users = new HashSet<>(Set.of(user));
 
 		// When
-		Optional<User> res = this.userRepository.findOneByEmail("email@email.com");
+		User saved = this.userRepository.save(user);
+		this.entityManager.flush();
+		this.entityManager.clear();
+		User loaded = this.userRepository.findById(id).orElseThrow();
 
 		// Then
-		assertThat(res).isPresent();
-		assertEquals("email@email.com", res.get().getEmail());
+		assertAll(
+				() -> assertNotNull(id),
+				() -> assertSame(user, saved),
+				() -> assertTrue(users.contains(user)),
+				() -> assertTrue(users.contains(loaded)),
+				() -> assertEquals(user, loaded),
+				() -> assertFalse(loaded.isNew())
+		);
 	}
 
 	@Test
@@ -72,18 +85,21 @@ class UserRepositoryITest {
 		this.entityManager.flush();
 
 		// When
-		List<UserMinimalInfoProjection> res = this.userRepository.findAllWithMinimalInfo();
+		List<UserMinimalInfoProjection> res = this.userRepository.findPageWithMinimalInfo("", 10);
+		List<UserMinimalInfoProjection> afterOne = this.userRepository.findPageWithMinimalInfo("one", 10);
 
 		// Then
 		assertAll(
 				() -> assertFalse(res.isEmpty()),
 				() -> assertEquals(2, res.size()),
-				() -> assertEquals("first_one", res.getFirst().getFirstName()),
-				() -> assertEquals("one", res.getFirst().getUsername()),
-				() -> assertEquals("last_one", res.getFirst().getLastName()),
-				() -> assertEquals("first_two", res.getLast().getFirstName()),
-				() -> assertEquals("two", res.getLast().getUsername()),
-				() -> assertEquals("last_two", res.getLast().getLastName())
+				() -> assertEquals("first_one", res.getFirst().firstName()),
+				() -> assertEquals("one", res.getFirst().username()),
+				() -> assertEquals("last_one", res.getFirst().lastName()),
+				() -> assertEquals("first_two", res.getLast().firstName()),
+				() -> assertEquals("two", res.getLast().username()),
+				() -> assertEquals("last_two", res.getLast().lastName()),
+				() -> assertEquals(1, afterOne.size()),
+				() -> assertEquals("two", afterOne.getFirst().username())
 		);
 	}
 
@@ -125,54 +141,93 @@ class UserRepositoryITest {
 
 
 	@Test
-	@DisplayName("Should Return User when a valid Email is provided")
-	void should_returnUser_whenAValidEmailIsProvided() {
+	@DisplayName("Should assign given role to user when valid data is provided")
+	void should_assignGivenRoleToUser_whenValidDataIsProvided() {
 		// Given
 		User user = new User();
 		user.setUsername("John");
-		user.setEmail("email@email.com");
 		this.entityManager.persist(user);
 		this.entityManager.flush();
 
-		this.jdbcTemplate.update(
-				"insert into user_role (user_id, role_id) values (?, ?)",
-				user.getId(),
-				3L
+		// When
+		this.userRepository.addSingleRole(user.getId(), 1L);
+		this.userRepository.addSingleRole(user.getId(), 2L);
+
+		// Then
+		Long count = this.jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM user_role WHERE user_id = ? ",
+				Long.class,
+				user.getId()
 		);
 
-		// When
-		List<String> res = this.userRepository.findRolesByEmail(user.getEmail());
+		assertEquals(2, count);
+
+	}
 
+	@Test
+	@DisplayName("Should create user with default role when provisioning an unknown email")
+	void should_createUserWithDefaultRole_whenProvisioningAnUnknownEmail() {
+		// Given
+		long id = Tsid.next();
+
+		// When
+		List<UserProvisionProjection> res = this.userRepository.provisionOidcUser(
+				id,
+				"new.email@email.com",
+				"John",
+				"Johnson",
+				"123",
+				1L
+		);
 
 		// Then
+		Long count = this.jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM users WHERE email = ? AND id = ?",
+				Long.class,
+				"new.email@email.com",
+				id
+		);
 
 		assertAll(
+				() -> assertEquals(1, count),
 				() -> assertEquals(1, res.size()),
-				() -> assertEquals("ADMIN", res.getFirst())
+				() -> assertEquals("USER", res.getFirst().getRole()),
+				() -> assertEquals(1L, res.getFirst().getVersion()),
+				() -> assertTrue(res.getFirst().getProvisioned())
 		);
 	}
 
 	@Test
-	@DisplayName("Should assign given role to user when valid data is provided")
-	void should_assignGivenRoleToUser_whenValidDataIsProvided() {
+	@DisplayName("Should return existing roles without creating a user when provisioning a known email")
+	void should_returnExistingRoles_whenProvisioningAKnownEmail() {
 		// Given
 		User user = new User();
 		user.setUsername("John");
+		user.setEmail("email@email.com");
 		this.entityManager.persist(user);
 		this.entityManager.flush();
 
-		// When
-		this.userRepository.addSingleRole(user.getId(), 1L);
-		this.userRepository.addSingleRole(user.getId(), 2L);
+		this.userRepository.addSingleRole(user.getId(), 3L);
 
-		// Then
-		Long count = this.jdbcTemplate.queryForObject(
-				"SELECT COUNT(*) FROM user_role WHERE user_id = ? ",
-				Long.class,
-				user.getId()
+		// When
+		List<UserProvisionProjection> res = this.userRepository.provisionOidcUser(
+				Tsid.next(),
+				"email@email.com",
+				"John",
+				"Johnson",
+				"123",
+				1L
 		);
 
-		assertEquals(2, count);
+		// Then
+		Long count = this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
 
+		assertAll(
+				() -> assertEquals(1, count),
+				() -> assertEquals(1, res.size()),
+				() -> assertEquals("ADMIN", res.getFirst().getRole()),
+				() -> assertEquals(1L, res.getFirst().getVersion()),
+				() -> assertFalse(res.getFirst().getProvisioned())
+		);
 	}
 }
\ No newline at end of file
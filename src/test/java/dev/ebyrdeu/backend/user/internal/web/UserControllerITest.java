@@ -3,7 +3,9 @@ package dev.ebyrdeu.backend.user.internal.web;
 import dev.ebyrdeu.backend.TestOAuth2Client;
 import dev.ebyrdeu.backend.TestWithPostgresContainer;
 import dev.ebyrdeu.backend.common.util.JsonConverterAdapter;
+import dev.ebyrdeu.backend.user.UserInternalApi;
 import dev.ebyrdeu.backend.user.internal.dto.UserInfoReqDto;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -11,14 +13,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import static org.hamcrest.Matchers.matchesPattern;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oidcLogin;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -39,6 +47,9 @@ class UserControllerITest {
 	@Autowired
 	private JsonConverterAdapter jsonConverterAdapter;
 
+	@Autowired
+	private UserInternalApi userInternalApi;
+
 	@BeforeEach
 	void setup() {
 		String createUser = "INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)";
@@ -94,6 +105,217 @@ class UserControllerITest {
 
 		}
 
+		@Test
+		@DisplayName("Should advertise the next page in a Link header when more users exist")
+		void shouldAdvertiseNextPageWhenMoreUsersExist() throws Exception {
+			// Given
+			String createUser = "INSERT INTO users (id, username, email) VALUES (?, ?, ?)";
+			jdbcTemplate.update(createUser, 2, "Zelda", "zelda@email.com");
+
+			// When
+			ResultActions response = mockMvc
+					.perform(
+							get("/api/v1/users")
+									.param("size", "1")
+									.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+									.accept(MediaType.APPLICATION_JSON)
+					);
+
+			// Then
+			response
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.data.length()").value(1))
+					.andExpect(jsonPath("$.data[0].username").value("JohnJohn"))
+					.andExpect(header().string("Link", matchesPattern("<http://localhost/api/v1/users\\?cursor=[A-Za-z0-9_-]+&size=1>; rel=\"next\"")))
+					.andDo(print());
+		}
+
+		@Test
+		@DisplayName("Should return Bad Request when the cursor is malformed")
+		void shouldReturnBadRequestWhenCursorIsMalformed() throws Exception {
+			// When
+			ResultActions response = mockMvc
+					.perform(
+							get("/api/v1/users")
+									.param("cursor", "not-a-cursor")
+									.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+									.accept(MediaType.APPLICATION_JSON)
+					);
+
+			// Then
+			response
+					.andExpect(status().isBadRequest())
+					.andExpect(jsonPath("$.code").value(HttpStatus.BAD_REQUEST.value()))
+					.andDo(print());
+		}
+
+		@Test
+		@DisplayName("Should return many users and the missing usernames in one response")
+		void shouldReturnManyUsersAndMissingUsernames() throws Exception {
+			// When
+			ResultActions response = mockMvc
+					.perform(
+							get("/api/v1/users")
+									.param("usernames", "Ghost,JohnJohn")
+									.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+									.accept(MediaType.APPLICATION_JSON)
+					);
+
+			// Then
+			response
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.message").value("Users retrieved successfully"))
+					.andExpect(jsonPath("$.data.users.length()").value(1))
+					.andExpect(jsonPath("$.data.users[0].username").value("JohnJohn"))
+					.andExpect(jsonPath("$.data.missing[0]").value("Ghost"))
+					.andDo(print());
+		}
+
+		@Test
+		@DisplayName("Should return the best search matches, limited to the requested number")
+		void shouldReturnBestSearchMatches() throws Exception {
+			// Given
+			String createUser = "INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)";
+			jdbcTemplate.update(createUser, 2, "Maria", "Johansson", "maria", "maria@email.com");
+			jdbcTemplate.update(createUser, 3, "Peter", "Parker", "spidey", "peter@email.com");
+
+			// When
+			ResultActions response = mockMvc
+					.perform(
+							get("/api/v1/users")
+									.param("q", "Joh")
+									.param("limit", "1")
+									.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+									.accept(MediaType.APPLICATION_JSON)
+					);
+
+			// Then
+			response
+					.andExpect(status().isOk())
+					.andExpect(jsonPath("$.data.length()").value(1))
+					.andExpect(jsonPath("$.data[0].username").value("JohnJohn"))
+					.andExpect(jsonPath("$.data[0].firstName").value("John"))
+					.andDo(print());
+		}
+
+		@Test
+		@DisplayName("Should return Bad Request when the search query is blank")
+		void shouldReturnBadRequestWhenSearchQueryIsBlank() throws Exception {
+			// When
+			ResultActions response = mockMvc
+					.perform(
+							get("/api/v1/users")
+									.param("q", "   ")
+									.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+					);
+
+			// Then
+			response
+					.andExpect(status().isBadRequest())
+					.andExpect(jsonPath("$.message").value("Search query must not be blank"))
+					.andDo(print());
+		}
+
+		@Test
+		@DisplayName("Should return Bad Request when the search and the batch lookup are combined")
+		void shouldReturnBadRequestWhenSearchAndBatchLookupAreCombined() throws Exception {
+			// When
+			ResultActions response = mockMvc
+					.perform(
+							get("/api/v1/users")
+									.param("q", "jo")
+									.param("usernames", "JohnJohn")
+									.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+					);
+
+			// Then
+			response
+					.andExpect(status().isBadRequest())
+					.andDo(print());
+		}
+
+		@Test
+		@DisplayName("Should return Bad Request when the export format is not supported")
+		void shouldReturnBadRequestWhenExportFormatIsNotSupported() throws Exception {
+			// When
+			ResultActions response = mockMvc
+					.perform(
+							get("/api/v1/users/export")
+									.param("format", "csv")
+									.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+					);
+
+			// Then
+			response
+					.andExpect(status().isBadRequest())
+					.andExpect(jsonPath("$.message").value("Unsupported export format: csv"))
+					.andDo(print());
+		}
+
+	}
+
+	/**
+	 * The export is written on an async thread with its own transaction, so this class opts out of the rolled-back
+	 * test transaction and removes its rows itself.
+	 */
+	@Nested
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	class Export {
+
+		@BeforeEach
+		void setup() {
+			String createUser = "INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)";
+			jdbcTemplate.update(createUser, 2, "Alice", "Anders", "Alice", "alice@email.com");
+		}
+
+		@AfterEach
+		void cleanup() {
+			jdbcTemplate.update("DELETE FROM user_role WHERE user_id IN (1, 2)");
+			jdbcTemplate.update("DELETE FROM users WHERE id IN (1, 2)");
+		}
+
+		@Test
+		@DisplayName("Should export one user per line without separators between the lines")
+		void shouldExportOneUserPerLine() throws Exception {
+			// Given
+			MvcResult started = mockMvc
+					.perform(
+							get("/api/v1/users/export")
+									.param("format", "ndjson")
+									.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+					)
+					.andExpect(request().asyncStarted())
+					.andReturn();
+
+			// When
+			ResultActions response = mockMvc.perform(asyncDispatch(started));
+
+			// Then
+			response
+					.andExpect(status().isOk())
+					.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+					.andExpect(content().string("""
+							{"username":"Alice","firstName":"Alice","lastName":"Anders"}
+							{"username":"JohnJohn","firstName":"John","lastName":"Johnson"}
+							"""));
+		}
+
+		@Test
+		@DisplayName("Should return Forbidden when a user without the admin role exports, even from fetch")
+		void shouldReturnForbiddenWhenNonAdminExports() throws Exception {
+			// When
+			ResultActions response = mockMvc.perform(
+					get("/api/v1/users/export")
+							.param("format", "ndjson")
+							.header("X-Requested-With", "fetch")
+							.with(oidcLogin().idToken(token -> token.claim("email", "alice@email.com")))
+			);
+
+			// Then
+			response
+					.andExpect(status().isForbidden())
+					.andExpect(request().asyncNotStarted());
+		}
 	}
 
 	@Nested
@@ -135,10 +357,52 @@ class UserControllerITest {
 					.andExpect(jsonPath("$.code").value(expectedCode))
 					.andExpect(jsonPath("$.message").value(expectedMessage))
 					.andExpect(content().json(expectedResponse))
+					.andExpect(header().exists(HttpHeaders.ETAG))
 					.andDo(print());
 
 		}
 
+		@Test
+		@DisplayName("Should answer 304 without a body when the client's entity tag is current")
+		void shouldAnswerNotModifiedWhenEntityTagIsCurrent() throws Exception {
+			// Given
+			String etag = "\"" + userInternalApi.findProfileETag("JohnJohn") + "\"";
+
+			// When
+			ResultActions response = mockMvc
+					.perform(
+							get("/api/v1/users/JohnJohn")
+									.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+									.header(HttpHeaders.IF_NONE_MATCH, "\"stale\", " + etag)
+									.accept(MediaType.APPLICATION_JSON)
+					);
+
+			// Then
+			response
+					.andExpect(status().isNotModified())
+					.andExpect(header().string(HttpHeaders.ETAG, etag))
+					.andExpect(content().string(""));
+		}
+
+		@Test
+		@DisplayName("Should return the profile when the client's entity tag is stale")
+		void shouldReturnProfileWhenEntityTagIsStale() throws Exception {
+			// When
+			ResultActions response = mockMvc
+					.perform(
+							get("/api/v1/users/JohnJohn")
+									.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+									.header(HttpHeaders.IF_NONE_MATCH, "\"stale\"")
+									.accept(MediaType.APPLICATION_JSON)
+					);
+
+			// Then
+			response
+					.andExpect(status().isOk())
+					.andExpect(header().exists(HttpHeaders.ETAG))
+					.andExpect(jsonPath("$.data.username").value("JohnJohn"));
+		}
+
 	}
 
 	@Nested
@@ -188,5 +452,33 @@ class UserControllerITest {
 
 		}
 
+		@Test
+		@DisplayName("Should return conflict when the new Username is taken")
+		void should_ReturnConflict_whenTheNewUsernameIsTaken() throws Exception {
+			// Given
+			jdbcTemplate.update(
+					"INSERT INTO users (id, first_name, last_name, username, email) VALUES (?, ?, ?, ?, ?)",
+					2, "Jane", "Johnson", "JaneJane", "jane@email.com"
+			);
+			UserInfoReqDto dto = new UserInfoReqDto("JaneJane", null);
+
+			// When
+			ResultActions response = mockMvc.perform(
+					patch("/api/v1/users/JohnJohn")
+							.with(csrf())
+							.with(oidcLogin().idToken(token -> token.claim("email", "email@email.com")))
+							.content(jsonConverterAdapter.valueOf(dto))
+							.contentType(MediaType.APPLICATION_JSON)
+							.accept(MediaType.APPLICATION_JSON)
+			);
+
+			// Then
+			response
+					.andExpect(status().isConflict())
+					.andExpect(jsonPath("$.status").value("CONFLICT"))
+					.andExpect(jsonPath("$.code").value(HttpStatus.CONFLICT.value()))
+					.andExpect(jsonPath("$.message").value("Username JaneJane is already taken"));
+		}
+
 	}
-}
\ No newline at end of file
+}